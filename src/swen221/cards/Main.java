@@ -3,6 +3,18 @@
 // You may not distribute it in any other way without permission.
 package swen221.cards;
 
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+
+import javax.swing.SwingUtilities;
+
+import swen221.cards.core.IllegalMove;
+import swen221.cards.util.GameRecording;
+import swen221.cards.util.GameReplay;
+import swen221.cards.variations.ClassicWhist;
+import swen221.cards.viewer.ReplayFrame;
+import swen221.cards.viewer.TableDashboard;
 import swen221.cards.viewer.TableFrame;
 
 /**
@@ -13,11 +25,30 @@ import swen221.cards.viewer.TableFrame;
  */
 public class Main {
 	/**
-	 * Run a game via the Graphical User Interface.
+	 * Run a game via the Graphical User Interface. Alternatively, running with
+	 * arguments <code>dashboard [tables]</code> monitors many computer-only games
+	 * at once, whilst <code>replay file</code> views a previously saved game.
 	 *
 	 * @param args
 	 */
 	public static void main(String[] args) {
-		new TableFrame();
+		// The game is only ever changed on the event dispatch thread
+		SwingUtilities.invokeLater(new Runnable() {
+			@Override
+			public void run() {
+				if (args.length > 0 && args[0].equals("dashboard")) {
+					int tables = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+					new TableDashboard(tables, 150, ClassicWhist::new);
+				} else if (args.length > 1 && args[0].equals("replay")) {
+					try (Reader in = new FileReader(args[1])) {
+						new ReplayFrame(new GameReplay(GameRecording.read(in)));
+					} catch (IOException | IllegalMove | IllegalArgumentException e) {
+						System.err.println("cannot replay " + args[1] + ": " + e.getMessage());
+					}
+				} else {
+					new TableFrame();
+				}
+			}
+		});
 	}
 }
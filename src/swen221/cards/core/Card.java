@@ -101,6 +101,39 @@ public class Card implements Comparable<Card>, Cloneable {
 		return rank;
 	}
 
+	/**
+	 * Get the unique identifier of this card, between 0 and 51. Identifiers are
+	 * ordered in the same way as cards themselves (i.e. by suit, then by rank),
+	 * which makes them suitable for use as indices and in bit masks.
+	 *
+	 * @return The identifier of this card.
+	 */
+	public int id() {
+		return suit.ordinal() * 13 + rank.ordinal();
+	}
+
+	/**
+	 * Get the card with a given identifier. Since cards cannot be changed, the
+	 * same card is returned for every call with a given identifier.
+	 *
+	 * @param id
+	 *            --- between 0 and 51.
+	 * @return The card with the given identifier.
+	 */
+	public static Card fromId(int id) {
+		return deck[id];
+	}
+
+	private static final Card[] deck = new Card[52];
+
+	static {
+		for (Suit s : Suit.values()) {
+			for (Rank r : Rank.values()) {
+				deck[s.ordinal() * 13 + r.ordinal()] = new Card(s, r);
+			}
+		}
+	}
+
 	private static String[] suits = { "Hearts","Clubs","Diamonds","Spades"};
 	private static String[] ranks = { "2 of ", "3 of ", "4 of ",
 			"5 of ", "6 of ", "7 of ", "8 of ", "9 of ", "10 of ", "Jack of ",
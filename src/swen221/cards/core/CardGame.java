@@ -110,6 +110,29 @@ public interface CardGame extends Cloneable {
 	 */
 	public void startRound();
 
+	/**
+	 * Get the most recently published state of this game. Unlike the other
+	 * methods of this interface, this may safely be called from any thread, as
+	 * the state returned is immutable.
+	 *
+	 * @return The current state of the game.
+	 */
+	public GameState getState();
+
+	/**
+	 * Register a listener to be notified of events in this game.
+	 *
+	 * @param listener The listener to register.
+	 */
+	public void addGameListener(GameListener listener);
+
+	/**
+	 * Remove a previously registered listener from this game.
+	 *
+	 * @param listener The listener to remove.
+	 */
+	public void removeGameListener(GameListener listener);
+
 	/**
 	 * Clone this game
 	 *
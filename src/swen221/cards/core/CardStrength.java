@@ -0,0 +1,238 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.cards.core;
+
+import java.util.List;
+
+/**
+ * Precomputed tables giving the strength of every card in a trick, for every
+ * combination of trumps (including none) and suit led. Within a trick, a card
+ * beats another exactly when its strength is higher. Cards which neither
+ * follow suit nor are trumps have strength zero, cards which follow suit have
+ * strength <code>16 + rank</code>, and trumps have strength
+ * <code>32 + rank</code>. Thus, the winner of a trick is simply the card with
+ * the highest strength.
+ *
+ * Cards are given by their identifiers (see <code>Card.id()</code>), sets of
+ * cards as masks (see <code>Hand.mask()</code>), and suits by their ordinals,
+ * with <code>-1</code> meaning no trumps.
+ *
+ */
+public final class CardStrength {
+	/**
+	 * The cards of a single suit, as a mask.
+	 */
+	private static final long SUIT_MASK = (1L << 13) - 1;
+
+	/**
+	 * The strength of each card, indexed by <code>table(trumps,lead) + card</code>.
+	 */
+	private static final byte[] STRENGTHS = new byte[5 * 4 * 52];
+
+	/**
+	 * The cards which beat each card, indexed in the same way as the strengths.
+	 */
+	private static final long[] BEATERS = new long[5 * 4 * 52];
+
+	static {
+		for (int trumps = -1; trumps != 4; ++trumps) {
+			for (int lead = 0; lead != 4; ++lead) {
+				int table = table(trumps, lead);
+				for (int card = 0; card != 52; ++card) {
+					int suit = card / 13;
+					int rank = card % 13;
+					STRENGTHS[table + card] = (byte) (suit == trumps ? 32 + rank : suit == lead ? 16 + rank : 0);
+				}
+				for (int card = 0; card != 52; ++card) {
+					long beaters = 0;
+					for (int other = 0; other != 52; ++other) {
+						if (STRENGTHS[table + other] > STRENGTHS[table + card]) {
+							beaters |= 1L << other;
+						}
+					}
+					BEATERS[table + card] = beaters;
+				}
+			}
+		}
+	}
+
+	private CardStrength() {
+	}
+
+	/**
+	 * Get the offset of the table for a given combination of trumps and suit
+	 * led.
+	 *
+	 * @param trumps The suit of trumps, or <code>-1</code> for none.
+	 * @param lead   The suit led.
+	 * @return The offset of the table.
+	 */
+	private static int table(int trumps, int lead) {
+		return ((trumps < 0 ? 4 : trumps) * 4 + lead) * 52;
+	}
+
+	/**
+	 * Get the strength of a card in a trick.
+	 *
+	 * @param card   The card.
+	 * @param trumps The suit of trumps, or <code>-1</code> for none.
+	 * @param lead   The suit led.
+	 * @return The strength of the card.
+	 */
+	public static int strength(int card, int trumps, int lead) {
+		return STRENGTHS[table(trumps, lead) + card];
+	}
+
+	/**
+	 * Get the strength of a card in a trick.
+	 *
+	 * @param card   The card.
+	 * @param trumps The suit of trumps, or <code>null</code> for none.
+	 * @param lead   The suit led.
+	 * @return The strength of the card.
+	 */
+	public static int strength(Card card, Card.Suit trumps, Card.Suit lead) {
+		return strength(card.id(), trumps == null ? -1 : trumps.ordinal(), lead.ordinal());
+	}
+
+	/**
+	 * Get the cards which would beat a given card in a trick.
+	 *
+	 * @param card   The card to beat.
+	 * @param trumps The suit of trumps, or <code>-1</code> for none.
+	 * @param lead   The suit led.
+	 * @return The mask of cards which beat it.
+	 */
+	public static long beaters(int card, int trumps, int lead) {
+		return BEATERS[table(trumps, lead) + card];
+	}
+
+	/**
+	 * Find the weakest card out of those given which beats a given card in a
+	 * trick.
+	 *
+	 * @param cards   The cards to choose from, as a mask.
+	 * @param winning The card to beat.
+	 * @param trumps  The suit of trumps, or <code>-1</code> for none.
+	 * @param lead    The suit led.
+	 * @return The weakest card which beats it, or <code>-1</code> if there is
+	 *         none.
+	 */
+	public static int cheapestBeater(long cards, int winning, int trumps, int lead) {
+		long beaters = cards & BEATERS[table(trumps, lead) + winning];
+		if (beaters == 0) {
+			return -1;
+		}
+		// Cards which follow suit are weaker than trumps; and, within a
+		// suit, strength follows the card identifiers.
+		long following = beaters & (SUIT_MASK << (13 * lead));
+		return Long.numberOfTrailingZeros(following != 0 ? following : beaters);
+	}
+
+	/**
+	 * Choose a card using the greedy policy, which tries to win every trick as
+	 * cheaply as possible. When leading, the highest card outside of trumps is
+	 * played. When following, the weakest card which beats the card currently
+	 * winning is played, otherwise the lowest card is thrown away (avoiding
+	 * trumps where possible). Ties in rank go to the highest suit when leading,
+	 * and the lowest suit when throwing away.
+	 *
+	 * @param cards   The cards held, as a mask.
+	 * @param trumps  The suit of trumps, or <code>-1</code> for none.
+	 * @param lead    The suit led, or <code>-1</code> when leading.
+	 * @param winning The card currently winning the trick (ignored when
+	 *                leading).
+	 * @return The card to play, which always follows suit where possible.
+	 */
+	public static int greedyChoice(long cards, int trumps, int lead, int winning) {
+		long trumpMask = trumps < 0 ? 0 : SUIT_MASK << (13 * trumps);
+		if (lead < 0) {
+			long pool = cards & ~trumpMask;
+			return highest(pool != 0 ? pool : cards);
+		}
+		long follow = cards & (SUIT_MASK << (13 * lead));
+		long legal = follow != 0 ? follow : cards;
+		int beater = cheapestBeater(legal, winning, trumps, lead);
+		if (beater >= 0) {
+			return beater;
+		}
+		long pool = legal & ~trumpMask;
+		return lowest(pool != 0 ? pool : legal);
+	}
+
+	/**
+	 * Find the position of the strongest card in a (possibly incomplete)
+	 * trick, where the first card determines the suit led.
+	 *
+	 * @param cards  The cards played, in order.
+	 * @param count  The number of cards played.
+	 * @param trumps The suit of trumps, or <code>-1</code> for none.
+	 * @return The position of the strongest card.
+	 */
+	public static int strongest(int[] cards, int count, int trumps) {
+		int table = table(trumps, cards[0] / 13);
+		int best = 0;
+		for (int i = 1; i < count; ++i) {
+			if (STRENGTHS[table + cards[i]] > STRENGTHS[table + cards[best]]) {
+				best = i;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Find the strongest card in a (possibly incomplete) trick, where the first
+	 * card determines the suit led.
+	 *
+	 * @param cards  The cards played, in order.
+	 * @param trumps The suit of trumps, or <code>null</code> for none.
+	 * @return The strongest card.
+	 */
+	public static Card strongest(List<Card> cards, Card.Suit trumps) {
+		int table = table(trumps == null ? -1 : trumps.ordinal(), cards.get(0).suit().ordinal());
+		Card best = cards.get(0);
+		for (Card card : cards) {
+			if (STRENGTHS[table + card.id()] > STRENGTHS[table + best.id()]) {
+				best = card;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Find the card with the highest rank in a given mask, favouring the
+	 * highest suit in a tie.
+	 */
+	private static int highest(long cards) {
+		int best = -1;
+		for (int suit = 0; suit != 4; ++suit) {
+			long inSuit = (cards >>> (13 * suit)) & SUIT_MASK;
+			if (inSuit != 0) {
+				int card = 13 * suit + 63 - Long.numberOfLeadingZeros(inSuit);
+				if (best < 0 || card % 13 >= best % 13) {
+					best = card;
+				}
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Find the card with the lowest rank in a given mask, favouring the lowest
+	 * suit in a tie.
+	 */
+	private static int lowest(long cards) {
+		int best = -1;
+		for (int suit = 0; suit != 4; ++suit) {
+			long inSuit = (cards >>> (13 * suit)) & SUIT_MASK;
+			if (inSuit != 0) {
+				int card = 13 * suit + Long.numberOfTrailingZeros(inSuit);
+				if (best < 0 || card % 13 < best % 13) {
+					best = card;
+				}
+			}
+		}
+		return best;
+	}
+}
@@ -0,0 +1,61 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.cards.core;
+
+/**
+ * Receives notification of events as a card game progresses. This allows
+ * observers (e.g. user interfaces, loggers, etc) to react to each change as it
+ * happens, rather than rescanning the whole state of the game. Events are
+ * delivered on whichever thread is changing the game, and every method does
+ * nothing by default, so listeners need only implement those events they are
+ * interested in.
+ *
+ */
+public interface GameListener {
+
+	/**
+	 * Signals that a new hand has been dealt.
+	 */
+	public default void handDealt() {
+	}
+
+	/**
+	 * Signals that a given player has played a given card.
+	 *
+	 * @param player The player who played the card.
+	 * @param card   The card which was played.
+	 */
+	public default void cardPlayed(Player.Direction player, Card card) {
+	}
+
+	/**
+	 * Signals that the current trick has been completed and won.
+	 *
+	 * @param winner The player who won the trick.
+	 */
+	public default void trickWon(Player.Direction winner) {
+	}
+
+	/**
+	 * Signals that the current hand has ended, and the overall scores have
+	 * been updated.
+	 */
+	public default void handEnded() {
+	}
+
+	/**
+	 * Signals that the suit of trumps has changed.
+	 *
+	 * @param trumps The new suit of trumps, where <code>null</code> signals "no
+	 *               trumps".
+	 */
+	public default void trumpsChanged(Card.Suit trumps) {
+	}
+
+	/**
+	 * Signals that the game has finished.
+	 */
+	public default void gameFinished() {
+	}
+}
@@ -0,0 +1,226 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.cards.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An immutable view of a card game at a single moment in time. Games publish a
+ * fresh state after every change, so that other threads (e.g. user interfaces,
+ * spectators, etc) can read a consistent view of the game at any time without
+ * locking, and without ever seeing a partially completed move.
+ *
+ */
+public final class GameState {
+	/**
+	 * The state of a game before its first hand is dealt. No player holds any
+	 * cards, there is no trick, and no tricks have been won or points scored.
+	 */
+	public static final GameState NEW_GAME = new GameState(0, new long[4], new Card[4], null, null, new int[4],
+			new int[4], false);
+
+	private final long version;
+	private final long[] hands;
+	private final Card[] played;
+	private final Player.Direction lead;
+	private final Card.Suit trumps;
+	private final int[] tricks;
+	private final int[] scores;
+	private final boolean finished;
+
+	/**
+	 * Construct a new game state. The arrays given are assumed not to be
+	 * modified afterwards.
+	 *
+	 * @param version     Identifies this state. Later states of the same game
+	 *                    have larger versions.
+	 * @param hands       The hand of each player as a bit mask, indexed by
+	 *                    direction.
+	 * @param played      The card played by each player in the current trick,
+	 *                    indexed by direction.
+	 * @param lead        The lead player of the current trick, or
+	 *                    <code>null</code> if there is no trick.
+	 * @param trumps      The suit of trumps for the current trick.
+	 * @param tricks      The tricks won by each player in the current hand.
+	 * @param scores      The overall score of each player.
+	 * @param finished    Whether or not the game is finished.
+	 */
+	public GameState(long version, long[] hands, Card[] played, Player.Direction lead, Card.Suit trumps,
+			int[] tricks, int[] scores, boolean finished) {
+		this.version = version;
+		this.hands = hands;
+		this.played = played;
+		this.lead = lead;
+		this.trumps = trumps;
+		this.tricks = tricks;
+		this.scores = scores;
+		this.finished = finished;
+	}
+
+	/**
+	 * Capture the current state of a given game. This must be called by the
+	 * thread which is playing the game.
+	 *
+	 * @param version Identifies the state being captured.
+	 * @param game    The game whose state is captured.
+	 * @return The captured state.
+	 */
+	public static GameState of(long version, CardGame game) {
+		Player.Direction[] directions = Player.Direction.values();
+		long[] hands = new long[4];
+		Card[] played = new Card[4];
+		int[] tricks = new int[4];
+		int[] scores = new int[4];
+		Trick trick = game.getTrick();
+		for (Player.Direction d : directions) {
+			int i = d.ordinal();
+			hands[i] = game.getPlayer(d).getHand().mask();
+			tricks[i] = game.getTricksWon().get(d);
+			scores[i] = game.getOverallScores().get(d);
+			if (trick != null) {
+				played[i] = trick.getCardPlayed(d);
+			}
+		}
+		Player.Direction lead = trick == null ? null : trick.getLeadPlayer();
+		Card.Suit trumps = trick == null ? null : trick.getTrumps();
+		return new GameState(version, hands, played, lead, trumps, tricks, scores,
+				game.isGameFinished());
+	}
+
+	/**
+	 * Get the version of this state. Later states of the same game always have
+	 * larger versions, hence readers can cheaply check whether anything has
+	 * changed.
+	 *
+	 * @return The version of this state.
+	 */
+	public long getVersion() {
+		return version;
+	}
+
+	/**
+	 * Get the hand of a given player as a bit mask, where bit <code>i</code> is
+	 * set if the player holds the card with identifier <code>i</code>.
+	 *
+	 * @param player The player whose hand is returned.
+	 * @return The player's hand.
+	 */
+	public long getHand(Player.Direction player) {
+		return hands[player.ordinal()];
+	}
+
+	/**
+	 * Get the cards held by a given player, in the same order as they would be
+	 * returned by the player's <code>Hand</code>.
+	 *
+	 * @param player The player whose cards are returned.
+	 * @return The list of cards held by the player.
+	 */
+	public List<Card> getCards(Player.Direction player) {
+		long mask = hands[player.ordinal()];
+		ArrayList<Card> cards = new ArrayList<>(Long.bitCount(mask));
+		while (mask != 0) {
+			cards.add(Card.fromId(Long.numberOfTrailingZeros(mask)));
+			mask &= mask - 1;
+		}
+		return cards;
+	}
+
+	/**
+	 * Get the number of cards held by a given player.
+	 *
+	 * @param player The player in question.
+	 * @return The number of cards in the player's hand.
+	 */
+	public int getHandSize(Player.Direction player) {
+		return Long.bitCount(hands[player.ordinal()]);
+	}
+
+	/**
+	 * Check whether or not a trick is currently being played.
+	 *
+	 * @return <code>true</code> if there is a current trick.
+	 */
+	public boolean hasTrick() {
+		return lead != null;
+	}
+
+	/**
+	 * Get the card played by a given player in the current trick, or
+	 * <code>null</code> if that player has yet to play.
+	 *
+	 * @param player The player in question.
+	 * @return The card played by the player.
+	 */
+	public Card getCardPlayed(Player.Direction player) {
+		return played[player.ordinal()];
+	}
+
+	/**
+	 * Get the lead player of the current trick, or <code>null</code> if there is
+	 * no trick.
+	 *
+	 * @return The lead player.
+	 */
+	public Player.Direction getLeadPlayer() {
+		return lead;
+	}
+
+	/**
+	 * Get the next player to play in the current trick, or <code>null</code> if
+	 * the trick is complete (or there is no trick).
+	 *
+	 * @return The next player to play.
+	 */
+	public Player.Direction getNextToPlay() {
+		Player.Direction d = lead;
+		for (int i = 0; d != null && i != 4; ++i) {
+			if (played[d.ordinal()] == null) {
+				return d;
+			}
+			d = d.next();
+		}
+		return null;
+	}
+
+	/**
+	 * Get the suit of trumps for the current trick, or <code>null</code> if
+	 * there are no trumps (or there is no trick).
+	 *
+	 * @return The current suit of trumps.
+	 */
+	public Card.Suit getTrumps() {
+		return trumps;
+	}
+
+	/**
+	 * Get the number of tricks won by a given player in the current hand.
+	 *
+	 * @param player The player in question.
+	 * @return The number of tricks won.
+	 */
+	public int getTricksWon(Player.Direction player) {
+		return tricks[player.ordinal()];
+	}
+
+	/**
+	 * Get the overall score of a given player.
+	 *
+	 * @param player The player in question.
+	 * @return The player's overall score.
+	 */
+	public int getOverallScore(Player.Direction player) {
+		return scores[player.ordinal()];
+	}
+
+	/**
+	 * Check whether the game was finished when this state was captured.
+	 *
+	 * @return <code>true</code> if the game is finished.
+	 */
+	public boolean isGameFinished() {
+		return finished;
+	}
+}
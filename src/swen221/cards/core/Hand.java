@@ -15,6 +15,11 @@ import java.util.*;
  */
 public class Hand implements Cloneable, Iterable<Card> {
 	private SortedSet<Card> cards = new TreeSet<>();
+	/**
+	 * Bit mask of the cards in this hand, where bit <code>i</code> is set if
+	 * the card with identifier <code>i</code> is held.
+	 */
+	private long mask;
 
 
 	@Override
@@ -56,6 +61,7 @@ public class Hand implements Cloneable, Iterable<Card> {
 	 */
 	public void add(Card card) {
 		cards.add(card);
+		mask |= 1L << card.id();
 	}
 
 	/**
@@ -64,6 +70,7 @@ public class Hand implements Cloneable, Iterable<Card> {
 	 */
 	public void remove(Card card) {
 		cards.remove(card);
+		mask &= ~(1L << card.id());
 	}
 
 	/**
@@ -80,6 +87,17 @@ public class Hand implements Cloneable, Iterable<Card> {
 	 */
 	public void clear() {
 		cards.clear();
+		mask = 0;
+	}
+
+	/**
+	 * Get the cards in this hand as a bit mask, where bit <code>i</code> is set
+	 * if the card with identifier <code>i</code> is held.
+	 *
+	 * @return The bit mask of this hand.
+	 */
+	public long mask() {
+		return mask;
 	}
 	
 	/**
@@ -14,6 +14,12 @@ import java.util.List;
  *
  */
 public class Trick implements Cloneable {
+	/**
+	 * The directions in order, so that the winner can be found without copying
+	 * them each time.
+	 */
+	private static final Player.Direction[] DIRECTIONS = Player.Direction.values();
+
 	private Card[] cards = new Card[4];
 	private Player.Direction lead;
 	private Card.Suit trumps;
@@ -32,6 +38,24 @@ public class Trick implements Cloneable {
 		this.trumps = trumps;
 	}
 
+	/**
+	 * Construct a trick in which some cards have already been played.
+	 *
+	 * @param lead   The lead player for this trick.
+	 * @param trumps The suit of trumps, or <code>null</code> if no trumps.
+	 * @param played The cards played so far, in the order they were played.
+	 */
+	public Trick(Player.Direction lead, Card.Suit trumps, List<Card> played) {
+		this(lead, trumps);
+		if (played.size() > 4) {
+			throw new IllegalArgumentException("too many cards played");
+		}
+		played.toArray(cards);
+		if (!played.isEmpty()) {
+			leadSuit = played.get(0).suit();
+		}
+	}
+
 	/**
 	 * Determine who the lead player for this trick is.
 	 *
@@ -112,23 +136,19 @@ public class Trick implements Cloneable {
 	 * @return The winning player (thus far).
 	 */
 	public Player.Direction getWinner() {
-		Player.Direction player = lead;
-		Player.Direction winningPlayer = null;
-		Card winningCard = cards[0];
-		for (int i = 0; i != 4; ++i) {
-			if (cards[i].suit() == winningCard.suit()
-					&& cards[i].compareTo(winningCard) >= 0) {
-				winningPlayer = player;
-				winningCard = cards[i];
-			} else if (trumps != null && cards[i].suit() == trumps
-					&& winningCard.suit() != trumps) {
-				// in this case, the winning card is a trump
-				winningPlayer = player;
-				winningCard = cards[i];
+		// The winner holds the strongest card, given trumps and the suit led
+		int trump = trumps == null ? -1 : trumps.ordinal();
+		int led = cards[0].suit().ordinal();
+		int winning = 0;
+		int best = CardStrength.strength(cards[0].id(), trump, led);
+		for (int i = 1; i != 4; ++i) {
+			int strength = CardStrength.strength(cards[i].id(), trump, led);
+			if (strength > best) {
+				winning = i;
+				best = strength;
 			}
-			player = player.next();
 		}
-		return winningPlayer;
+		return DIRECTIONS[(lead.ordinal() + winning) & 3];
 	}
 	
 	/**
@@ -143,6 +163,7 @@ public class Trick implements Cloneable {
 		}
 		cloned.lead = this.lead;
 		cloned.trumps = this.trumps;
+		cloned.leadSuit = this.leadSuit;
 		return cloned;
 	}
 
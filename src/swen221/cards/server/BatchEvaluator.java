@@ -0,0 +1,23 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.cards.server;
+
+/**
+ * Decides the moves for a whole batch of computer players at once. This suits
+ * evaluators which have a high fixed cost per call, or which can process many
+ * decisions in a single pass over arrays. Evaluators are only ever called by
+ * one thread at a time.
+ *
+ */
+public interface BatchEvaluator {
+	/**
+	 * Decide the card to play for every decision in a batch.
+	 *
+	 * @param batch   The decisions to make.
+	 * @param choices Receives the identifier (as given by
+	 *                <code>Card.id()</code>) of the card chosen for each
+	 *                decision, indexed in the same way as the batch.
+	 */
+	void evaluate(DecisionBatch batch, int[] choices);
+}
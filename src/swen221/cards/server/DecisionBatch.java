@@ -0,0 +1,124 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.cards.server;
+
+/**
+ * A batch of decisions to be made by a <code>BatchEvaluator</code>. Each
+ * decision is described by a handful of numbers, which are held in parallel
+ * arrays so that evaluators can process the whole batch in tight loops. Cards
+ * are given by their identifiers (see <code>Card.id()</code>), suits by their
+ * ordinals, and hands as masks (see <code>Hand.mask()</code>). A batch is
+ * reused by its broker, and so is only valid during a call to
+ * <code>evaluate()</code>.
+ *
+ */
+public final class DecisionBatch {
+	private int size;
+	private final long[] hands;
+	private final int[] trumps;
+	private final int[] leadSuits;
+	private final int[] winningCards;
+	private final int[] played;
+
+	/**
+	 * Construct an empty batch.
+	 *
+	 * @param capacity The maximum number of decisions in the batch.
+	 */
+	DecisionBatch(int capacity) {
+		this.hands = new long[capacity];
+		this.trumps = new int[capacity];
+		this.leadSuits = new int[capacity];
+		this.winningCards = new int[capacity];
+		this.played = new int[capacity];
+	}
+
+	/**
+	 * Get the number of decisions in this batch.
+	 *
+	 * @return The number of decisions.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Get the hand of the player making a given decision.
+	 *
+	 * @param i The index of the decision.
+	 * @return The hand, as a mask of card identifiers.
+	 */
+	public long getHand(int i) {
+		return hands[i];
+	}
+
+	/**
+	 * Get the suit of trumps for a given decision.
+	 *
+	 * @param i The index of the decision.
+	 * @return The ordinal of the suit, or <code>-1</code> if there are no
+	 *         trumps.
+	 */
+	public int getTrumps(int i) {
+		return trumps[i];
+	}
+
+	/**
+	 * Get the suit led in the trick for a given decision.
+	 *
+	 * @param i The index of the decision.
+	 * @return The ordinal of the suit, or <code>-1</code> if the player is
+	 *         leading.
+	 */
+	public int getLeadSuit(int i) {
+		return leadSuits[i];
+	}
+
+	/**
+	 * Get the card currently winning the trick for a given decision.
+	 *
+	 * @param i The index of the decision.
+	 * @return The card identifier, or <code>-1</code> if the player is leading.
+	 */
+	public int getWinningCard(int i) {
+		return winningCards[i];
+	}
+
+	/**
+	 * Get the number of cards already played in the trick for a given
+	 * decision.
+	 *
+	 * @param i The index of the decision.
+	 * @return The number of cards played, between <code>0</code> and
+	 *         <code>3</code>.
+	 */
+	public int getPlayedCount(int i) {
+		return played[i];
+	}
+
+	/**
+	 * Empty this batch.
+	 */
+	void clear() {
+		size = 0;
+	}
+
+	/**
+	 * Add a decision to this batch.
+	 *
+	 * @param hand        The hand of the player making the decision.
+	 * @param trumps      The suit of trumps, or <code>-1</code>.
+	 * @param leadSuit    The suit led, or <code>-1</code>.
+	 * @param winningCard The card currently winning, or <code>-1</code>.
+	 * @param playedCount The number of cards already played.
+	 */
+	void add(long hand, int trumps, int leadSuit, int winningCard, int playedCount) {
+		int i = size++;
+		this.hands[i] = hand;
+		this.trumps[i] = trumps;
+		this.leadSuits[i] = leadSuit;
+		this.winningCards[i] = winningCard;
+		this.played[i] = playedCount;
+	}
+}
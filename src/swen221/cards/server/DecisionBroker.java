@@ -0,0 +1,336 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.cards.server;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import swen221.cards.core.*;
+import swen221.cards.util.AbstractComputerPlayer;
+import swen221.cards.util.Deadline;
+
+/**
+ * Collects the decisions needed by computer players at many tables, and passes
+ * them to a shared <code>BatchEvaluator</code> in batches. A batch is
+ * evaluated once it is full, or once its oldest decision has waited for the
+ * batching window, whichever comes first. Larger batches and longer windows
+ * make better use of the evaluator, at the cost of each decision waiting
+ * longer. For example:
+ *
+ * <pre>
+ * DecisionBroker broker = new DecisionBroker(new GreedyEvaluator(), 256, 2, TimeUnit.MILLISECONDS);
+ * computerPlayers.put(d, broker.newComputerPlayer(game.getPlayer(d)));
+ * </pre>
+ *
+ */
+public class DecisionBroker implements AutoCloseable {
+	/**
+	 * The number of buckets in the batch size histogram. Bucket
+	 * <code>k</code> counts batches whose size is between
+	 * <code>2<sup>k</sup></code> and <code>2<sup>k+1</sup>-1</code>.
+	 */
+	private static final int HISTOGRAM_BUCKETS = 32;
+
+	/**
+	 * A decision waiting to be made. The trick and hand are captured when the
+	 * decision is requested, since the table may change them afterwards.
+	 */
+	private static final class Request {
+		final long hand;
+		final int trumps;
+		final int leadSuit;
+		final int winningCard;
+		final int playedCount;
+		final long enqueued = System.nanoTime();
+		final CompletableFuture<Card> result = new CompletableFuture<>();
+
+		Request(Trick trick, Hand hand) {
+			this.hand = hand.mask();
+			this.trumps = trick.getTrumps() == null ? -1 : trick.getTrumps().ordinal();
+			List<Card> cards = trick.getCardsPlayed();
+			this.playedCount = cards.size();
+			if (cards.isEmpty()) {
+				this.leadSuit = -1;
+				this.winningCard = -1;
+			} else {
+				this.leadSuit = cards.get(0).suit().ordinal();
+				this.winningCard = CardStrength.strongest(cards, trick.getTrumps()).id();
+			}
+		}
+	}
+
+	private final BatchEvaluator evaluator;
+	private final int maxBatchSize;
+	private final long window;
+	private final BlockingQueue<Request> queue = new LinkedBlockingQueue<>();
+	private final Thread thread;
+	private volatile boolean closed;
+
+	// Metrics, which are only updated by the broker thread
+	private final AtomicLong batches = new AtomicLong();
+	private final AtomicLong decisions = new AtomicLong();
+	private final AtomicLong totalWait = new AtomicLong();
+	private final AtomicLong maxWait = new AtomicLong();
+	private final AtomicLong totalEvaluation = new AtomicLong();
+	private final AtomicLongArray batchSizes = new AtomicLongArray(HISTOGRAM_BUCKETS);
+
+	/**
+	 * Construct a new broker, which evaluates decisions on its own thread.
+	 *
+	 * @param evaluator    The evaluator used to make decisions.
+	 * @param maxBatchSize The largest number of decisions evaluated together.
+	 * @param window       The longest time a decision waits for others to
+	 *                     join its batch.
+	 * @param unit         The units of the window.
+	 */
+	public DecisionBroker(BatchEvaluator evaluator, int maxBatchSize, long window, TimeUnit unit) {
+		if (maxBatchSize < 1) {
+			throw new IllegalArgumentException("invalid batch size");
+		}
+		this.evaluator = evaluator;
+		this.maxBatchSize = maxBatchSize;
+		this.window = unit.toNanos(window);
+		this.thread = new Thread(this::run, "decision-broker");
+		this.thread.setDaemon(true);
+		this.thread.start();
+	}
+
+	/**
+	 * Request a decision for the player holding a given hand in a given trick.
+	 *
+	 * @param trick The trick being played.
+	 * @param hand  The hand of the player to move.
+	 * @return The card to play.
+	 */
+	public CompletableFuture<Card> submit(Trick trick, Hand hand) {
+		Request request = new Request(trick, hand);
+		if (!closed) {
+			queue.add(request);
+		}
+		// The broker may have been closed after the request was queued, but
+		// before its final drain; if so, nothing else will complete it
+		if (closed) {
+			request.result.completeExceptionally(new RejectedExecutionException("broker closed"));
+		}
+		return request.result;
+	}
+
+	/**
+	 * Create a computer player whose moves are decided by this broker.
+	 *
+	 * @param player Key player information.
+	 * @return The new computer player.
+	 */
+	public AbstractComputerPlayer newComputerPlayer(Player player) {
+		return new BrokeredComputerPlayer(player, this);
+	}
+
+	/**
+	 * Stop this broker. Decisions which have not yet been evaluated fail.
+	 */
+	@Override
+	public void close() {
+		closed = true;
+		thread.interrupt();
+	}
+
+	// ==============================================================
+	// Metrics
+	// ==============================================================
+
+	/**
+	 * Get the number of batches evaluated so far.
+	 *
+	 * @return The number of batches.
+	 */
+	public long getBatchCount() {
+		return batches.get();
+	}
+
+	/**
+	 * Get the number of decisions made so far.
+	 *
+	 * @return The number of decisions.
+	 */
+	public long getDecisionCount() {
+		return decisions.get();
+	}
+
+	/**
+	 * Get the average number of decisions in each batch.
+	 *
+	 * @return The mean batch size.
+	 */
+	public double getMeanBatchSize() {
+		long n = batches.get();
+		return n == 0 ? 0 : (double) decisions.get() / n;
+	}
+
+	/**
+	 * Get a histogram of batch sizes, where entry <code>k</code> counts the
+	 * batches holding between <code>2<sup>k</sup></code> and
+	 * <code>2<sup>k+1</sup>-1</code> decisions.
+	 *
+	 * @return The histogram.
+	 */
+	public long[] getBatchSizeHistogram() {
+		long[] histogram = new long[HISTOGRAM_BUCKETS];
+		for (int i = 0; i != histogram.length; ++i) {
+			histogram[i] = batchSizes.get(i);
+		}
+		return histogram;
+	}
+
+	/**
+	 * Get the average time decisions spent queued, before evaluation began.
+	 *
+	 * @param unit The units of the result.
+	 * @return The mean queue wait.
+	 */
+	public double getMeanQueueWait(TimeUnit unit) {
+		long n = decisions.get();
+		return n == 0 ? 0 : (double) totalWait.get() / n / unit.toNanos(1);
+	}
+
+	/**
+	 * Get the longest time any decision spent queued, before evaluation began.
+	 *
+	 * @param unit The units of the result.
+	 * @return The maximum queue wait.
+	 */
+	public long getMaxQueueWait(TimeUnit unit) {
+		return unit.convert(maxWait.get(), TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Get the average time taken to evaluate each batch.
+	 *
+	 * @param unit The units of the result.
+	 * @return The mean evaluation time.
+	 */
+	public double getMeanEvaluationTime(TimeUnit unit) {
+		long n = batches.get();
+		return n == 0 ? 0 : (double) totalEvaluation.get() / n / unit.toNanos(1);
+	}
+
+	// ==============================================================
+	// Batching
+	// ==============================================================
+
+	private void run() {
+		List<Request> requests = new ArrayList<>(maxBatchSize);
+		DecisionBatch batch = new DecisionBatch(maxBatchSize);
+		int[] choices = new int[maxBatchSize];
+		try {
+			while (!closed) {
+				collect(requests);
+				evaluate(requests, batch, choices);
+				requests.clear();
+			}
+		} catch (InterruptedException e) {
+			// The broker has been closed
+		}
+		RejectedExecutionException error = new RejectedExecutionException("broker closed");
+		for (Request request : requests) {
+			request.result.completeExceptionally(error);
+		}
+		Request request;
+		while ((request = queue.poll()) != null) {
+			request.result.completeExceptionally(error);
+		}
+	}
+
+	/**
+	 * Wait for the next batch of requests. This is complete once it is full,
+	 * or once the window for its first request has passed.
+	 *
+	 * @param requests Receives the requests in the batch.
+	 * @throws InterruptedException If the broker is closed whilst waiting.
+	 */
+	private void collect(List<Request> requests) throws InterruptedException {
+		Request first = queue.take();
+		requests.add(first);
+		long end = first.enqueued + window;
+		while (requests.size() < maxBatchSize) {
+			// Take whatever is already waiting, without blocking
+			if (queue.drainTo(requests, maxBatchSize - requests.size()) > 0) {
+				continue;
+			}
+			long remaining = end - System.nanoTime();
+			Request next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+			if (next == null) {
+				break;
+			}
+			requests.add(next);
+		}
+	}
+
+	private void evaluate(List<Request> requests, DecisionBatch batch, int[] choices) {
+		long start = System.nanoTime();
+		batch.clear();
+		for (Request request : requests) {
+			batch.add(request.hand, request.trumps, request.leadSuit, request.winningCard, request.playedCount);
+			long wait = start - request.enqueued;
+			totalWait.addAndGet(wait);
+			if (wait > maxWait.get()) {
+				maxWait.set(wait);
+			}
+		}
+		try {
+			evaluator.evaluate(batch, choices);
+			for (int i = 0; i != requests.size(); ++i) {
+				int choice = choices[i];
+				if (choice < 0 || choice >= 52) {
+					requests.get(i).result.completeExceptionally(new IllegalStateException("invalid card " + choice));
+				} else {
+					requests.get(i).result.complete(Card.fromId(choice));
+				}
+			}
+		} catch (RuntimeException e) {
+			for (Request request : requests) {
+				request.result.completeExceptionally(e);
+			}
+		}
+		totalEvaluation.addAndGet(System.nanoTime() - start);
+		batches.incrementAndGet();
+		decisions.addAndGet(requests.size());
+		batchSizes.incrementAndGet(31 - Integer.numberOfLeadingZeros(requests.size()));
+	}
+
+	/**
+	 * A computer player whose moves are decided by a broker. No thread is tied
+	 * up whilst a move is being decided.
+	 */
+	private static final class BrokeredComputerPlayer extends AbstractComputerPlayer {
+		private final DecisionBroker broker;
+
+		BrokeredComputerPlayer(Player player, DecisionBroker broker) {
+			super(player);
+			this.broker = broker;
+		}
+
+		@Override
+		public Card getNextCard(Trick trick) {
+			return broker.submit(trick, player.getHand()).join();
+		}
+
+		@Override
+		public CompletableFuture<Card> getNextCardAsync(Trick trick, Deadline deadline, Executor executor) {
+			CompletableFuture<Card> result = broker.submit(trick, player.getHand());
+			long remaining = deadline.remaining(TimeUnit.NANOSECONDS);
+			if (remaining != Long.MAX_VALUE) {
+				result.orTimeout(remaining, TimeUnit.NANOSECONDS);
+			}
+			return result;
+		}
+
+		@Override
+		public AbstractComputerPlayer copy(Player player) {
+			return new BrokeredComputerPlayer(player, broker);
+		}
+	}
+}
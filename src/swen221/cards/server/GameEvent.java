@@ -0,0 +1,145 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.cards.server;
+
+import swen221.cards.core.Card;
+import swen221.cards.core.Player;
+
+/**
+ * An immutable record of something which happened in a game, suitable for
+ * sending to spectators. Each event is encoded exactly once when it is
+ * created, and the same event (and encoding) is then shared by every
+ * subscriber.
+ *
+ */
+public final class GameEvent {
+
+	/**
+	 * Identifies the different kinds of event.
+	 */
+	public enum Kind {
+		/**
+		 * A player played a card.
+		 */
+		CARD_PLAYED,
+		/**
+		 * A player won a trick.
+		 */
+		TRICK_WON,
+		/**
+		 * A hand was completed.
+		 */
+		HAND_ENDED,
+		/**
+		 * The suit of trumps changed.
+		 */
+		TRUMPS_CHANGED,
+		/**
+		 * The game finished.
+		 */
+		GAME_FINISHED;
+	}
+
+	private final long sequence;
+	private final Kind kind;
+	private final Player.Direction player;
+	private final Card card;
+	private final Card.Suit trumps;
+	private final String encoding;
+
+	/**
+	 * Construct a new game event.
+	 *
+	 * @param sequence Position of this event in the stream of events for its
+	 *                 game.
+	 * @param kind     The kind of event.
+	 * @param player   The player involved, or <code>null</code> if none.
+	 * @param card     The card involved, or <code>null</code> if none.
+	 * @param trumps   The new suit of trumps (for <code>TRUMPS_CHANGED</code>
+	 *                 only).
+	 */
+	public GameEvent(long sequence, Kind kind, Player.Direction player, Card card, Card.Suit trumps) {
+		this.sequence = sequence;
+		this.kind = kind;
+		this.player = player;
+		this.card = card;
+		this.trumps = trumps;
+		this.encoding = encode();
+	}
+
+	/**
+	 * Get the position of this event in the stream of events for its game.
+	 *
+	 * @return The sequence number of this event.
+	 */
+	public long getSequence() {
+		return sequence;
+	}
+
+	/**
+	 * Get the kind of this event.
+	 *
+	 * @return The kind of event.
+	 */
+	public Kind getKind() {
+		return kind;
+	}
+
+	/**
+	 * Get the player involved in this event (if any).
+	 *
+	 * @return The player who played the card or won the trick.
+	 */
+	public Player.Direction getPlayer() {
+		return player;
+	}
+
+	/**
+	 * Get the card involved in this event (if any).
+	 *
+	 * @return The card which was played.
+	 */
+	public Card getCard() {
+		return card;
+	}
+
+	/**
+	 * Get the new suit of trumps, where <code>null</code> signals "no trumps".
+	 *
+	 * @return The new suit of trumps.
+	 */
+	public Card.Suit getTrumps() {
+		return trumps;
+	}
+
+	/**
+	 * Get the wire encoding of this event. This is a single line of text, such
+	 * as <code>"12 CARD_PLAYED NORTH 4 of Hearts"</code>.
+	 *
+	 * @return The encoded event.
+	 */
+	public String getEncoding() {
+		return encoding;
+	}
+
+	@Override
+	public String toString() {
+		return encoding;
+	}
+
+	private String encode() {
+		StringBuilder sb = new StringBuilder();
+		sb.append(sequence).append(' ').append(kind);
+		if (player != null) {
+			sb.append(' ').append(player);
+		}
+		if (card != null) {
+			sb.append(' ').append(card);
+		}
+		if (kind == Kind.TRUMPS_CHANGED) {
+			sb.append(' ').append(trumps == null ? "NONE" : trumps);
+		}
+		return sb.toString();
+	}
+}
@@ -0,0 +1,312 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.cards.server;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import swen221.cards.core.Card;
+import swen221.cards.core.GameListener;
+import swen221.cards.core.Player;
+
+/**
+ * Publishes the events of a single game to any number of (possibly slow)
+ * subscribers. The publisher is registered with a game as an ordinary
+ * <code>GameListener</code>, for example:
+ *
+ * <pre>
+ * GameEventPublisher publisher = new GameEventPublisher(executor, 256, OverflowPolicy.DROP_OLDEST, 16);
+ * game.addGameListener(publisher);
+ * publisher.subscribe(spectator);
+ * </pre>
+ *
+ * Each subscriber has its own bounded buffer. Publishing an event never blocks
+ * the thread playing the game: when a subscriber's buffer is full, the
+ * subscriber's overflow policy decides what is discarded. Events are delivered
+ * in batches on the given executor, and each <code>onNext()</code> counts as a
+ * single unit of demand.
+ *
+ */
+public class GameEventPublisher implements Flow.Publisher<List<GameEvent>>, GameListener {
+
+	/**
+	 * Determines what happens when an event is published to a subscriber whose
+	 * buffer is already full.
+	 */
+	public enum OverflowPolicy {
+		/**
+		 * Discard the oldest buffered event to make room for the new one.
+		 */
+		DROP_OLDEST,
+		/**
+		 * Discard the new event.
+		 */
+		DROP_NEWEST,
+		/**
+		 * Discard every buffered event, keeping only the new one. This suits
+		 * subscribers which can resynchronise from a fresh view of the game.
+		 */
+		CONFLATE;
+	}
+
+	private final Executor executor;
+	private final int bufferSize;
+	private final OverflowPolicy policy;
+	private final int maxBatchSize;
+	private final List<EventSubscription> subscriptions = new CopyOnWriteArrayList<>();
+	private final AtomicLong dropped = new AtomicLong();
+	private long sequence;
+	private volatile boolean closed;
+
+	/**
+	 * Construct a new publisher.
+	 *
+	 * @param executor     The executor on which events are delivered to
+	 *                     subscribers.
+	 * @param bufferSize   The maximum number of events buffered for each
+	 *                     subscriber.
+	 * @param policy       What to discard when a subscriber's buffer is full.
+	 * @param maxBatchSize The maximum number of events delivered in one batch.
+	 */
+	public GameEventPublisher(Executor executor, int bufferSize, OverflowPolicy policy, int maxBatchSize) {
+		if (bufferSize <= 0 || maxBatchSize <= 0) {
+			throw new IllegalArgumentException("buffer and batch sizes must be positive");
+		}
+		this.executor = executor;
+		this.bufferSize = bufferSize;
+		this.policy = policy;
+		this.maxBatchSize = maxBatchSize;
+	}
+
+	@Override
+	public void subscribe(Flow.Subscriber<? super List<GameEvent>> subscriber) {
+		EventSubscription subscription = new EventSubscription(subscriber);
+		subscriber.onSubscribe(subscription);
+		subscriptions.add(subscription);
+		if (closed) {
+			subscription.complete();
+		}
+	}
+
+	/**
+	 * Get the number of subscribers currently subscribed to this publisher.
+	 *
+	 * @return The number of subscribers.
+	 */
+	public int getSubscriberCount() {
+		return subscriptions.size();
+	}
+
+	/**
+	 * Get the total number of events discarded because subscribers could not
+	 * keep up.
+	 *
+	 * @return The number of discarded events.
+	 */
+	public long getDroppedCount() {
+		return dropped.get();
+	}
+
+	/**
+	 * Signal to all subscribers that no further events will be published. This
+	 * happens automatically once the game has finished.
+	 */
+	public void close() {
+		closed = true;
+		for (EventSubscription s : subscriptions) {
+			s.complete();
+		}
+	}
+
+	// ========================================================
+	// Methods required for GameListener
+	// ========================================================
+
+	@Override
+	public void cardPlayed(Player.Direction player, Card card) {
+		publish(new GameEvent(sequence++, GameEvent.Kind.CARD_PLAYED, player, card, null));
+	}
+
+	@Override
+	public void trickWon(Player.Direction winner) {
+		publish(new GameEvent(sequence++, GameEvent.Kind.TRICK_WON, winner, null, null));
+	}
+
+	@Override
+	public void handEnded() {
+		publish(new GameEvent(sequence++, GameEvent.Kind.HAND_ENDED, null, null, null));
+	}
+
+	@Override
+	public void trumpsChanged(Card.Suit trumps) {
+		publish(new GameEvent(sequence++, GameEvent.Kind.TRUMPS_CHANGED, null, null, trumps));
+	}
+
+	@Override
+	public void gameFinished() {
+		publish(new GameEvent(sequence++, GameEvent.Kind.GAME_FINISHED, null, null, null));
+		close();
+	}
+
+	private void publish(GameEvent event) {
+		if (closed) {
+			return;
+		}
+		for (EventSubscription s : subscriptions) {
+			s.offer(event);
+		}
+	}
+
+	/**
+	 * The subscription of a single subscriber, which holds that subscriber's
+	 * bounded buffer of events. The buffer is only ever locked very briefly,
+	 * and never whilst calling the subscriber.
+	 */
+	private final class EventSubscription implements Flow.Subscription, Runnable {
+		private final Flow.Subscriber<? super List<GameEvent>> subscriber;
+		private final GameEvent[] buffer = new GameEvent[bufferSize];
+		private int head;
+		private int count;
+		private long demand;
+		private boolean completed;
+		private boolean done;
+		private Throwable error;
+		/**
+		 * Ensures only one thread drains this subscription at a time.
+		 */
+		private final AtomicInteger wip = new AtomicInteger();
+
+		EventSubscription(Flow.Subscriber<? super List<GameEvent>> subscriber) {
+			this.subscriber = subscriber;
+		}
+
+		void offer(GameEvent event) {
+			synchronized (this) {
+				if (done) {
+					return;
+				}
+				if (count == buffer.length) {
+					switch (policy) {
+					case DROP_NEWEST:
+						dropped.incrementAndGet();
+						return;
+					case DROP_OLDEST:
+						buffer[head] = null;
+						head = (head + 1) % buffer.length;
+						count = count - 1;
+						dropped.incrementAndGet();
+						break;
+					case CONFLATE:
+						dropped.addAndGet(count);
+						Arrays.fill(buffer, null);
+						head = 0;
+						count = 0;
+						break;
+					}
+				}
+				buffer[(head + count) % buffer.length] = event;
+				count = count + 1;
+			}
+			signal();
+		}
+
+		void complete() {
+			synchronized (this) {
+				completed = true;
+			}
+			signal();
+		}
+
+		@Override
+		public void request(long n) {
+			synchronized (this) {
+				if (n <= 0) {
+					error = new IllegalArgumentException("non-positive subscription request");
+				} else {
+					demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+				}
+			}
+			signal();
+		}
+
+		@Override
+		public void cancel() {
+			synchronized (this) {
+				done = true;
+				count = 0;
+			}
+			subscriptions.remove(this);
+		}
+
+		private void signal() {
+			if (wip.getAndIncrement() == 0) {
+				executor.execute(this);
+			}
+		}
+
+		@Override
+		public void run() {
+			int missed = 1;
+			do {
+				drain();
+				missed = wip.addAndGet(-missed);
+			} while (missed != 0);
+		}
+
+		private void drain() {
+			while (true) {
+				List<GameEvent> batch;
+				synchronized (this) {
+					if (done) {
+						return;
+					} else if (error != null) {
+						done = true;
+						break;
+					} else if (count == 0) {
+						if (completed) {
+							done = true;
+							break;
+						}
+						return;
+					} else if (demand == 0) {
+						return;
+					}
+					int n = Math.min(count, maxBatchSize);
+					batch = new ArrayList<>(n);
+					for (int i = 0; i != n; ++i) {
+						batch.add(buffer[head]);
+						buffer[head] = null;
+						head = (head + 1) % buffer.length;
+					}
+					count = count - n;
+					if (demand != Long.MAX_VALUE) {
+						demand = demand - 1;
+					}
+				}
+				try {
+					subscriber.onNext(batch);
+				} catch (Throwable e) {
+					// A subscriber which fails is cut off, rather than leaving
+					// this subscription stuck part way through draining
+					cancel();
+					subscriber.onError(e);
+					return;
+				}
+			}
+			// Reached only once the subscription is terminated
+			subscriptions.remove(this);
+			if (error != null) {
+				subscriber.onError(error);
+			} else {
+				subscriber.onComplete();
+			}
+		}
+	}
+}
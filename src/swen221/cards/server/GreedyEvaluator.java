@@ -0,0 +1,25 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.cards.server;
+
+import swen221.cards.core.CardStrength;
+
+/**
+ * A simple batch evaluator which tries to win every trick as cheaply as
+ * possible. When leading, the highest card outside of trumps is played. When
+ * following, the lowest legal card which beats the card currently winning is
+ * played, otherwise the lowest legal card is thrown away (avoiding trumps
+ * where possible). Each decision is made using a few operations on card
+ * masks, by <code>CardStrength.greedyChoice()</code>.
+ *
+ */
+public class GreedyEvaluator implements BatchEvaluator {
+	@Override
+	public void evaluate(DecisionBatch batch, int[] choices) {
+		for (int i = 0; i != batch.size(); ++i) {
+			choices[i] = CardStrength.greedyChoice(batch.getHand(i), batch.getTrumps(i), batch.getLeadSuit(i),
+					batch.getWinningCard(i));
+		}
+	}
+}
@@ -0,0 +1,222 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.cards.server;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import swen221.cards.core.*;
+import swen221.cards.util.AbstractCardGame;
+import swen221.cards.util.AbstractComputerPlayer;
+import swen221.cards.util.Deadline;
+
+/**
+ * Represents a single table hosted by a <code>TableServer</code>. A table owns
+ * exactly one game, and all changes to that game are made by messages posted
+ * to the table's mailbox. Messages are processed one at a time, in the order
+ * they were posted, so the game never needs to be locked.
+ *
+ */
+public class Table {
+	/**
+	 * The maximum number of messages processed in one go, before the table
+	 * yields its thread to other tables.
+	 */
+	private static final int BATCH_SIZE = 64;
+
+	/**
+	 * The time (in milliseconds) a computer player is allowed to decide its
+	 * move. A player which takes longer forfeits the game.
+	 */
+	private static final int MOVE_TIME_LIMIT = 10_000;
+
+	private final TableServer server;
+	private final CardGame game;
+	private final Map<Player.Direction, AbstractComputerPlayer> computerPlayers;
+	private final Queue<Runnable> mailbox = new ConcurrentLinkedQueue<>();
+	private final AtomicBoolean scheduled = new AtomicBoolean();
+	private final CompletableFuture<Set<Player.Direction>> result = new CompletableFuture<>();
+	private final Random random = new Random();
+	private volatile boolean closed;
+
+	/**
+	 * Construct a new table. Tables should be opened via
+	 * <code>TableServer.openTable()</code>.
+	 *
+	 * @param server          The server hosting this table.
+	 * @param game            The game being played at this table.
+	 * @param computerPlayers The computer players sitting at this table.
+	 */
+	Table(TableServer server, CardGame game, Map<Player.Direction, AbstractComputerPlayer> computerPlayers) {
+		this.server = server;
+		this.game = game;
+		this.computerPlayers = new EnumMap<>(Player.Direction.class);
+		this.computerPlayers.putAll(computerPlayers);
+	}
+
+	/**
+	 * Start play at this table by dealing the first hand.
+	 */
+	public void start() {
+		send(this::startHand);
+	}
+
+	/**
+	 * Get the result of the game being played at this table. This completes
+	 * with the winners once the game is finished, or exceptionally if a
+	 * computer player attempts an illegal move.
+	 *
+	 * @return The eventual winners of the game.
+	 */
+	public CompletableFuture<Set<Player.Direction>> getResult() {
+		return result;
+	}
+
+	/**
+	 * Play a card on behalf of a human player sitting at this table.
+	 *
+	 * @param player The player who is playing the card.
+	 * @param card   The card being played.
+	 * @return A future which completes once the card has been played, or
+	 *         completes exceptionally with an <code>IllegalMove</code>.
+	 */
+	public CompletableFuture<Void> play(Player.Direction player, Card card) {
+		CompletableFuture<Void> done = new CompletableFuture<>();
+		send(() -> {
+			try {
+				if (computerPlayers.containsKey(player)) {
+					throw new IllegalMove("Illegal move: player is a computer player.");
+				}
+				playedEvent(player, card);
+				done.complete(null);
+			} catch (IllegalMove e) {
+				done.completeExceptionally(e);
+			}
+		});
+		return done;
+	}
+
+	/**
+	 * Post a message to this table's mailbox. The message will be run after all
+	 * previously posted messages, and never concurrently with any other message
+	 * for this table.
+	 *
+	 * @param message The message to run.
+	 */
+	public void send(Runnable message) {
+		if (closed) {
+			return;
+		}
+		mailbox.add(message);
+		schedule();
+	}
+
+	/**
+	 * Close this table, discarding any pending messages.
+	 */
+	void close() {
+		closed = true;
+		mailbox.clear();
+	}
+
+	// ========================================================
+	// Mailbox
+	// ========================================================
+
+	private void schedule() {
+		if (scheduled.compareAndSet(false, true)) {
+			server.getTableExecutor().execute(this::drain);
+		}
+	}
+
+	private void drain() {
+		try {
+			for (int i = 0; i != BATCH_SIZE && !closed; ++i) {
+				Runnable message = mailbox.poll();
+				if (message == null) {
+					break;
+				}
+				try {
+					message.run();
+				} catch (RuntimeException e) {
+					result.completeExceptionally(e);
+				}
+			}
+		} finally {
+			scheduled.set(false);
+			// Messages may have arrived after we stopped polling
+			if (!mailbox.isEmpty() && !closed) {
+				schedule();
+			}
+		}
+	}
+
+	// ========================================================
+	// Game Loop
+	// ========================================================
+
+	private void startHand() {
+		List<Card> deck = AbstractCardGame.createDeck();
+		Collections.shuffle(deck, random);
+		game.deal(deck);
+		startRound();
+	}
+
+	private void startRound() {
+		game.startRound();
+		continueRound();
+	}
+
+	private void continueRound() {
+		Player.Direction nextPlayer = game.getTrick().getNextToPlay();
+		AbstractComputerPlayer computerPlayer = computerPlayers.get(nextPlayer);
+		if (computerPlayer != null) {
+			requestComputerMove(nextPlayer, computerPlayer);
+		}
+	}
+
+	private void requestComputerMove(Player.Direction player, AbstractComputerPlayer computerPlayer) {
+		Deadline deadline = Deadline.after(MOVE_TIME_LIMIT, TimeUnit.MILLISECONDS);
+		computerPlayer.getNextCardAsync(game.getTrick(), deadline, server.getBotExecutor()).whenComplete((card, e) -> {
+			if (e != null) {
+				result.completeExceptionally(e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+				return;
+			}
+			send(() -> {
+				try {
+					playedEvent(player, card);
+				} catch (IllegalMove ex) {
+					throw new RuntimeException("Computer player is cheating!", ex);
+				}
+			});
+		});
+	}
+
+	private void playedEvent(Player.Direction player, Card card) throws IllegalMove {
+		game.play(player, card);
+		if (game.getTrick().getNextToPlay() == null) {
+			endRound();
+		} else {
+			continueRound();
+		}
+	}
+
+	private void endRound() {
+		game.endRound();
+		if (game.isHandFinished()) {
+			game.endHand();
+			if (game.isGameFinished()) {
+				result.complete(game.getWinnersOfGame());
+			} else {
+				startHand();
+			}
+		} else {
+			startRound();
+		}
+	}
+}
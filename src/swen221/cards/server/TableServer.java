@@ -0,0 +1,141 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.cards.server;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+
+import swen221.cards.core.CardGame;
+import swen221.cards.core.Player;
+import swen221.cards.util.AbstractComputerPlayer;
+
+/**
+ * A headless server which hosts many card tables at once. Each table behaves
+ * as a lightweight actor: every mutation of its game is posted to the table's
+ * mailbox, and mailboxes are drained by a small shared pool of threads. Thus,
+ * at most one thread touches a given game at any time, whilst thousands of
+ * tables can share a handful of threads. Computer players make their moves on
+ * a separate, bounded pool so that an expensive player cannot starve the
+ * tables themselves.
+ *
+ */
+public class TableServer {
+	/**
+	 * The pool used to drain table mailboxes.
+	 */
+	private final ExecutorService tableExecutor;
+
+	/**
+	 * The (bounded) pool used to decide computer player moves.
+	 */
+	private final ExecutorService botExecutor;
+
+	/**
+	 * The set of tables currently open on this server.
+	 */
+	private final Set<Table> tables = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * Construct a server using one thread per available processor for both
+	 * tables and computer players.
+	 */
+	public TableServer() {
+		this(Runtime.getRuntime().availableProcessors(), 1024);
+	}
+
+	/**
+	 * Construct a server with a given number of computer player threads.
+	 *
+	 * @param botThreads    The number of threads used to decide computer player
+	 *                      moves.
+	 * @param botQueueSize  The maximum number of pending computer player moves.
+	 *                      Once this is reached, the table requesting a move
+	 *                      decides it on its own thread instead.
+	 */
+	public TableServer(int botThreads, int botQueueSize) {
+		this.tableExecutor = new ForkJoinPool(Runtime.getRuntime().availableProcessors(),
+				ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true);
+		this.botExecutor = new ThreadPoolExecutor(botThreads, botThreads, 0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(botQueueSize), daemonThreads("bot"),
+				new ThreadPoolExecutor.CallerRunsPolicy());
+	}
+
+	/**
+	 * Open a new table on this server for a given game. The table is not
+	 * started until <code>Table.start()</code> is called.
+	 *
+	 * @param game            The game to be played at the table.
+	 * @param computerPlayers The computer players sitting at the table. Any
+	 *                        direction not included is assumed to be human.
+	 * @return The newly opened table.
+	 */
+	public Table openTable(CardGame game, Map<Player.Direction, AbstractComputerPlayer> computerPlayers) {
+		Table table = new Table(this, game, computerPlayers);
+		tables.add(table);
+		return table;
+	}
+
+	/**
+	 * Close a table on this server. Any messages still pending in its mailbox
+	 * are discarded.
+	 *
+	 * @param table The table to close.
+	 */
+	public void closeTable(Table table) {
+		table.close();
+		tables.remove(table);
+	}
+
+	/**
+	 * Get the number of tables currently open on this server.
+	 *
+	 * @return The number of open tables.
+	 */
+	public int getTableCount() {
+		return tables.size();
+	}
+
+	/**
+	 * Shutdown this server, closing all of its tables.
+	 */
+	public void shutdown() {
+		for (Table table : tables) {
+			closeTable(table);
+		}
+		tableExecutor.shutdown();
+		botExecutor.shutdown();
+	}
+
+	/**
+	 * Get the executor used for draining table mailboxes.
+	 *
+	 * @return The table executor.
+	 */
+	Executor getTableExecutor() {
+		return tableExecutor;
+	}
+
+	/**
+	 * Get the executor used for deciding computer player moves.
+	 *
+	 * @return The computer player executor.
+	 */
+	Executor getBotExecutor() {
+		return botExecutor;
+	}
+
+	private static ThreadFactory daemonThreads(String prefix) {
+		return new ThreadFactory() {
+			private int count = 0;
+
+			@Override
+			public synchronized Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, prefix + "-" + (count++));
+				thread.setDaemon(true);
+				return thread;
+			}
+		};
+	}
+}
@@ -0,0 +1,441 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.cards.simulation;
+
+import java.util.Arrays;
+
+import swen221.cards.core.CardStrength;
+
+/**
+ * Simulates many games at once, advancing each of them by one card per step.
+ * Rather than using <code>CardGame</code> objects, the state of every game is
+ * held in a handful of primitive arrays, each indexed by game (or by game and
+ * player, with the four players of a game adjacent). Hands are held as card
+ * masks (see <code>Hand.mask()</code>), cards as identifiers (see
+ * <code>Card.id()</code>), and suits and players by their ordinals. Thus, a
+ * step is a tight loop over the arrays, with no allocation.
+ *
+ * Each game is started from a seed, which determines every deal and (for
+ * random players) every card played. Hence, the outcome of a game depends only
+ * on its seed, and not on which other games were simulated alongside it. For
+ * example:
+ *
+ * <pre>
+ * BatchSimulator sim = new BatchSimulator(Rules.CLASSIC, Policy.RANDOM, 1024);
+ * for (int g = 0; g != sim.getCapacity(); ++g) {
+ * 	sim.reset(g, g);
+ * }
+ * while (sim.step() > 0) {
+ * }
+ * </pre>
+ *
+ */
+public final class BatchSimulator {
+	/**
+	 * The cards of a single suit, as a mask.
+	 */
+	private static final long SUIT_MASK = (1L << 13) - 1;
+
+	// The status of each game
+	private static final byte IDLE = 0;
+	private static final byte PLAYING = 1;
+	private static final byte FINISHED = 2;
+
+	private final Rules rules;
+	private final Policy policy;
+	private final int capacity;
+
+	// Indexed by game and player (i.e. game * 4 + player)
+	private final long[] hands;
+	private final int[] trickCards;
+	private final int[] tricks;
+	private final int[] scores;
+
+	// Indexed by game
+	private final byte[] status;
+	private final int[] nextToPlay;
+	private final int[] played;
+	private final int[] leadSuits;
+	private final int[] winningCards;
+	private final int[] winningPlayers;
+	private final int[] trumps;
+	private final int[] handsPlayed;
+	private final long[] random;
+
+	/**
+	 * Scratch space for shuffling.
+	 */
+	private final int[] deck = new int[52];
+	private long plays;
+	private int finished;
+
+	/**
+	 * Construct a simulator for a given number of games. Initially, no games
+	 * are being played.
+	 *
+	 * @param rules    The rules of the games.
+	 * @param policy   How players choose their cards.
+	 * @param capacity The number of games simulated at once.
+	 */
+	public BatchSimulator(Rules rules, Policy policy, int capacity) {
+		this.rules = rules;
+		this.policy = policy;
+		this.capacity = capacity;
+		this.hands = new long[capacity * 4];
+		this.trickCards = new int[capacity * 4];
+		this.tricks = new int[capacity * 4];
+		this.scores = new int[capacity * 4];
+		this.status = new byte[capacity];
+		this.nextToPlay = new int[capacity];
+		this.played = new int[capacity];
+		this.leadSuits = new int[capacity];
+		this.winningCards = new int[capacity];
+		this.winningPlayers = new int[capacity];
+		this.trumps = new int[capacity];
+		this.handsPlayed = new int[capacity];
+		this.random = new long[capacity];
+	}
+
+	/**
+	 * Start a new game in a given slot, replacing any game already there.
+	 *
+	 * @param game The slot in which to start the game.
+	 * @param seed The seed determining how the game is played.
+	 */
+	public void reset(int game, long seed) {
+		if (status[game] == FINISHED) {
+			finished--;
+		}
+		status[game] = PLAYING;
+		random[game] = mix(seed);
+		trumps[game] = 0; // hearts
+		handsPlayed[game] = 0;
+		Arrays.fill(scores, game * 4, game * 4 + 4, 0);
+		Arrays.fill(tricks, game * 4, game * 4 + 4, 0);
+		deal(game);
+	}
+
+	/**
+	 * Empty a given slot, so that no game is played there.
+	 *
+	 * @param game The slot to empty.
+	 */
+	public void clear(int game) {
+		if (status[game] == FINISHED) {
+			finished--;
+		}
+		status[game] = IDLE;
+	}
+
+	/**
+	 * Play one card in every game which is not yet finished.
+	 *
+	 * @return The number of games still being played.
+	 */
+	public int step() {
+		int active = 0;
+		for (int g = 0; g != capacity; ++g) {
+			if (status[g] == PLAYING) {
+				play(g);
+				active++;
+			}
+		}
+		plays += active;
+		return active;
+	}
+
+	// ==============================================================
+	// Accessors
+	// ==============================================================
+
+	/**
+	 * Get the number of games simulated at once.
+	 *
+	 * @return The number of slots.
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Get the total number of cards played by this simulator.
+	 *
+	 * @return The number of cards played.
+	 */
+	public long getPlayCount() {
+		return plays;
+	}
+
+	/**
+	 * Get the number of slots holding a finished game.
+	 *
+	 * @return The number of finished games.
+	 */
+	public int getFinishedCount() {
+		return finished;
+	}
+
+	/**
+	 * Check whether the game in a given slot is still being played.
+	 *
+	 * @param game The slot.
+	 * @return <code>true</code> if the game is being played.
+	 */
+	public boolean isPlaying(int game) {
+		return status[game] == PLAYING;
+	}
+
+	/**
+	 * Check whether the game in a given slot has finished.
+	 *
+	 * @param game The slot.
+	 * @return <code>true</code> if the game has finished.
+	 */
+	public boolean isFinished(int game) {
+		return status[game] == FINISHED;
+	}
+
+	/**
+	 * Get the hand of a given player.
+	 *
+	 * @param game   The slot.
+	 * @param player The ordinal of the player's direction.
+	 * @return The hand, as a card mask.
+	 */
+	public long getHand(int game, int player) {
+		return hands[game * 4 + player];
+	}
+
+	/**
+	 * Get the card played by a given player in the current trick.
+	 *
+	 * @param game   The slot.
+	 * @param player The ordinal of the player's direction.
+	 * @return The card identifier, or <code>-1</code> if the player has not
+	 *         played.
+	 */
+	public int getCardPlayed(int game, int player) {
+		return trickCards[game * 4 + player];
+	}
+
+	/**
+	 * Get the player who plays next.
+	 *
+	 * @param game The slot.
+	 * @return The ordinal of the player's direction.
+	 */
+	public int getNextToPlay(int game) {
+		return nextToPlay[game];
+	}
+
+	/**
+	 * Get the suit of trumps for the current hand.
+	 *
+	 * @param game The slot.
+	 * @return The ordinal of the suit, or <code>-1</code> if there are no
+	 *         trumps.
+	 */
+	public int getTrumps(int game) {
+		return trumps[game];
+	}
+
+	/**
+	 * Get the number of tricks won by a given player in the current hand.
+	 *
+	 * @param game   The slot.
+	 * @param player The ordinal of the player's direction.
+	 * @return The number of tricks.
+	 */
+	public int getTricksWon(int game, int player) {
+		return tricks[game * 4 + player];
+	}
+
+	/**
+	 * Get the overall score of a given player.
+	 *
+	 * @param game   The slot.
+	 * @param player The ordinal of the player's direction.
+	 * @return The score.
+	 */
+	public int getScore(int game, int player) {
+		return scores[game * 4 + player];
+	}
+
+	/**
+	 * Get the number of hands completed.
+	 *
+	 * @param game The slot.
+	 * @return The number of hands.
+	 */
+	public int getHandsPlayed(int game) {
+		return handsPlayed[game];
+	}
+
+	/**
+	 * Get the players with the highest score.
+	 *
+	 * @param game The slot.
+	 * @return The winners, as a mask with bit <code>i</code> set for the player
+	 *         with ordinal <code>i</code>.
+	 */
+	public int getWinners(int game) {
+		int base = game * 4;
+		int best = Math.max(Math.max(scores[base], scores[base + 1]), Math.max(scores[base + 2], scores[base + 3]));
+		int winners = 0;
+		for (int p = 0; p != 4; ++p) {
+			if (scores[base + p] == best) {
+				winners |= 1 << p;
+			}
+		}
+		return winners;
+	}
+
+	// ==============================================================
+	// Rules
+	// ==============================================================
+
+	private void play(int g) {
+		int p = nextToPlay[g];
+		int base = g * 4;
+		long hand = hands[base + p];
+		int lead = leadSuits[g];
+		long legal = hand;
+		if (lead >= 0) {
+			long follow = hand & (SUIT_MASK << (13 * lead));
+			if (follow != 0) {
+				legal = follow;
+			}
+		}
+		int card = policy == Policy.RANDOM ? chooseRandom(g, legal)
+				: CardStrength.greedyChoice(legal, trumps[g], lead, winningCards[g]);
+		hands[base + p] = hand & ~(1L << card);
+		trickCards[base + p] = card;
+		if (lead < 0) {
+			leadSuits[g] = card / 13;
+			winningCards[g] = card;
+			winningPlayers[g] = p;
+		} else if (CardStrength.strength(card, trumps[g], lead) > CardStrength.strength(winningCards[g],
+				trumps[g], lead)) {
+			winningCards[g] = card;
+			winningPlayers[g] = p;
+		}
+		if (++played[g] == 4) {
+			endTrick(g);
+		} else {
+			nextToPlay[g] = (p + 1) & 3;
+		}
+	}
+
+	private void endTrick(int g) {
+		int base = g * 4;
+		int winner = winningPlayers[g];
+		tricks[base + winner]++;
+		played[g] = 0;
+		leadSuits[g] = -1;
+		trickCards[base] = trickCards[base + 1] = trickCards[base + 2] = trickCards[base + 3] = -1;
+		nextToPlay[g] = winner;
+		if ((hands[base] | hands[base + 1] | hands[base + 2] | hands[base + 3]) == 0) {
+			endHand(g);
+		}
+	}
+
+	private void endHand(int g) {
+		int base = g * 4;
+		int most = Math.max(Math.max(tricks[base], tricks[base + 1]), Math.max(tricks[base + 2], tricks[base + 3]));
+		int best = 0;
+		for (int p = 0; p != 4; ++p) {
+			if (tricks[base + p] == most) {
+				scores[base + p]++;
+			}
+			tricks[base + p] = 0;
+			best = Math.max(best, scores[base + p]);
+		}
+		// Cycle trumps: hearts, clubs, diamonds, spades, none
+		trumps[g] = trumps[g] == 3 ? -1 : trumps[g] + 1;
+		handsPlayed[g]++;
+		if (rules.isFinished(handsPlayed[g], best)) {
+			status[g] = FINISHED;
+			finished++;
+		} else {
+			deal(g);
+		}
+	}
+
+	/**
+	 * Shuffle the deck, and deal it out in the same way as
+	 * <code>CardGame.deal()</code>, starting with NORTH.
+	 */
+	private void deal(int g) {
+		int base = g * 4;
+		long state = random[g];
+		for (int i = 0; i != 52; ++i) {
+			deck[i] = i;
+		}
+		for (int i = 51; i > 0; --i) {
+			state = xorshift(state);
+			int j = bounded(state, i + 1);
+			int tmp = deck[i];
+			deck[i] = deck[j];
+			deck[j] = tmp;
+		}
+		random[g] = state;
+		hands[base] = hands[base + 1] = hands[base + 2] = hands[base + 3] = 0;
+		int cards = rules.handSize(handsPlayed[g]) * 4;
+		for (int i = 0; i != cards; ++i) {
+			hands[base + (i & 3)] |= 1L << deck[i];
+		}
+		trickCards[base] = trickCards[base + 1] = trickCards[base + 2] = trickCards[base + 3] = -1;
+		nextToPlay[g] = 0;
+		played[g] = 0;
+		leadSuits[g] = -1;
+	}
+
+	// ==============================================================
+	// Policies
+	// ==============================================================
+
+	private int chooseRandom(int g, long legal) {
+		long state = xorshift(random[g]);
+		random[g] = state;
+		for (int k = bounded(state, Long.bitCount(legal)); k > 0; --k) {
+			legal &= legal - 1;
+		}
+		return Long.numberOfTrailingZeros(legal);
+	}
+
+	// ==============================================================
+	// Random Numbers
+	// ==============================================================
+
+	/**
+	 * Turn a seed into the initial state of a game's random number generator
+	 * (using the SplitMix64 finaliser), so that nearby seeds give unrelated
+	 * games.
+	 */
+	private static long mix(long seed) {
+		long z = seed + 0x9E3779B97F4A7C15L;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		z = z ^ (z >>> 31);
+		return z == 0 ? 1 : z;
+	}
+
+	/**
+	 * Advance a xorshift64 generator.
+	 */
+	private static long xorshift(long x) {
+		x ^= x << 13;
+		x ^= x >>> 7;
+		x ^= x << 17;
+		return x;
+	}
+
+	/**
+	 * Map a random state to a number between <code>0</code> (inclusive) and
+	 * <code>n</code> (exclusive), using its high bits.
+	 */
+	private static int bounded(long state, int n) {
+		return (int) (((state >>> 32) * n) >>> 32);
+	}
+}
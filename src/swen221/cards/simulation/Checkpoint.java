@@ -0,0 +1,193 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.cards.simulation;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.BitSet;
+
+/**
+ * An immutable record of the progress of a long simulation, from which it can
+ * be resumed. The range of seeds is split into blocks of equal size (except
+ * perhaps the last), and the checkpoint records which blocks are complete
+ * along with the tally of their games. Games in blocks which were not complete
+ * are simply played again on resumption, since each depends only on its seed.
+ *
+ * Checkpoints are written in a compact binary form: a short header describing
+ * the run, the tally, and then one bit per block. A checkpoint is first written
+ * to a new temporary file alongside the target, which then replaces the target
+ * in a single step. Thus, a crash whilst writing never leaves a damaged
+ * checkpoint behind.
+ *
+ */
+public final class Checkpoint {
+	/**
+	 * Identifies a checkpoint file.
+	 */
+	private static final int MAGIC = 0x57484953; // "WHIS"
+	private static final int VERSION = 1;
+
+	private final Rules rules;
+	private final Policy policy;
+	private final long firstSeed;
+	private final long count;
+	private final int blockSize;
+	private final BitSet completed;
+	private final Tally tally;
+
+	/**
+	 * Construct a checkpoint. The set of blocks and the tally are copied, so
+	 * may be changed afterwards without affecting the checkpoint.
+	 *
+	 * @param rules     The rules of the games.
+	 * @param policy    How players choose their cards.
+	 * @param firstSeed The first seed in the range.
+	 * @param count     The number of seeds in the range.
+	 * @param blockSize The number of seeds in each block.
+	 * @param completed The blocks which are complete.
+	 * @param tally     The tally of the games in the completed blocks.
+	 */
+	public Checkpoint(Rules rules, Policy policy, long firstSeed, long count, int blockSize, BitSet completed,
+			Tally tally) {
+		this.rules = rules;
+		this.policy = policy;
+		this.firstSeed = firstSeed;
+		this.count = count;
+		this.blockSize = blockSize;
+		this.completed = (BitSet) completed.clone();
+		this.tally = new Tally();
+		this.tally.add(tally);
+	}
+
+	/**
+	 * Check whether this checkpoint belongs to a given run.
+	 *
+	 * @param rules     The rules of the games.
+	 * @param policy    How players choose their cards.
+	 * @param firstSeed The first seed in the range.
+	 * @param count     The number of seeds in the range.
+	 * @return True if the checkpoint belongs to the run.
+	 */
+	public boolean isFor(Rules rules, Policy policy, long firstSeed, long count) {
+		return this.rules == rules && this.policy == policy && this.firstSeed == firstSeed && this.count == count;
+	}
+
+	/**
+	 * Get the number of seeds in each block.
+	 *
+	 * @return The block size.
+	 */
+	public int getBlockSize() {
+		return blockSize;
+	}
+
+	/**
+	 * Get the number of blocks in the run.
+	 *
+	 * @return The number of blocks.
+	 */
+	public int getBlockCount() {
+		return (int) ((count + blockSize - 1) / blockSize);
+	}
+
+	/**
+	 * Check whether a given block is complete.
+	 *
+	 * @param block The index of the block.
+	 * @return True if the block is complete.
+	 */
+	public boolean isCompleted(int block) {
+		return completed.get(block);
+	}
+
+	/**
+	 * Get the number of blocks which are complete.
+	 *
+	 * @return The number of blocks.
+	 */
+	public int getCompletedCount() {
+		return completed.cardinality();
+	}
+
+	/**
+	 * Get the blocks which are complete.
+	 *
+	 * @return A copy of the set of blocks.
+	 */
+	public BitSet getCompleted() {
+		return (BitSet) completed.clone();
+	}
+
+	/**
+	 * Get the tally of the games in the completed blocks.
+	 *
+	 * @return A copy of the tally.
+	 */
+	public Tally getTally() {
+		Tally copy = new Tally();
+		copy.add(tally);
+		return copy;
+	}
+
+	/**
+	 * Write this checkpoint to a file, replacing any checkpoint already there.
+	 *
+	 * @param file The file to write.
+	 * @throws IOException If the checkpoint could not be written.
+	 */
+	public void write(Path file) throws IOException {
+		Path temp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+		try {
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+				out.writeInt(MAGIC);
+				out.writeInt(VERSION);
+				out.writeByte(rules.ordinal());
+				out.writeByte(policy.ordinal());
+				out.writeLong(firstSeed);
+				out.writeLong(count);
+				out.writeInt(blockSize);
+				tally.write(out);
+				long[] words = completed.toLongArray();
+				out.writeInt(words.length);
+				for (long word : words) {
+					out.writeLong(word);
+				}
+			}
+			try {
+				Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+
+	/**
+	 * Read a checkpoint written by <code>write()</code>.
+	 *
+	 * @param file The file to read.
+	 * @return The checkpoint.
+	 * @throws IOException If the checkpoint could not be read, or the file is
+	 *                     not a checkpoint.
+	 */
+	public static Checkpoint read(Path file) throws IOException {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+				throw new IOException(file + " is not a checkpoint");
+			}
+			Rules rules = Rules.values()[in.readByte()];
+			Policy policy = Policy.values()[in.readByte()];
+			long firstSeed = in.readLong();
+			long count = in.readLong();
+			int blockSize = in.readInt();
+			Tally tally = Tally.read(in);
+			long[] words = new long[in.readInt()];
+			for (int i = 0; i != words.length; ++i) {
+				words[i] = in.readLong();
+			}
+			return new Checkpoint(rules, policy, firstSeed, count, blockSize, BitSet.valueOf(words), tally);
+		}
+	}
+}
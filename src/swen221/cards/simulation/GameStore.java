@@ -0,0 +1,387 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.cards.simulation;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.function.BiConsumer;
+import java.util.function.ObjLongConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Stores the opening deal and outcome of a large number of simulated games,
+ * outside of the Java heap. Each game occupies a fixed-size record of
+ * <code>RECORD_SIZE</code> bytes, laid out as follows:
+ *
+ * <pre>
+ * offset  size  field
+ *  0       8    seed
+ *  8      13    owner of each card in the first deal (2 bits per card)
+ * 21       1    winners (bit i set for the player with ordinal i)
+ * 22       2    number of hands played
+ * 24       4    final score of each player
+ * 28       4    unused (keeps records aligned)
+ * </pre>
+ *
+ * Records are held in direct buffers of <code>CHUNK_RECORDS</code> records
+ * each, which are allocated as the store fills. Thus, a store holding hundreds
+ * of millions of games costs only a few hundred objects on the heap. However,
+ * the JVM limits the total size of direct buffers with
+ * <code>-XX:MaxDirectMemorySize</code>, which by default is about the maximum
+ * heap size. Once a store reaches this limit, appending fails with an
+ * <code>OutOfMemoryError</code>. Hence, a large store needs the limit raised
+ * to at least <code>capacity * RECORD_SIZE</code> bytes, plus whatever
+ * else the program allocates directly.
+ *
+ * Records are added in bulk through an <code>Appender</code>, of which each
+ * simulation thread should have its own. Records may be read at any time,
+ * including whilst others are being appended, and <code>scan()</code> visits
+ * every record in parallel. For example:
+ *
+ * <pre>
+ * // 3.2GB of records, so run with e.g. -XX:MaxDirectMemorySize=4g
+ * GameStore store = new GameStore(100_000_000);
+ * new SimulationRunner(Rules.CLASSIC, Policy.GREEDY, 1024).run(0, 100_000_000, 4, store);
+ * Tally tally = store.scan(4, Tally::new, (t, i) -&gt; t.record(store, i), Tally::add);
+ * </pre>
+ *
+ */
+public final class GameStore {
+	/**
+	 * The number of bytes in each record.
+	 */
+	public static final int RECORD_SIZE = 32;
+
+	/**
+	 * The number of records in each direct buffer (a power of two).
+	 */
+	public static final int CHUNK_RECORDS = 1 << 20;
+
+	private static final int CHUNK_SHIFT = Integer.numberOfTrailingZeros(CHUNK_RECORDS);
+
+	// Offsets of fields within a record
+	private static final int SEED = 0;
+	private static final int DEAL = 8;
+	private static final int WINNERS = 21;
+	private static final int HANDS = 22;
+	private static final int SCORES = 24;
+
+	private final long capacity;
+	private final ByteBuffer[] chunks;
+	/**
+	 * The number of records appended. This is written only once the records
+	 * themselves have been copied, so readers never see partial records.
+	 */
+	private volatile long size;
+
+	/**
+	 * Construct an empty store.
+	 *
+	 * @param capacity The maximum number of records which can be held.
+	 */
+	public GameStore(long capacity) {
+		if (capacity < 0 || (capacity + CHUNK_RECORDS - 1) >>> CHUNK_SHIFT > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("invalid capacity: " + capacity);
+		}
+		this.capacity = capacity;
+		this.chunks = new ByteBuffer[(int) ((capacity + CHUNK_RECORDS - 1) >>> CHUNK_SHIFT)];
+	}
+
+	/**
+	 * Get the number of records held.
+	 *
+	 * @return The number of records.
+	 */
+	public long size() {
+		return size;
+	}
+
+	/**
+	 * Get the maximum number of records which can be held.
+	 *
+	 * @return The capacity.
+	 */
+	public long capacity() {
+		return capacity;
+	}
+
+	/**
+	 * Remove every record. The memory already allocated is kept, and reused by
+	 * later appends.
+	 */
+	public synchronized void clear() {
+		size = 0;
+	}
+
+	/**
+	 * Append a number of whole records, in the layout described above. The
+	 * fields of each record are read in the buffer's byte order, which need
+	 * not be the native order used by the store, although records in native
+	 * order are copied more quickly.
+	 *
+	 * @param records The records, between the buffer's position and limit. On
+	 *                return, the position is advanced to the limit.
+	 * @throws IllegalArgumentException If the buffer does not hold a whole
+	 *                                  number of records.
+	 * @throws IllegalStateException    If the store does not have room.
+	 */
+	public synchronized void append(ByteBuffer records) {
+		int bytes = records.remaining();
+		if (bytes % RECORD_SIZE != 0) {
+			throw new IllegalArgumentException("partial record");
+		}
+		long end = size + bytes / RECORD_SIZE;
+		if (end > capacity) {
+			throw new IllegalStateException("store is full");
+		}
+		long index = size;
+		int from = records.position();
+		while (index != end) {
+			int chunk = (int) (index >>> CHUNK_SHIFT);
+			int offset = (int) (index & (CHUNK_RECORDS - 1));
+			int count = (int) Math.min(end - index, CHUNK_RECORDS - offset);
+			if (chunks[chunk] == null) {
+				chunks[chunk] = ByteBuffer.allocateDirect(CHUNK_RECORDS * RECORD_SIZE).order(ByteOrder.nativeOrder());
+			}
+			chunks[chunk].put(offset * RECORD_SIZE, records, from, count * RECORD_SIZE);
+			if (records.order() != ByteOrder.nativeOrder()) {
+				swapRecords(chunks[chunk], offset * RECORD_SIZE, records, from, count);
+			}
+			from += count * RECORD_SIZE;
+			index += count;
+		}
+		records.position(records.limit());
+		size = end;
+	}
+
+	/**
+	 * Rewrite the multi-byte fields of records which have been copied byte for
+	 * byte from a buffer in the other byte order, so that they are in native
+	 * order.
+	 *
+	 * @param chunk   The chunk holding the copied records.
+	 * @param to      The offset of the first copied record in the chunk.
+	 * @param records The buffer the records were copied from.
+	 * @param from    The offset of the first record in that buffer.
+	 * @param count   The number of records copied.
+	 */
+	private static void swapRecords(ByteBuffer chunk, int to, ByteBuffer records, int from, int count) {
+		for (int i = 0; i != count; ++i) {
+			int src = from + i * RECORD_SIZE;
+			int dst = to + i * RECORD_SIZE;
+			chunk.putLong(dst + SEED, records.getLong(src + SEED));
+			chunk.putShort(dst + HANDS, records.getShort(src + HANDS));
+			chunk.putInt(dst + SCORES + 4, records.getInt(src + SCORES + 4));
+		}
+	}
+
+	// ==============================================================
+	// Record Accessors
+	// ==============================================================
+
+	/**
+	 * Get the seed from which a game was played.
+	 *
+	 * @param index The index of the record.
+	 * @return The seed.
+	 */
+	public long getSeed(long index) {
+		return chunk(index).getLong(offset(index) + SEED);
+	}
+
+	/**
+	 * Get the player dealt a given card at the start of a game.
+	 *
+	 * @param index The index of the record.
+	 * @param card  The card identifier.
+	 * @return The ordinal of the player's direction.
+	 */
+	public int getOwner(long index, int card) {
+		int b = chunk(index).get(offset(index) + DEAL + (card >> 2));
+		return (b >>> ((card & 3) * 2)) & 3;
+	}
+
+	/**
+	 * Get the hand dealt to a given player at the start of a game.
+	 *
+	 * @param index  The index of the record.
+	 * @param player The ordinal of the player's direction.
+	 * @return The hand, as a card mask.
+	 */
+	public long getDeal(long index, int player) {
+		ByteBuffer chunk = chunk(index);
+		int offset = offset(index) + DEAL;
+		long hand = 0;
+		for (int card = 0; card != 52; ++card) {
+			int b = chunk.get(offset + (card >> 2));
+			if (((b >>> ((card & 3) * 2)) & 3) == player) {
+				hand |= 1L << card;
+			}
+		}
+		return hand;
+	}
+
+	/**
+	 * Get the players who won a game.
+	 *
+	 * @param index The index of the record.
+	 * @return The winners, as a mask with bit <code>i</code> set for the player
+	 *         with ordinal <code>i</code>.
+	 */
+	public int getWinners(long index) {
+		return chunk(index).get(offset(index) + WINNERS);
+	}
+
+	/**
+	 * Get the number of hands played in a game.
+	 *
+	 * @param index The index of the record.
+	 * @return The number of hands.
+	 */
+	public int getHandsPlayed(long index) {
+		return chunk(index).getShort(offset(index) + HANDS) & 0xFFFF;
+	}
+
+	/**
+	 * Get the final score of a given player.
+	 *
+	 * @param index  The index of the record.
+	 * @param player The ordinal of the player's direction.
+	 * @return The score.
+	 */
+	public int getScore(long index, int player) {
+		return chunk(index).get(offset(index) + SCORES + player) & 0xFF;
+	}
+
+	private ByteBuffer chunk(long index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("record " + index + " of " + size);
+		}
+		return chunks[(int) (index >>> CHUNK_SHIFT)];
+	}
+
+	private static int offset(long index) {
+		return (int) (index & (CHUNK_RECORDS - 1)) * RECORD_SIZE;
+	}
+
+	// ==============================================================
+	// Scanning
+	// ==============================================================
+
+	/**
+	 * Visit every record held, splitting them evenly between a number of
+	 * threads. Each thread accumulates into its own container, and these are
+	 * then combined in order. Records appended during the scan are not visited.
+	 *
+	 * @param threads  The number of threads to use.
+	 * @param supplier Creates an empty container for each thread.
+	 * @param visitor  Accumulates the record with a given index into a
+	 *                 container.
+	 * @param combiner Combines the second container into the first.
+	 * @param <T>      The type of container.
+	 * @return The combined container.
+	 * @throws InterruptedException If interrupted whilst waiting for the
+	 *                              threads.
+	 */
+	public <T> T scan(int threads, Supplier<T> supplier, ObjLongConsumer<T> visitor, BiConsumer<T, T> combiner)
+			throws InterruptedException {
+		long count = size;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<T>> parts = new ArrayList<>();
+			for (int i = 0; i != threads; ++i) {
+				long start = count * i / threads;
+				long end = count * (i + 1) / threads;
+				parts.add(executor.submit(() -> {
+					T part = supplier.get();
+					for (long index = start; index != end; ++index) {
+						visitor.accept(part, index);
+					}
+					return part;
+				}));
+			}
+			T result = supplier.get();
+			for (Future<T> part : parts) {
+				combiner.accept(result, part.get());
+			}
+			return result;
+		} catch (ExecutionException e) {
+			throw new IllegalStateException(e.getCause());
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	// ==============================================================
+	// Appender
+	// ==============================================================
+
+	/**
+	 * Create an appender which adds records to this store.
+	 *
+	 * @param batchSize The number of records buffered before they are added.
+	 * @return The appender.
+	 */
+	public Appender newAppender(int batchSize) {
+		return new Appender(batchSize);
+	}
+
+	/**
+	 * Builds records in a small direct buffer, and appends them to the store in
+	 * bulk. An appender is not thread-safe, and so each thread should have its
+	 * own. Any records still buffered must be added with <code>flush()</code>.
+	 */
+	public final class Appender {
+		private final ByteBuffer buffer;
+
+		private Appender(int batchSize) {
+			this.buffer = ByteBuffer.allocateDirect(batchSize * RECORD_SIZE).order(ByteOrder.nativeOrder());
+		}
+
+		/**
+		 * Add a record for a finished game.
+		 *
+		 * @param seed The seed from which the game was played.
+		 * @param deal The hands of the first deal, as card masks, indexed by
+		 *             <code>game * 4 + player</code>.
+		 * @param sim  The simulator holding the game.
+		 * @param game The slot holding the game.
+		 */
+		public void add(long seed, long[] deal, BatchSimulator sim, int game) {
+			if (!buffer.hasRemaining()) {
+				flush();
+			}
+			int offset = buffer.position();
+			buffer.putLong(offset + SEED, seed);
+			for (int i = 0; i != 13; ++i) {
+				buffer.put(offset + DEAL + i, (byte) 0);
+			}
+			int base = game * 4;
+			for (int p = 0; p != 4; ++p) {
+				for (long cards = deal[base + p]; cards != 0; cards &= cards - 1) {
+					int card = Long.numberOfTrailingZeros(cards);
+					int at = offset + DEAL + (card >> 2);
+					buffer.put(at, (byte) (buffer.get(at) | (p << ((card & 3) * 2))));
+				}
+				buffer.put(offset + SCORES + p, (byte) sim.getScore(game, p));
+			}
+			buffer.put(offset + WINNERS, (byte) sim.getWinners(game));
+			buffer.putShort(offset + HANDS, (short) sim.getHandsPlayed(game));
+			buffer.putInt(offset + SCORES + 4, 0);
+			buffer.position(offset + RECORD_SIZE);
+		}
+
+		/**
+		 * Append any buffered records to the store.
+		 */
+		public void flush() {
+			buffer.flip();
+			append(buffer);
+			buffer.clear();
+		}
+	}
+}
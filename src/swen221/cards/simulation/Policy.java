@@ -0,0 +1,24 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.cards.simulation;
+
+/**
+ * The ways in which simulated players choose their cards. These are built into
+ * the simulator, rather than being pluggable, so that choosing a card costs no
+ * more than a few operations on card masks.
+ *
+ */
+public enum Policy {
+	/**
+	 * Play a legal card chosen uniformly at random.
+	 */
+	RANDOM,
+	/**
+	 * Try to win every trick as cheaply as possible. When leading, play the
+	 * highest card outside of trumps. When following, play the lowest legal
+	 * card which beats the card currently winning, or otherwise throw away the
+	 * lowest legal card (avoiding trumps where possible).
+	 */
+	GREEDY
+}
@@ -0,0 +1,179 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.cards.simulation;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Simulates the games for a range of seeds, periodically saving a
+ * <code>Checkpoint</code> so that the run can be resumed if this program
+ * stops. The range is played in blocks, which threads take in turn. Finishing
+ * a block only marks it as complete and adds its tally, whilst checkpoints are
+ * written on a separate thread from copies of this state. When started with a
+ * checkpoint for the same run already present, only the blocks not yet
+ * complete are played. For example:
+ *
+ * <pre>
+ * SimulationRunner runner = new SimulationRunner(Rules.CLASSIC, Policy.GREEDY, 1024);
+ * ResumableRun run = new ResumableRun(runner, Paths.get("classic.ckpt"), 30, TimeUnit.SECONDS);
+ * Tally tally = run.run(0, 1_000_000_000L, 8);
+ * </pre>
+ *
+ */
+public class ResumableRun {
+	/**
+	 * The number of seeds in each block of a new run.
+	 */
+	public static final int BLOCK_SIZE = 50_000;
+
+	private final SimulationRunner runner;
+	private final Path file;
+	private final long interval;
+	private final TimeUnit unit;
+
+	// The progress of the current run, guarded by this object
+	private BitSet completed;
+	private Tally tally;
+	private int blocksPlayed;
+	private int checkpointsWritten;
+
+	/**
+	 * Construct a resumable run.
+	 *
+	 * @param runner   Plays each block of games.
+	 * @param file     The file holding the checkpoint.
+	 * @param interval The time between checkpoints.
+	 * @param unit     The unit of the interval.
+	 */
+	public ResumableRun(SimulationRunner runner, Path file, long interval, TimeUnit unit) {
+		this.runner = runner;
+		this.file = file;
+		this.interval = interval;
+		this.unit = unit;
+	}
+
+	/**
+	 * Simulate the games for a range of seeds, resuming from the checkpoint
+	 * file if it holds an earlier attempt at the same range. A final
+	 * checkpoint is written once every block is complete.
+	 *
+	 * @param firstSeed The first seed in the range.
+	 * @param count     The number of seeds in the range.
+	 * @param threads   The number of threads to use.
+	 * @return The tally of outcomes.
+	 * @throws IOException          If the checkpoint could not be read, belongs
+	 *                              to a different run, or the final checkpoint
+	 *                              could not be written.
+	 * @throws InterruptedException If interrupted whilst waiting for the
+	 *                              threads.
+	 */
+	public Tally run(long firstSeed, long count, int threads) throws IOException, InterruptedException {
+		Checkpoint start;
+		if (Files.exists(file)) {
+			start = Checkpoint.read(file);
+			if (!start.isFor(runner.getRules(), runner.getPolicy(), firstSeed, count)) {
+				throw new IOException(file + " holds a checkpoint for a different run");
+			}
+		} else {
+			start = new Checkpoint(runner.getRules(), runner.getPolicy(), firstSeed, count, BLOCK_SIZE, new BitSet(),
+					new Tally());
+		}
+		int blockSize = start.getBlockSize();
+		List<Integer> remaining = new ArrayList<>();
+		for (int b = 0; b != start.getBlockCount(); ++b) {
+			if (!start.isCompleted(b)) {
+				remaining.add(b);
+			}
+		}
+		synchronized (this) {
+			completed = start.getCompleted();
+			tally = start.getTally();
+			blocksPlayed = 0;
+		}
+
+		ScheduledExecutorService checkpointer = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "checkpoint");
+			t.setDaemon(true);
+			return t;
+		});
+		checkpointer.scheduleWithFixedDelay(() -> {
+			try {
+				snapshot(firstSeed, count, blockSize).write(file);
+				synchronized (this) {
+					checkpointsWritten++;
+				}
+			} catch (IOException e) {
+				// The next checkpoint will try again
+			}
+		}, interval, interval, unit);
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			AtomicInteger next = new AtomicInteger();
+			List<Future<?>> parts = new ArrayList<>();
+			for (int i = 0; i != threads; ++i) {
+				parts.add(executor.submit(() -> {
+					for (int n = next.getAndIncrement(); n < remaining.size(); n = next.getAndIncrement()) {
+						int block = remaining.get(n);
+						long first = firstSeed + (long) block * blockSize;
+						Tally part = runner.run(first, Math.min(blockSize, firstSeed + count - first));
+						completed(block, part);
+					}
+				}));
+			}
+			for (Future<?> part : parts) {
+				part.get();
+			}
+		} catch (ExecutionException e) {
+			throw new IllegalStateException(e.getCause());
+		} finally {
+			executor.shutdownNow();
+			// Let any checkpoint being written finish, but start no more. The
+			// final checkpoint must not be written until it has, otherwise the
+			// older checkpoint could replace it.
+			checkpointer.shutdown();
+			while (!checkpointer.awaitTermination(1, TimeUnit.SECONDS)) {
+				// Keep waiting
+			}
+		}
+		Checkpoint end = snapshot(firstSeed, count, blockSize);
+		end.write(file);
+		return end.getTally();
+	}
+
+	/**
+	 * Get the number of blocks played so far by the current (or last) run,
+	 * not counting those completed before it was resumed.
+	 *
+	 * @return The number of blocks.
+	 */
+	public synchronized int getBlocksPlayed() {
+		return blocksPlayed;
+	}
+
+	/**
+	 * Get the number of periodic checkpoints written so far.
+	 *
+	 * @return The number of checkpoints.
+	 */
+	public synchronized int getCheckpointsWritten() {
+		return checkpointsWritten;
+	}
+
+	private synchronized void completed(int block, Tally part) {
+		completed.set(block);
+		tally.add(part);
+		blocksPlayed++;
+	}
+
+	private synchronized Checkpoint snapshot(long firstSeed, long count, int blockSize) {
+		return new Checkpoint(runner.getRules(), runner.getPolicy(), firstSeed, count, blockSize, completed, tally);
+	}
+}
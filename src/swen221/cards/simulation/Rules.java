@@ -0,0 +1,75 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.cards.simulation;
+
+import swen221.cards.core.CardGame;
+import swen221.cards.variations.ClassicWhist;
+import swen221.cards.variations.KnockOutWhist;
+import swen221.cards.variations.SingleHandWhist;
+
+/**
+ * The variations of whist which can be simulated. These follow the rules of
+ * the corresponding <code>CardGame</code> implementations exactly: NORTH leads
+ * the first trick of each hand, the winner of each trick leads the next,
+ * trumps cycle through hearts, clubs, diamonds, spades and then none, and
+ * every player winning the most tricks in a hand scores a point.
+ *
+ */
+public enum Rules {
+	/**
+	 * Thirteen cards each, until someone scores five points.
+	 */
+	CLASSIC(ClassicWhist.class),
+	/**
+	 * Thirteen cards each, for a single hand.
+	 */
+	SINGLE_HAND(SingleHandWhist.class),
+	/**
+	 * Thirteen hands, with one less card each hand.
+	 */
+	KNOCK_OUT(KnockOutWhist.class);
+
+	private final Class<? extends CardGame> game;
+
+	private Rules(Class<? extends CardGame> game) {
+		this.game = game;
+	}
+
+	/**
+	 * Get the game implementing these rules.
+	 *
+	 * @return The class of game.
+	 */
+	public Class<? extends CardGame> getGame() {
+		return game;
+	}
+
+	/**
+	 * Determine the number of cards each player is dealt in a given hand.
+	 *
+	 * @param hand The number of hands already played.
+	 * @return The number of cards each.
+	 */
+	int handSize(int hand) {
+		return this == KNOCK_OUT ? 13 - hand : 13;
+	}
+
+	/**
+	 * Determine whether a game is finished.
+	 *
+	 * @param hands     The number of hands played.
+	 * @param bestScore The highest score of any player.
+	 * @return <code>true</code> if the game is finished.
+	 */
+	boolean isFinished(int hands, int bestScore) {
+		switch (this) {
+		case CLASSIC:
+			return bestScore >= 5;
+		case SINGLE_HAND:
+			return bestScore >= 1;
+		default:
+			return hands == 13;
+		}
+	}
+}
@@ -0,0 +1,402 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.cards.simulation;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.*;
+
+/**
+ * Shares the games for a range of seeds between a number of worker processes
+ * (see <code>SimulationWorker</code>), which connect over sockets. The range is
+ * cut into smaller ranges, which are handed out as workers ask for them, so
+ * faster workers simply take more. Each worker plays its range in blocks, and
+ * sends back the tally of each block as it finishes, so the overall tally
+ * grows as the run proceeds. When there are no ranges left to hand out, an
+ * idle worker takes over the second half of whatever another worker has left
+ * to do. If a worker disconnects (e.g. because it crashed), whatever it had
+ * left to do is handed out again. For example:
+ *
+ * <pre>
+ * SimulationCoordinator coordinator = new SimulationCoordinator(Rules.CLASSIC, Policy.GREEDY, 0, 100_000_000, 1_000_000);
+ * coordinator.start();
+ * coordinator.launchLocalWorkers(4, 2);
+ * Tally tally = coordinator.await();
+ * coordinator.close();
+ * </pre>
+ *
+ * Messages are written with <code>DataOutputStream</code>, each beginning with
+ * a one-byte code. The coordinator sends <code>CONFIG</code> (the rules and
+ * policy) when a worker connects, and then answers each <code>WORK</code>
+ * request from the worker with either a <code>RANGE</code> (its first and end
+ * seeds) or <code>QUIT</code>. At any time, it may send <code>LIMIT</code> (a
+ * new end seed) to shorten the worker's current range. The worker sends
+ * <code>DONE</code> (the first seed, the number of seeds and the tally) for
+ * each block it finishes.
+ *
+ */
+public class SimulationCoordinator implements Closeable {
+	// Messages sent to workers
+	static final byte CONFIG = 'C';
+	static final byte RANGE = 'R';
+	static final byte LIMIT = 'L';
+	static final byte QUIT = 'Q';
+	// Messages sent by workers
+	static final byte WORK = 'W';
+	static final byte DONE = 'D';
+
+	/**
+	 * The number of seeds played by a worker between reports.
+	 */
+	public static final int BLOCK_SIZE = 10_000;
+
+	private final Rules rules;
+	private final Policy policy;
+	private final ServerSocket server;
+	/**
+	 * The ranges yet to be handed out, as pairs of first and end seeds.
+	 */
+	private final Deque<long[]> pending = new ArrayDeque<>();
+	/**
+	 * The ranges handed out but not yet finished, by worker.
+	 */
+	private final Map<Connection, long[]> assigned = new HashMap<>();
+	private final Set<Connection> connections = new HashSet<>();
+	private final Tally tally = new Tally();
+	private long reassigned;
+	private boolean closed;
+
+	/**
+	 * Construct a coordinator which listens for workers on any free port.
+	 *
+	 * @param rules     The rules of the games.
+	 * @param policy    How players choose their cards.
+	 * @param firstSeed The first seed in the range.
+	 * @param count     The number of seeds in the range.
+	 * @param rangeSize The number of seeds handed to a worker at once.
+	 * @throws IOException If the server socket could not be opened.
+	 */
+	public SimulationCoordinator(Rules rules, Policy policy, long firstSeed, long count, long rangeSize)
+			throws IOException {
+		this.rules = rules;
+		this.policy = policy;
+		for (long start = firstSeed; start < firstSeed + count; start += rangeSize) {
+			pending.add(new long[] { start, Math.min(start + rangeSize, firstSeed + count) });
+		}
+		this.server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+	}
+
+	/**
+	 * Get the port on which workers should connect.
+	 *
+	 * @return The port.
+	 */
+	public int getPort() {
+		return server.getLocalPort();
+	}
+
+	/**
+	 * Start accepting workers.
+	 */
+	public void start() {
+		Thread acceptor = new Thread(this::acceptLoop, "coordinator");
+		acceptor.setDaemon(true);
+		acceptor.start();
+	}
+
+	/**
+	 * Start a number of workers as separate processes on this machine, using
+	 * the same Java installation and class path as this program.
+	 *
+	 * @param workers The number of workers.
+	 * @param threads The number of threads each worker uses.
+	 * @return The worker processes.
+	 * @throws IOException If a process could not be started.
+	 */
+	public List<Process> launchLocalWorkers(int workers, int threads) throws IOException {
+		String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+		List<Process> processes = new ArrayList<>();
+		for (int i = 0; i != workers; ++i) {
+			processes.add(new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+					SimulationWorker.class.getName(), "localhost", Integer.toString(getPort()),
+					Integer.toString(threads)).redirectOutput(ProcessBuilder.Redirect.DISCARD)
+							.redirectError(ProcessBuilder.Redirect.INHERIT).start());
+		}
+		return processes;
+	}
+
+	/**
+	 * Wait until every game has been played.
+	 *
+	 * @return The tally of outcomes.
+	 * @throws InterruptedException If interrupted whilst waiting.
+	 */
+	public synchronized Tally await() throws InterruptedException {
+		while (!isFinished()) {
+			if (closed) {
+				throw new IllegalStateException("coordinator closed");
+			}
+			wait();
+		}
+		return getTally();
+	}
+
+	/**
+	 * Get the tally of the games reported so far.
+	 *
+	 * @return A copy of the tally.
+	 */
+	public synchronized Tally getTally() {
+		Tally copy = new Tally();
+		copy.add(tally);
+		return copy;
+	}
+
+	/**
+	 * Get the number of workers currently connected.
+	 *
+	 * @return The number of workers.
+	 */
+	public synchronized int getWorkerCount() {
+		return connections.size();
+	}
+
+	/**
+	 * Get the number of ranges which were taken back from workers that
+	 * disconnected before finishing them.
+	 *
+	 * @return The number of ranges.
+	 */
+	public synchronized long getReassignedCount() {
+		return reassigned;
+	}
+
+	/**
+	 * Stop accepting workers, and disconnect those already connected.
+	 */
+	@Override
+	public void close() throws IOException {
+		List<Connection> open;
+		synchronized (this) {
+			closed = true;
+			open = new ArrayList<>(connections);
+			notifyAll();
+		}
+		server.close();
+		for (Connection c : open) {
+			c.socket.close();
+		}
+	}
+
+	private boolean isFinished() {
+		return pending.isEmpty() && assigned.isEmpty();
+	}
+
+	// ==============================================================
+	// Workers
+	// ==============================================================
+
+	/**
+	 * A worker's connection. Messages may be written by any handler thread (to
+	 * shorten a range), so writes are synchronised on the stream.
+	 */
+	private static final class Connection {
+		final Socket socket;
+		final DataInputStream in;
+		final DataOutputStream out;
+
+		Connection(Socket socket) throws IOException {
+			this.socket = socket;
+			this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+			this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+		}
+	}
+
+	private void acceptLoop() {
+		try {
+			while (true) {
+				Socket socket = server.accept();
+				socket.setTcpNoDelay(true);
+				Connection c = new Connection(socket);
+				synchronized (this) {
+					if (closed) {
+						socket.close();
+						return;
+					}
+					connections.add(c);
+				}
+				Thread handler = new Thread(() -> handle(c), "coordinator-" + socket.getPort());
+				handler.setDaemon(true);
+				handler.start();
+			}
+		} catch (IOException e) {
+			// The server socket has been closed
+		}
+	}
+
+	private void handle(Connection c) {
+		try {
+			synchronized (c.out) {
+				c.out.writeByte(CONFIG);
+				c.out.writeUTF(rules.name());
+				c.out.writeUTF(policy.name());
+				c.out.flush();
+			}
+			while (true) {
+				byte message = c.in.readByte();
+				if (message == DONE) {
+					long start = c.in.readLong();
+					long count = c.in.readLong();
+					Tally part = Tally.read(c.in);
+					done(c, start, count, part);
+				} else if (message == WORK) {
+					if (!assign(c)) {
+						break;
+					}
+				} else {
+					throw new IOException("unexpected message " + message);
+				}
+			}
+		} catch (IOException | InterruptedException e) {
+			// The worker has gone, so its work is handed out again below
+		} finally {
+			disconnect(c);
+		}
+	}
+
+	/**
+	 * Record the tally of a block finished by a worker. Blocks must be
+	 * finished in order, and lie within the worker's range. Any other block
+	 * (e.g. one which was already being played when the range was shortened)
+	 * is ignored, since the seeds involved belong to another worker.
+	 */
+	private synchronized void done(Connection c, long start, long count, Tally part) {
+		long[] range = assigned.get(c);
+		if (range != null && start == range[0] && start + count <= range[1]) {
+			tally.add(part);
+			range[0] += count;
+			if (range[0] == range[1]) {
+				assigned.remove(c);
+				notifyAll();
+			}
+		}
+	}
+
+	/**
+	 * Send the next range to a worker, waiting if there is none to hand out
+	 * yet (e.g. whilst another worker may still crash). The range is sent
+	 * before the lock is released, so that the worker always receives it
+	 * before any message shortening it.
+	 *
+	 * @return False if every game has been played, and the worker was told to
+	 *         quit.
+	 */
+	private synchronized boolean assign(Connection c) throws IOException, InterruptedException {
+		// Anything left over from the previous range is handed out again
+		release(c);
+		while (!closed) {
+			long[] range = pending.poll();
+			if (range == null) {
+				range = steal();
+			}
+			if (range != null) {
+				assigned.put(c, range.clone());
+				synchronized (c.out) {
+					c.out.writeByte(RANGE);
+					c.out.writeLong(range[0]);
+					c.out.writeLong(range[1]);
+					c.out.flush();
+				}
+				return true;
+			}
+			if (isFinished()) {
+				break;
+			}
+			wait();
+		}
+		synchronized (c.out) {
+			c.out.writeByte(QUIT);
+			c.out.flush();
+		}
+		return false;
+	}
+
+	/**
+	 * Take the second half of the largest range still being played, provided
+	 * it is worth moving.
+	 */
+	private long[] steal() {
+		Connection victim = null;
+		long[] largest = null;
+		for (Map.Entry<Connection, long[]> e : assigned.entrySet()) {
+			long[] range = e.getValue();
+			if (largest == null || range[1] - range[0] > largest[1] - largest[0]) {
+				victim = e.getKey();
+				largest = range;
+			}
+		}
+		if (largest == null || largest[1] - largest[0] < 4 * BLOCK_SIZE) {
+			return null;
+		}
+		long middle = largest[0] + (largest[1] - largest[0]) / 2;
+		long[] stolen = { middle, largest[1] };
+		largest[1] = middle;
+		try {
+			synchronized (victim.out) {
+				victim.out.writeByte(LIMIT);
+				victim.out.writeLong(middle);
+				victim.out.flush();
+			}
+		} catch (IOException e) {
+			// The victim has gone, and the rest of its range will be handed
+			// out again once its handler notices
+		}
+		return stolen;
+	}
+
+	private synchronized void release(Connection c) {
+		long[] range = assigned.remove(c);
+		if (range != null && range[0] != range[1]) {
+			pending.addFirst(range);
+			reassigned++;
+			notifyAll();
+		}
+	}
+
+	private void disconnect(Connection c) {
+		synchronized (this) {
+			connections.remove(c);
+		}
+		release(c);
+		try {
+			c.socket.close();
+		} catch (IOException e) {
+			// Nothing more can be done
+		}
+	}
+
+	/**
+	 * Run a simulation across a number of worker processes on this machine, and
+	 * print the tally. The arguments are the rules, the policy, the number of
+	 * games, the number of workers and the number of threads per worker.
+	 *
+	 * @param args The command-line arguments.
+	 * @throws Exception If the simulation could not be run.
+	 */
+	public static void main(String[] args) throws Exception {
+		Rules rules = Rules.valueOf(args[0]);
+		Policy policy = Policy.valueOf(args[1]);
+		long games = Long.parseLong(args[2]);
+		int workers = args.length > 3 ? Integer.parseInt(args[3]) : 2;
+		int threads = args.length > 4 ? Integer.parseInt(args[4]) : 1;
+		try (SimulationCoordinator coordinator = new SimulationCoordinator(rules, policy, 0, games,
+				Math.max(BLOCK_SIZE, games / (workers * 16)))) {
+			coordinator.start();
+			coordinator.launchLocalWorkers(workers, threads);
+			System.out.println(coordinator.await());
+		}
+	}
+}
@@ -0,0 +1,181 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.cards.simulation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Simulates every game in a range of seeds, and tallies the outcomes. Each
+ * thread uses its own <code>BatchSimulator</code>, and whenever a game
+ * finishes, the next seed is started in its slot. Since each game depends only
+ * on its seed, the tally for a range is the same however it is split up. For
+ * example:
+ *
+ * <pre>
+ * Tally tally = new SimulationRunner(Rules.CLASSIC, Policy.GREEDY, 1024).run(0, 1_000_000, 4);
+ * </pre>
+ *
+ */
+public class SimulationRunner {
+	/**
+	 * The number of records each thread buffers before adding them to a store.
+	 */
+	private static final int STORE_BATCH_SIZE = 1024;
+
+	private final Rules rules;
+	private final Policy policy;
+	private final int lanes;
+
+	/**
+	 * Construct a runner.
+	 *
+	 * @param rules  The rules of the games.
+	 * @param policy How players choose their cards.
+	 * @param lanes  The number of games each thread simulates at once.
+	 */
+	public SimulationRunner(Rules rules, Policy policy, int lanes) {
+		this.rules = rules;
+		this.policy = policy;
+		this.lanes = lanes;
+	}
+
+	/**
+	 * Get the rules of the games.
+	 *
+	 * @return The rules.
+	 */
+	public Rules getRules() {
+		return rules;
+	}
+
+	/**
+	 * Get how players choose their cards.
+	 *
+	 * @return The policy.
+	 */
+	public Policy getPolicy() {
+		return policy;
+	}
+
+	/**
+	 * Simulate the games for a range of seeds on the calling thread.
+	 *
+	 * @param firstSeed The first seed in the range.
+	 * @param count     The number of seeds in the range.
+	 * @return The tally of outcomes.
+	 */
+	public Tally run(long firstSeed, long count) {
+		return run(firstSeed, count, null);
+	}
+
+	/**
+	 * Simulate the games for a range of seeds on the calling thread, adding a
+	 * record of each to a store.
+	 *
+	 * @param firstSeed The first seed in the range.
+	 * @param count     The number of seeds in the range.
+	 * @param store     The store to which games are added, or
+	 *                  <code>null</code> if they should not be stored.
+	 * @return The tally of outcomes.
+	 */
+	public Tally run(long firstSeed, long count, GameStore store) {
+		BatchSimulator sim = new BatchSimulator(rules, policy, lanes);
+		GameStore.Appender appender = store == null ? null : store.newAppender(STORE_BATCH_SIZE);
+		// The first deal of each game in progress, indexed by game and player
+		long[] deals = store == null ? null : new long[lanes * 4];
+		Tally tally = new Tally();
+		long[] seeds = new long[lanes];
+		long nextSeed = firstSeed;
+		long end = firstSeed + count;
+		for (int g = 0; g != lanes && nextSeed != end; ++g) {
+			start(sim, g, nextSeed++, seeds, deals);
+		}
+		while (sim.step() > 0) {
+			if (sim.getFinishedCount() > 0) {
+				// Record the finished games, and start new ones in their place
+				for (int g = 0; g != lanes; ++g) {
+					if (sim.isFinished(g)) {
+						tally.record(sim, g);
+						if (appender != null) {
+							appender.add(seeds[g], deals, sim, g);
+						}
+						if (nextSeed != end) {
+							start(sim, g, nextSeed++, seeds, deals);
+						} else {
+							sim.clear(g);
+						}
+					}
+				}
+			}
+		}
+		if (appender != null) {
+			appender.flush();
+		}
+		tally.addPlays(sim.getPlayCount());
+		return tally;
+	}
+
+	private static void start(BatchSimulator sim, int game, long seed, long[] seeds, long[] deals) {
+		sim.reset(game, seed);
+		seeds[game] = seed;
+		if (deals != null) {
+			for (int p = 0; p != 4; ++p) {
+				deals[game * 4 + p] = sim.getHand(game, p);
+			}
+		}
+	}
+
+	/**
+	 * Simulate the games for a range of seeds, splitting the range evenly
+	 * between a number of threads.
+	 *
+	 * @param firstSeed The first seed in the range.
+	 * @param count     The number of seeds in the range.
+	 * @param threads   The number of threads to use.
+	 * @return The tally of outcomes.
+	 * @throws InterruptedException If interrupted whilst waiting for the
+	 *                              threads.
+	 */
+	public Tally run(long firstSeed, long count, int threads) throws InterruptedException {
+		return run(firstSeed, count, threads, null);
+	}
+
+	/**
+	 * Simulate the games for a range of seeds, splitting the range evenly
+	 * between a number of threads, and adding a record of each game to a
+	 * store. Records from different threads are interleaved in the store, so
+	 * should be identified by their seeds.
+	 *
+	 * @param firstSeed The first seed in the range.
+	 * @param count     The number of seeds in the range.
+	 * @param threads   The number of threads to use.
+	 * @param store     The store to which games are added, or
+	 *                  <code>null</code> if they should not be stored.
+	 * @return The tally of outcomes.
+	 * @throws InterruptedException If interrupted whilst waiting for the
+	 *                              threads.
+	 */
+	public Tally run(long firstSeed, long count, int threads, GameStore store) throws InterruptedException {
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<Tally>> parts = new ArrayList<>();
+			for (int i = 0; i != threads; ++i) {
+				long start = firstSeed + count * i / threads;
+				long end = firstSeed + count * (i + 1) / threads;
+				parts.add(executor.submit(() -> run(start, end - start, store)));
+			}
+			Tally tally = new Tally();
+			for (Future<Tally> part : parts) {
+				tally.add(part.get());
+			}
+			return tally;
+		} catch (ExecutionException e) {
+			throw new IllegalStateException(e.getCause());
+		} finally {
+			executor.shutdown();
+		}
+	}
+}
@@ -0,0 +1,145 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.cards.simulation;
+
+import static swen221.cards.simulation.SimulationCoordinator.*;
+
+import java.io.*;
+import java.net.Socket;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Plays games on behalf of a <code>SimulationCoordinator</code>, typically in
+ * a separate process. The worker asks the coordinator for a range of seeds,
+ * plays them in blocks (reporting the tally of each block as it goes), and then
+ * asks for another, until the coordinator has nothing left. Messages from the
+ * coordinator are read on a separate thread, so that a range can be shortened
+ * whilst it is being played.
+ *
+ */
+public class SimulationWorker {
+	/**
+	 * The number of games each thread simulates at once.
+	 */
+	private static final int LANES = 1024;
+
+	private final Socket socket;
+	private final DataInputStream in;
+	private final DataOutputStream out;
+	private final int threads;
+	/**
+	 * Messages (other than <code>LIMIT</code>) received from the coordinator,
+	 * as arrays whose first element is the message code.
+	 */
+	private final BlockingQueue<Object[]> messages = new LinkedBlockingQueue<>();
+	/**
+	 * The end of the current range, which may be brought forward at any time.
+	 */
+	private volatile long limit;
+
+	/**
+	 * Connect to a coordinator.
+	 *
+	 * @param host    The coordinator's host.
+	 * @param port    The coordinator's port.
+	 * @param threads The number of threads used to play each block.
+	 * @throws IOException If the connection could not be made.
+	 */
+	public SimulationWorker(String host, int port, int threads) throws IOException {
+		this.socket = new Socket(host, port);
+		socket.setTcpNoDelay(true);
+		this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+		this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+		this.threads = threads;
+	}
+
+	/**
+	 * Play ranges of games until the coordinator has no more to hand out.
+	 *
+	 * @throws IOException          If the connection fails.
+	 * @throws InterruptedException If interrupted whilst playing.
+	 */
+	public void run() throws IOException, InterruptedException {
+		Thread reader = new Thread(this::readLoop, "worker-reader");
+		reader.setDaemon(true);
+		reader.start();
+		try {
+			Object[] config = take();
+			if ((byte) config[0] != CONFIG) {
+				throw new IOException("expected configuration");
+			}
+			SimulationRunner runner = new SimulationRunner((Rules) config[1], (Policy) config[2], LANES);
+			while (true) {
+				out.writeByte(WORK);
+				out.flush();
+				Object[] message = take();
+				if ((byte) message[0] != RANGE) {
+					break;
+				}
+				for (long start = (long) message[1]; start < limit;) {
+					long count = Math.min(BLOCK_SIZE, limit - start);
+					Tally tally = threads == 1 ? runner.run(start, count) : runner.run(start, count, threads);
+					out.writeByte(DONE);
+					out.writeLong(start);
+					out.writeLong(count);
+					tally.write(out);
+					out.flush();
+					start += count;
+				}
+			}
+		} finally {
+			socket.close();
+		}
+	}
+
+	private Object[] take() throws InterruptedException, IOException {
+		Object[] message = messages.take();
+		if (message.length == 0) {
+			throw new IOException("connection closed");
+		}
+		return message;
+	}
+
+	private void readLoop() {
+		try {
+			while (true) {
+				byte message = in.readByte();
+				if (message == CONFIG) {
+					messages.add(new Object[] { message, Rules.valueOf(in.readUTF()), Policy.valueOf(in.readUTF()) });
+				} else if (message == RANGE) {
+					long start = in.readLong();
+					// A range is always read before it is played, so replaces
+					// any limit meant for the previous range
+					limit = in.readLong();
+					messages.add(new Object[] { message, start });
+				} else if (message == LIMIT) {
+					limit = Math.min(limit, in.readLong());
+				} else if (message == QUIT) {
+					messages.add(new Object[] { message });
+					return;
+				} else {
+					throw new IOException("unexpected message " + message);
+				}
+			}
+		} catch (EOFException e) {
+			// The coordinator has gone, so there is no more work
+			messages.add(new Object[] { QUIT });
+		} catch (IOException e) {
+			messages.add(new Object[0]);
+		}
+	}
+
+	/**
+	 * Run a worker. The arguments are the coordinator's host and port, and
+	 * (optionally) the number of threads to use.
+	 *
+	 * @param args The command-line arguments.
+	 * @throws Exception If the worker fails.
+	 */
+	public static void main(String[] args) throws Exception {
+		int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+		new SimulationWorker(args[0], Integer.parseInt(args[1]), threads).run();
+	}
+}
@@ -0,0 +1,184 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.cards.simulation;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Summarises the outcomes of a number of simulated games. Tallies from
+ * different sets of games can be combined using <code>add()</code>.
+ *
+ */
+public final class Tally {
+	private long games;
+	private long hands;
+	private long plays;
+	private long sharedWins;
+	private final long[] wins = new long[4];
+
+	/**
+	 * Record the outcome of a finished game.
+	 *
+	 * @param sim  The simulator holding the game.
+	 * @param game The slot holding the game.
+	 */
+	public void record(BatchSimulator sim, int game) {
+		games++;
+		hands += sim.getHandsPlayed(game);
+		record(sim.getWinners(game));
+	}
+
+	private void record(int winners) {
+		if (Integer.bitCount(winners) > 1) {
+			sharedWins++;
+		}
+		for (int p = 0; p != 4; ++p) {
+			if ((winners & (1 << p)) != 0) {
+				wins[p]++;
+			}
+		}
+	}
+
+	/**
+	 * Record the outcome of a stored game. The number of cards played is not
+	 * stored, and so is not recorded.
+	 *
+	 * @param store The store holding the game.
+	 * @param index The index of the game's record.
+	 */
+	public void record(GameStore store, long index) {
+		games++;
+		hands += store.getHandsPlayed(index);
+		record(store.getWinners(index));
+	}
+
+	/**
+	 * Record a number of cards played.
+	 *
+	 * @param count The number of cards played.
+	 */
+	public void addPlays(long count) {
+		plays += count;
+	}
+
+	/**
+	 * Combine another tally into this one.
+	 *
+	 * @param other The tally to add.
+	 */
+	public void add(Tally other) {
+		games += other.games;
+		hands += other.hands;
+		plays += other.plays;
+		sharedWins += other.sharedWins;
+		for (int p = 0; p != 4; ++p) {
+			wins[p] += other.wins[p];
+		}
+	}
+
+	/**
+	 * Write this tally in a compact binary form.
+	 *
+	 * @param out The stream to write to.
+	 * @throws IOException If the tally could not be written.
+	 */
+	public void write(DataOutput out) throws IOException {
+		out.writeLong(games);
+		out.writeLong(hands);
+		out.writeLong(plays);
+		out.writeLong(sharedWins);
+		for (long w : wins) {
+			out.writeLong(w);
+		}
+	}
+
+	/**
+	 * Read a tally written by <code>write()</code>.
+	 *
+	 * @param in The stream to read from.
+	 * @return The tally.
+	 * @throws IOException If the tally could not be read.
+	 */
+	public static Tally read(DataInput in) throws IOException {
+		Tally tally = new Tally();
+		tally.games = in.readLong();
+		tally.hands = in.readLong();
+		tally.plays = in.readLong();
+		tally.sharedWins = in.readLong();
+		for (int p = 0; p != 4; ++p) {
+			tally.wins[p] = in.readLong();
+		}
+		return tally;
+	}
+
+	/**
+	 * Get the number of games played.
+	 *
+	 * @return The number of games.
+	 */
+	public long getGames() {
+		return games;
+	}
+
+	/**
+	 * Get the number of hands played, over all games.
+	 *
+	 * @return The number of hands.
+	 */
+	public long getHands() {
+		return hands;
+	}
+
+	/**
+	 * Get the number of cards played, over all games.
+	 *
+	 * @return The number of cards.
+	 */
+	public long getPlays() {
+		return plays;
+	}
+
+	/**
+	 * Get the number of games won (or jointly won) by a given player.
+	 *
+	 * @param player The ordinal of the player's direction.
+	 * @return The number of wins.
+	 */
+	public long getWins(int player) {
+		return wins[player];
+	}
+
+	/**
+	 * Get the number of games won jointly by more than one player.
+	 *
+	 * @return The number of shared wins.
+	 */
+	public long getSharedWins() {
+		return sharedWins;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (o instanceof Tally) {
+			Tally t = (Tally) o;
+			return games == t.games && hands == t.hands && plays == t.plays && sharedWins == t.sharedWins
+					&& Arrays.equals(wins, t.wins);
+		}
+		return false;
+	}
+
+	@Override
+	public int hashCode() {
+		return Long.hashCode(games) ^ Long.hashCode(plays) ^ Arrays.hashCode(wins);
+	}
+
+	@Override
+	public String toString() {
+		return "games=" + games + ", hands=" + hands + ", plays=" + plays + ", wins=" + Arrays.toString(wins)
+				+ ", shared=" + sharedWins;
+	}
+}
@@ -0,0 +1,90 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.cards.simulation;
+
+import swen221.cards.core.CardStrength;
+
+/**
+ * Determines the winners of many completed tricks at once. Cards are given by
+ * their identifiers (see <code>Card.id()</code>), players by the ordinals of
+ * their directions, and suits by their ordinals (with <code>-1</code> meaning
+ * no trumps). The result for every trick is the same as
+ * <code>Trick.getWinner()</code>.
+ *
+ * The batch method is written without branches, and reads each array in
+ * order, so that the JIT compiler can use SIMD instructions for it. Each card
+ * is given a strength: its rank, plus 128 if it follows the suit led, plus 256
+ * if it is a trump. Since the lead card always follows suit, and no two cards
+ * are the same, exactly one card has the highest strength. To find it, the
+ * strength is shifted left and combined with the card's position in the trick
+ * so that a plain maximum also yields the position.
+ *
+ */
+public final class TrickResolver {
+	private TrickResolver() {
+	}
+
+	/**
+	 * Determine the winners of a batch of tricks. The cards of each trick are
+	 * split across four arrays, in the order they were played.
+	 *
+	 * @param count   The number of tricks.
+	 * @param first   The card led in each trick.
+	 * @param second  The second card played in each trick.
+	 * @param third   The third card played in each trick.
+	 * @param fourth  The fourth card played in each trick.
+	 * @param leaders The player who led each trick.
+	 * @param trumps  The suit of trumps for each trick, or <code>-1</code>.
+	 * @param winners Receives the winner of each trick.
+	 */
+	public static void resolve(int count, int[] first, int[] second, int[] third, int[] fourth, int[] leaders,
+			int[] trumps, int[] winners) {
+		for (int i = 0; i < count; ++i) {
+			// Use 7 for no trumps, since it matches no suit
+			int trump = trumps[i] & 7;
+			int lead = suit(first[i]);
+			int best = Math.max(Math.max(key(first[i], lead, trump, 0), key(second[i], lead, trump, 1)),
+					Math.max(key(third[i], lead, trump, 2), key(fourth[i], lead, trump, 3)));
+			winners[i] = (leaders[i] + (best & 3)) & 3;
+		}
+	}
+
+	/**
+	 * Determine the winner of a single trick, in the straightforward way (using
+	 * <code>CardStrength</code>). This is useful for small numbers of tricks,
+	 * and as a reference for <code>resolve()</code>.
+	 *
+	 * @param cards  The cards of the trick, in the order they were played.
+	 * @param leader The player who led the trick.
+	 * @param trumps The suit of trumps, or <code>-1</code>.
+	 * @return The winner of the trick.
+	 */
+	public static int winner(int[] cards, int leader, int trumps) {
+		return (leader + CardStrength.strongest(cards, 4, trumps)) & 3;
+	}
+
+	/**
+	 * Compute the suit of a card, without a division. This is exact for all
+	 * card identifiers (0 to 51).
+	 */
+	private static int suit(int card) {
+		return (card * 79) >>> 10;
+	}
+
+	/**
+	 * Combine the strength of a card with its position in the trick.
+	 */
+	private static int key(int card, int lead, int trump, int position) {
+		int suit = suit(card);
+		int rank = card - 13 * suit;
+		return (((equal(suit, trump) << 8) | (equal(suit, lead) << 7) | rank) << 2) | position;
+	}
+
+	/**
+	 * Return 1 if two small non-negative integers are equal, and 0 otherwise.
+	 */
+	private static int equal(int a, int b) {
+		return ((a ^ b) - 1) >>> 31;
+	}
+}
@@ -0,0 +1,106 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.cards.tests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import swen221.cards.core.*;
+import swen221.cards.simulation.*;
+
+/**
+ * Differential tests which check that <code>BatchSimulator</code> plays by the
+ * same rules as the <code>CardGame</code> variations.
+ *
+ */
+public class BatchSimulatorTests {
+
+	/**
+	 * Replay every card chosen by the simulator in the corresponding variation,
+	 * checking that each is legal, and that tricks, trumps and scores agree
+	 * throughout.
+	 *
+	 * @throws Exception
+	 */
+	@Test public void testMatchesVariations() throws Exception {
+		for (Rules rules : Rules.values()) {
+			for (Policy policy : Policy.values()) {
+				for (long seed = 0; seed != 50; ++seed) {
+					checkGame(rules, policy, seed);
+				}
+			}
+		}
+	}
+
+	// ===========================================================================
+	// Helpers
+	// ===========================================================================
+
+	private static void checkGame(Rules rules, Policy policy, long seed) throws Exception {
+		String name = rules + " " + policy + " seed " + seed;
+		BatchSimulator sim = new BatchSimulator(rules, policy, 1);
+		sim.reset(0, seed);
+		CardGame game = rules.getGame().getDeclaredConstructor().newInstance();
+		Player.Direction[] directions = Player.Direction.values();
+		boolean dealing = true;
+		while (sim.isPlaying(0)) {
+			if (dealing) {
+				long[] hands = new long[4];
+				for (int p = 0; p != 4; ++p) {
+					hands[p] = sim.getHand(0, p);
+				}
+				game.deal(deck(hands));
+				game.startRound();
+				assertEquals(sim.getTrumps(0), ordinal(game.getTrick().getTrumps()), name);
+				dealing = false;
+			}
+			int p = sim.getNextToPlay(0);
+			long before = sim.getHand(0, p);
+			sim.step();
+			// Once a hand ends, the next is dealt straight away
+			long played = Long.bitCount(before) == 1 ? before : before & ~sim.getHand(0, p);
+			assertEquals(1, Long.bitCount(played), name);
+			game.play(directions[p], Card.fromId(Long.numberOfTrailingZeros(played)));
+			if (game.getTrick().getNextToPlay() == null) {
+				game.endRound();
+				if (game.isHandFinished()) {
+					game.endHand();
+					dealing = true;
+				} else {
+					game.startRound();
+					assertEquals(game.getTrick().getLeadPlayer().ordinal(), sim.getNextToPlay(0), name);
+					for (Player.Direction d : directions) {
+						assertEquals((int) game.getTricksWon().get(d), sim.getTricksWon(0, d.ordinal()), name);
+					}
+				}
+			}
+		}
+		assertTrue(game.isGameFinished(), name);
+		for (Player.Direction d : directions) {
+			assertEquals((int) game.getOverallScores().get(d), sim.getScore(0, d.ordinal()), name);
+		}
+	}
+
+	/**
+	 * Construct a deck which deals out to exactly the given hands.
+	 */
+	private static List<Card> deck(long[] hands) {
+		List<Card> deck = new ArrayList<>();
+		long[] remaining = hands.clone();
+		for (int i = 0; i != Long.bitCount(hands[0]) * 4; ++i) {
+			long mask = remaining[i % 4];
+			deck.add(Card.fromId(Long.numberOfTrailingZeros(mask)));
+			remaining[i % 4] = mask & (mask - 1);
+		}
+		return deck;
+	}
+
+	private static int ordinal(Card.Suit suit) {
+		return suit == null ? -1 : suit.ordinal();
+	}
+}
@@ -0,0 +1,162 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.cards.tests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import org.junit.jupiter.api.Test;
+
+import swen221.cards.core.*;
+import swen221.cards.server.*;
+
+/**
+ * Tests which check that <code>DecisionBroker</code> batches decisions, and
+ * that every decision it accepts is eventually completed.
+ *
+ */
+public class DecisionBrokerTests {
+
+	/**
+	 * Check that a full batch is evaluated at once, without waiting for the
+	 * window to pass, and that each decision gets its own answer.
+	 *
+	 * @throws Exception
+	 */
+	@Test public void testFullBatch() throws Exception {
+		try (DecisionBroker broker = new DecisionBroker(new GreedyEvaluator(), 4, 1, TimeUnit.HOURS)) {
+			List<CompletableFuture<Card>> results = new ArrayList<>();
+			for (Card.Rank rank : new Card.Rank[] { Card.Rank.TWO, Card.Rank.FIVE, Card.Rank.NINE, Card.Rank.KING }) {
+				Trick trick = new Trick(Player.Direction.NORTH, null);
+				results.add(broker.submit(trick, hand(new Card(Card.Suit.CLUBS, rank))));
+			}
+			for (int i = 0; i != results.size(); ++i) {
+				assertEquals(Card.Suit.CLUBS, results.get(i).get(10, TimeUnit.SECONDS).suit());
+			}
+			assertEquals(Card.Rank.NINE, results.get(2).get().rank());
+			// The metrics are updated just after the decisions are completed
+			awaitBatches(broker, 1);
+			assertEquals(1, broker.getBatchCount());
+			assertEquals(4, broker.getDecisionCount());
+		}
+	}
+
+	/**
+	 * Check that a batch which never fills is evaluated once its window has
+	 * passed.
+	 *
+	 * @throws Exception
+	 */
+	@Test public void testWindowExpires() throws Exception {
+		try (DecisionBroker broker = new DecisionBroker(new GreedyEvaluator(), 64, 10, TimeUnit.MILLISECONDS)) {
+			Card card = new Card(Card.Suit.SPADES, Card.Rank.ACE);
+			assertEquals(card, broker.submit(new Trick(Player.Direction.NORTH, null), hand(card)).get(10,
+					TimeUnit.SECONDS));
+			awaitBatches(broker, 1);
+			assertEquals(1, broker.getBatchCount());
+		}
+	}
+
+	/**
+	 * Check that decisions still waiting when the broker is closed fail, as do
+	 * any requested afterwards.
+	 *
+	 * @throws Exception
+	 */
+	@Test public void testClose() throws Exception {
+		DecisionBroker broker = new DecisionBroker(new GreedyEvaluator(), 64, 1, TimeUnit.HOURS);
+		Hand hand = hand(new Card(Card.Suit.HEARTS, Card.Rank.TEN));
+		CompletableFuture<Card> waiting = broker.submit(new Trick(Player.Direction.NORTH, null), hand);
+		broker.close();
+		checkRejected(waiting);
+		checkRejected(broker.submit(new Trick(Player.Direction.NORTH, null), hand));
+	}
+
+	/**
+	 * Check that every decision requested whilst the broker is being closed
+	 * is completed one way or the other.
+	 *
+	 * @throws Exception
+	 */
+	@Test public void testSubmitRacingClose() throws Exception {
+		Hand hand = hand(new Card(Card.Suit.DIAMONDS, Card.Rank.FOUR));
+		ExecutorService submitter = Executors.newSingleThreadExecutor();
+		try {
+			for (int i = 0; i != 200; ++i) {
+				DecisionBroker broker = new DecisionBroker(new GreedyEvaluator(), 8, 1, TimeUnit.MILLISECONDS);
+				Future<List<CompletableFuture<Card>>> submitted = submitter.submit(() -> {
+					List<CompletableFuture<Card>> results = new ArrayList<>();
+					for (int j = 0; j != 100; ++j) {
+						results.add(broker.submit(new Trick(Player.Direction.NORTH, null), hand));
+					}
+					return results;
+				});
+				broker.close();
+				for (CompletableFuture<Card> result : submitted.get()) {
+					try {
+						result.get(10, TimeUnit.SECONDS);
+					} catch (ExecutionException e) {
+						assertTrue(e.getCause() instanceof RejectedExecutionException);
+					}
+				}
+			}
+		} finally {
+			submitter.shutdownNow();
+		}
+	}
+
+	/**
+	 * Check that an evaluator which throws, or chooses an invalid card, fails
+	 * the decisions in its batch without stopping the broker.
+	 *
+	 * @throws Exception
+	 */
+	@Test public void testEvaluatorErrors() throws Exception {
+		RuntimeException error = new RuntimeException("evaluator failed");
+		BatchEvaluator evaluator = (batch, choices) -> {
+			if (batch.getHand(0) == 1) {
+				throw error;
+			}
+			choices[0] = 52;
+		};
+		try (DecisionBroker broker = new DecisionBroker(evaluator, 1, 1, TimeUnit.MILLISECONDS)) {
+			Trick trick = new Trick(Player.Direction.NORTH, null);
+			ExecutionException e = assertThrows(ExecutionException.class,
+					() -> broker.submit(trick, hand(Card.fromId(0))).get(10, TimeUnit.SECONDS));
+			assertSame(error, e.getCause());
+			e = assertThrows(ExecutionException.class,
+					() -> broker.submit(trick, hand(Card.fromId(1))).get(10, TimeUnit.SECONDS));
+			assertTrue(e.getCause() instanceof IllegalStateException);
+			awaitBatches(broker, 2);
+			assertEquals(2, broker.getBatchCount());
+		}
+	}
+
+	// ===========================================================================
+	// Helpers
+	// ===========================================================================
+
+	private static Hand hand(Card... cards) {
+		Hand hand = new Hand();
+		for (Card card : cards) {
+			hand.add(card);
+		}
+		return hand;
+	}
+
+	private static void awaitBatches(DecisionBroker broker, long count) throws InterruptedException {
+		long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while (broker.getBatchCount() < count && System.nanoTime() < end) {
+			Thread.sleep(1);
+		}
+	}
+
+	private static void checkRejected(CompletableFuture<Card> result) throws Exception {
+		ExecutionException e = assertThrows(ExecutionException.class, () -> result.get(10, TimeUnit.SECONDS));
+		assertTrue(e.getCause() instanceof RejectedExecutionException);
+	}
+}
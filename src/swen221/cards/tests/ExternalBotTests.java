@@ -0,0 +1,215 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.cards.tests;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static swen221.cards.core.Card.Rank.*;
+import static swen221.cards.core.Card.Suit.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.jupiter.api.Test;
+
+import swen221.cards.core.Card;
+import swen221.cards.core.IllegalMove;
+import swen221.cards.core.Player;
+import swen221.cards.core.Trick;
+import swen221.cards.util.Deadline;
+import swen221.cards.util.ExternalBotClient;
+import swen221.cards.util.ExternalComputerPlayer;
+
+/**
+ * Tests for computer players which run as separate processes, using the
+ * <code>StubBot</code> process.
+ *
+ */
+public class ExternalBotTests {
+	// ===========================================================================
+	// Single Requests
+	// ===========================================================================
+
+	/**
+	 * Test external player leads its lowest card.
+	 *
+	 * @throws IOException
+	 * @throws IllegalMove
+	 */
+	@Test public void testExternal_1() throws IOException, IllegalMove {
+		Card[] played = { };
+		Card hand[] = { new Card(CLUBS,TWO), new Card(HEARTS,ACE) };
+		checkCardPlayed(hand[1],HEARTS,played,hand);
+	}
+
+	/**
+	 * Test external player follows suit.
+	 *
+	 * @throws IOException
+	 * @throws IllegalMove
+	 */
+	@Test public void testExternal_2() throws IOException, IllegalMove {
+		Card[] played = { new Card(CLUBS,FIVE) };
+		Card hand[] = { new Card(HEARTS,TWO), new Card(CLUBS,KING) };
+		checkCardPlayed(hand[1],null,played,hand);
+	}
+
+	/**
+	 * Test external player discards when it cannot follow suit.
+	 *
+	 * @throws IOException
+	 * @throws IllegalMove
+	 */
+	@Test public void testExternal_3() throws IOException, IllegalMove {
+		Card[] played = { new Card(SPADES,FIVE), new Card(SPADES,ACE) };
+		Card hand[] = { new Card(DIAMONDS,TWO), new Card(CLUBS,KING) };
+		checkCardPlayed(hand[1],DIAMONDS,played,hand);
+	}
+
+	// ===========================================================================
+	// Pipelining
+	// ===========================================================================
+
+	/**
+	 * Test many outstanding requests are all answered correctly, and are sent in
+	 * fewer batches than requests.
+	 *
+	 * @throws IOException
+	 */
+	@Test public void testPipelining_1() throws IOException {
+		try (ExternalBotClient client = startStubBot()) {
+			List<CompletableFuture<Card>> answers = new ArrayList<>();
+			List<Card> expected = new ArrayList<>();
+			for (int i = 0; i != 1000; ++i) {
+				Card.Suit suit = Card.Suit.values()[i % 4];
+				Card.Rank rank = Card.Rank.values()[i % 13];
+				Player player = new Player(Player.Direction.NORTH);
+				player.getHand().add(new Card(suit, rank));
+				player.getHand().add(new Card(SPADES, ACE));
+				ExternalComputerPlayer ai = new ExternalComputerPlayer(player, client);
+				answers.add(ai.getNextCardAsync(new Trick(Player.Direction.NORTH, null), Deadline.none(), null));
+				expected.add(new Card(suit, rank));
+			}
+			for (int i = 0; i != answers.size(); ++i) {
+				assertEquals(expected.get(i), answers.get(i).join());
+			}
+			assertEquals(1000, client.getRequestCount());
+			assertTrue(client.getBatchCount() < client.getRequestCount());
+		}
+	}
+
+	/**
+	 * Test requests fail once the connection is closed.
+	 *
+	 * @throws IOException
+	 */
+	@Test public void testClosed_1() throws IOException {
+		ExternalBotClient client = startStubBot();
+		client.close();
+		Player player = new Player(Player.Direction.NORTH);
+		player.getHand().add(new Card(SPADES, ACE));
+		CompletableFuture<Card> answer = client.request(new Trick(Player.Direction.NORTH, null), player.getHand());
+		CompletionException e = assertThrows(CompletionException.class, answer::join);
+		assertTrue(e.getCause() instanceof IOException);
+	}
+
+	/**
+	 * Test requests fail, rather than waiting forever, once the external player
+	 * has exited.
+	 *
+	 * @throws Exception
+	 */
+	@Test public void testExited_1() throws Exception {
+		try (ExternalBotClient client = startStubBot("exit")) {
+			Player player = new Player(Player.Direction.NORTH);
+			player.getHand().add(new Card(SPADES, ACE));
+			Trick trick = new Trick(Player.Direction.NORTH, null);
+			// The first request may be sent before the player has exited
+			ExecutionException e = assertThrows(ExecutionException.class,
+					() -> client.request(trick, player.getHand()).get(10, TimeUnit.SECONDS));
+			assertTrue(e.getCause() instanceof IOException);
+			e = assertThrows(ExecutionException.class,
+					() -> client.request(trick, player.getHand()).get(10, TimeUnit.SECONDS));
+			assertTrue(e.getCause() instanceof IOException);
+		}
+	}
+
+	/**
+	 * Test lines from the external player which are not answers are ignored.
+	 *
+	 * @throws Exception
+	 */
+	@Test public void testNoisy_1() throws Exception {
+		try (ExternalBotClient client = startStubBot("noisy")) {
+			for (Card.Rank rank : new Card.Rank[] { TWO, TEN, ACE }) {
+				Player player = new Player(Player.Direction.NORTH);
+				player.getHand().add(new Card(CLUBS, rank));
+				ExternalComputerPlayer ai = new ExternalComputerPlayer(player, client);
+				assertEquals(new Card(CLUBS, rank), ai.getNextCardAsync(new Trick(Player.Direction.NORTH, null),
+						Deadline.none(), null).get(10, TimeUnit.SECONDS));
+			}
+		}
+	}
+
+	/**
+	 * Test an external player which never answers fails with a timeout, rather
+	 * than waiting forever.
+	 *
+	 * @throws Exception
+	 */
+	@Test public void testSilent_1() throws Exception {
+		try (ExternalBotClient client = startStubBot("silent")) {
+			Player player = new Player(Player.Direction.NORTH);
+			player.getHand().add(new Card(SPADES, ACE));
+			ExternalComputerPlayer ai = new ExternalComputerPlayer(player, client, 200, TimeUnit.MILLISECONDS);
+			Trick trick = new Trick(Player.Direction.NORTH, null);
+			CompletionException e = assertThrows(CompletionException.class, () -> ai.getNextCard(trick));
+			assertTrue(e.getCause() instanceof TimeoutException);
+			assertTrue(e.getCause().getMessage().contains("200ms"));
+			e = assertThrows(CompletionException.class,
+					() -> ai.getNextCardAsync(trick, Deadline.none(), null).join());
+			assertTrue(e.getCause() instanceof TimeoutException);
+		}
+	}
+
+	// ===========================================================================
+	// Helpers
+	// ===========================================================================
+
+	private static ExternalBotClient startStubBot(String... args) throws IOException {
+		String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+		List<String> command = new ArrayList<>(List.of(java, "-cp", System.getProperty("java.class.path"),
+				StubBot.class.getName()));
+		command.addAll(List.of(args));
+		return new ExternalBotClient(command.toArray(new String[0]));
+	}
+
+	private void checkCardPlayed(Card expected, Card.Suit trumps,
+			Card[] played, Card[] hand) throws IOException, IllegalMove {
+		// First, setup the trick with NORTH leading
+		Trick trick = new Trick(Player.Direction.NORTH,trumps);
+		Player.Direction d = Player.Direction.NORTH;
+		for(int i=0;i!=played.length;++i) {
+			Player ghost = new Player(d);
+			ghost.getHand().add(played[i]);
+			trick.play(ghost, played[i]);
+			d = d.next();
+		}
+		Player computerPlayer = new Player(d);
+		for(Card c : hand) {
+			computerPlayer.getHand().add(c);
+		}
+		// Second, ask the external player for its card
+		try (ExternalBotClient client = startStubBot()) {
+			Card next = new ExternalComputerPlayer(computerPlayer, client).getNextCard(trick);
+			assertEquals(expected, next);
+		}
+	}
+}
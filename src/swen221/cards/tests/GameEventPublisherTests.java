@@ -0,0 +1,195 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.cards.tests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+
+import org.junit.jupiter.api.Test;
+
+import swen221.cards.core.Player;
+import swen221.cards.server.GameEvent;
+import swen221.cards.server.GameEventPublisher;
+import swen221.cards.server.GameEventPublisher.OverflowPolicy;
+
+/**
+ * Tests which check that <code>GameEventPublisher</code> buffers events for
+ * slow subscribers as its overflow policy requires. Deliveries are run by hand,
+ * so that each test controls exactly when the subscriber keeps up.
+ *
+ */
+public class GameEventPublisherTests {
+
+	/**
+	 * Check that events wrap around the buffer, and arrive in order and in
+	 * batches, when the subscriber keeps up.
+	 */
+	@Test public void testRingBuffer() {
+		Deliveries deliveries = new Deliveries();
+		GameEventPublisher publisher = new GameEventPublisher(deliveries, 4, OverflowPolicy.DROP_NEWEST, 3);
+		Recorder recorder = new Recorder();
+		publisher.subscribe(recorder);
+		for (int round = 0; round != 5; ++round) {
+			publish(publisher, 3);
+			recorder.subscription.request(1);
+			deliveries.runAll();
+		}
+		assertEquals(sequences(0, 15), recorder.received());
+		assertEquals(5, recorder.batches.size());
+		assertEquals(0, publisher.getDroppedCount());
+	}
+
+	/**
+	 * Check that a slow subscriber keeps the most recent events.
+	 */
+	@Test public void testDropOldest() {
+		Recorder recorder = checkSlowSubscriber(OverflowPolicy.DROP_OLDEST, 6);
+		assertEquals(sequences(6, 10), recorder.received());
+	}
+
+	/**
+	 * Check that a slow subscriber keeps the earliest events.
+	 */
+	@Test public void testDropNewest() {
+		Recorder recorder = checkSlowSubscriber(OverflowPolicy.DROP_NEWEST, 6);
+		assertEquals(sequences(0, 4), recorder.received());
+	}
+
+	/**
+	 * Check that a slow subscriber keeps only the events since its buffer was
+	 * last discarded.
+	 */
+	@Test public void testConflate() {
+		Recorder recorder = checkSlowSubscriber(OverflowPolicy.CONFLATE, 8);
+		assertEquals(sequences(8, 10), recorder.received());
+	}
+
+	/**
+	 * Check that a subscriber which throws is cancelled and told of its error,
+	 * and that other subscribers are unaffected.
+	 */
+	@Test public void testFailingSubscriber() {
+		Deliveries deliveries = new Deliveries();
+		GameEventPublisher publisher = new GameEventPublisher(deliveries, 4, OverflowPolicy.DROP_OLDEST, 4);
+		Recorder failing = new Recorder() {
+			@Override
+			public void onNext(List<GameEvent> batch) {
+				throw new IllegalStateException("subscriber failed");
+			}
+		};
+		Recorder healthy = new Recorder();
+		publisher.subscribe(failing);
+		publisher.subscribe(healthy);
+		failing.subscription.request(Long.MAX_VALUE);
+		healthy.subscription.request(Long.MAX_VALUE);
+		publish(publisher, 2);
+		deliveries.runAll();
+		assertTrue(failing.error instanceof IllegalStateException);
+		assertEquals(1, publisher.getSubscriberCount());
+		publish(publisher, 2);
+		deliveries.runAll();
+		assertEquals(sequences(0, 4), healthy.received());
+	}
+
+	// ===========================================================================
+	// Helpers
+	// ===========================================================================
+
+	/**
+	 * Publish ten events to a subscriber with a buffer of four which requests
+	 * nothing, and then let it catch up.
+	 */
+	private static Recorder checkSlowSubscriber(OverflowPolicy policy, int dropped) {
+		Deliveries deliveries = new Deliveries();
+		GameEventPublisher publisher = new GameEventPublisher(deliveries, 4, policy, 16);
+		Recorder recorder = new Recorder();
+		publisher.subscribe(recorder);
+		publish(publisher, 10);
+		deliveries.runAll();
+		assertTrue(recorder.batches.isEmpty());
+		assertEquals(dropped, publisher.getDroppedCount());
+		recorder.subscription.request(1);
+		deliveries.runAll();
+		assertEquals(1, recorder.batches.size());
+		return recorder;
+	}
+
+	private static void publish(GameEventPublisher publisher, int count) {
+		for (int i = 0; i != count; ++i) {
+			publisher.trickWon(Player.Direction.NORTH);
+		}
+	}
+
+	private static List<Long> sequences(long from, long to) {
+		List<Long> sequences = new ArrayList<>();
+		for (long i = from; i != to; ++i) {
+			sequences.add(i);
+		}
+		return sequences;
+	}
+
+	/**
+	 * An executor whose tasks are only run when asked.
+	 */
+	private static final class Deliveries implements Executor {
+		private final Queue<Runnable> tasks = new ArrayDeque<>();
+
+		@Override
+		public void execute(Runnable task) {
+			tasks.add(task);
+		}
+
+		void runAll() {
+			Runnable task;
+			while ((task = tasks.poll()) != null) {
+				task.run();
+			}
+		}
+	}
+
+	/**
+	 * A subscriber which records what it receives, and requests only what it
+	 * is told to.
+	 */
+	private static class Recorder implements Flow.Subscriber<List<GameEvent>> {
+		Flow.Subscription subscription;
+		final List<List<GameEvent>> batches = new ArrayList<>();
+		Throwable error;
+
+		@Override
+		public void onSubscribe(Flow.Subscription subscription) {
+			this.subscription = subscription;
+		}
+
+		@Override
+		public void onNext(List<GameEvent> batch) {
+			batches.add(batch);
+		}
+
+		@Override
+		public void onError(Throwable error) {
+			this.error = error;
+		}
+
+		@Override
+		public void onComplete() {
+		}
+
+		List<Long> received() {
+			List<Long> sequences = new ArrayList<>();
+			for (List<GameEvent> batch : batches) {
+				for (GameEvent event : batch) {
+					sequences.add(event.getSequence());
+				}
+			}
+			return sequences;
+		}
+	}
+}
@@ -0,0 +1,198 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.cards.tests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import swen221.cards.core.*;
+import swen221.cards.util.AbstractCardGame;
+import swen221.cards.variations.*;
+
+/**
+ * Tests which check that <code>GameListener</code>s are told of every event,
+ * in the order the events happen, and once the game reflects them.
+ *
+ */
+public class GameListenerTests {
+
+	/**
+	 * Records each event it is told of as a short string, checking as it goes
+	 * that the game already reflects the event.
+	 */
+	private static class Recorder implements GameListener {
+		private final CardGame game;
+		private final List<String> events = new ArrayList<>();
+
+		public Recorder(CardGame game) {
+			this.game = game;
+		}
+
+		@Override
+		public void handDealt() {
+			assertEquals(game.getPlayer(Player.Direction.NORTH).getHand().size(),
+					game.getState().getHandSize(Player.Direction.NORTH));
+			events.add("dealt");
+		}
+
+		@Override
+		public void cardPlayed(Player.Direction player, Card card) {
+			assertFalse(game.getPlayer(player).getHand().contains(card));
+			assertEquals(card, game.getState().getCardPlayed(player));
+			events.add("played " + player);
+		}
+
+		@Override
+		public void trickWon(Player.Direction winner) {
+			assertEquals(winner, game.getTrick().getWinner());
+			assertEquals((int) game.getTricksWon().get(winner), game.getState().getTricksWon(winner));
+			events.add("won " + winner);
+		}
+
+		@Override
+		public void handEnded() {
+			for (Player.Direction d : Player.Direction.values()) {
+				assertEquals(0, (int) game.getTricksWon().get(d));
+			}
+			events.add("ended");
+		}
+
+		@Override
+		public void trumpsChanged(Card.Suit trumps) {
+			events.add("trumps " + trumps);
+		}
+
+		@Override
+		public void gameFinished() {
+			assertTrue(game.isGameFinished());
+			assertTrue(game.getState().isGameFinished());
+			events.add("finished");
+		}
+	}
+
+	/**
+	 * Check the events of a single hand game, from the deal to the game
+	 * finishing.
+	 *
+	 * @throws Exception
+	 */
+	@Test public void testSingleHandEvents() throws Exception {
+		CardGame game = new SingleHandWhist();
+		Recorder recorder = new Recorder(game);
+		game.addGameListener(recorder);
+		playGame(game, new Random(28));
+		List<String> events = recorder.events;
+		assertEquals("dealt", events.get(0));
+		int i = 1;
+		for (int trick = 0; trick != 13; ++trick) {
+			for (int card = 0; card != 4; ++card) {
+				assertTrue(events.get(i++).startsWith("played "));
+			}
+			assertTrue(events.get(i++).startsWith("won "));
+		}
+		assertEquals(List.of("ended", "trumps " + Card.Suit.CLUBS, "finished"), events.subList(i, events.size()));
+	}
+
+	/**
+	 * Check that, in a game of several hands, each hand is dealt before it is
+	 * played and ended after it, and that the game finishes exactly once, after
+	 * the last hand has ended.
+	 *
+	 * @throws Exception
+	 */
+	@Test public void testGameFinishedLast() throws Exception {
+		for (CardGame game : new CardGame[] { new ClassicWhist(), new KnockOutWhist() }) {
+			Recorder recorder = new Recorder(game);
+			game.addGameListener(recorder);
+			playGame(game, new Random(28));
+			List<String> events = recorder.events;
+			assertEquals("finished", events.get(events.size() - 1));
+			assertEquals(1, Collections.frequency(events, "finished"));
+			assertEquals("ended", events.get(events.size() - 3));
+			assertTrue(events.get(events.size() - 2).startsWith("trumps "));
+			boolean dealt = false;
+			for (String event : events) {
+				if (event.equals("dealt")) {
+					assertFalse(dealt);
+					dealt = true;
+				} else if (event.equals("ended")) {
+					assertTrue(dealt);
+					dealt = false;
+				} else if (event.startsWith("played ") || event.startsWith("won ")) {
+					assertTrue(dealt);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Check that a listener which has been removed is told of no more events,
+	 * whilst those remaining still are.
+	 *
+	 * @throws Exception
+	 */
+	@Test public void testRemoveListener() throws Exception {
+		CardGame game = new SingleHandWhist();
+		Recorder removed = new Recorder(game);
+		Recorder kept = new Recorder(game);
+		game.addGameListener(removed);
+		game.addGameListener(kept);
+		List<Card> deck = AbstractCardGame.createDeck();
+		Collections.shuffle(deck, new Random(28));
+		game.deal(deck);
+		game.removeGameListener(removed);
+		game.startRound();
+		playCard(game);
+		assertEquals(List.of("dealt"), removed.events);
+		assertEquals(List.of("dealt", "played " + Player.Direction.NORTH), kept.events);
+	}
+
+	// ===========================================================================
+	// Helpers
+	// ===========================================================================
+
+	/**
+	 * Play a game through to the end, with each player playing their lowest
+	 * card which follows suit.
+	 */
+	private static void playGame(CardGame game, Random random) throws IllegalMove {
+		while (!game.isGameFinished()) {
+			List<Card> deck = AbstractCardGame.createDeck();
+			Collections.shuffle(deck, random);
+			game.deal(deck);
+			while (!game.isHandFinished()) {
+				game.startRound();
+				for (int i = 0; i != 4; ++i) {
+					playCard(game);
+				}
+				game.endRound();
+			}
+			game.endHand();
+		}
+	}
+
+	/**
+	 * Play the lowest card which follows suit for the next player.
+	 */
+	private static void playCard(CardGame game) throws IllegalMove {
+		Player.Direction d = game.getTrick().getNextToPlay();
+		Hand hand = game.getPlayer(d).getHand();
+		List<Card> played = game.getTrick().getCardsPlayed();
+		if (!played.isEmpty()) {
+			for (Card card : hand) {
+				if (card.suit() == played.get(0).suit()) {
+					game.play(d, card);
+					return;
+				}
+			}
+		}
+		game.play(d, hand.iterator().next());
+	}
+}
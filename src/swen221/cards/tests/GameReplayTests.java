@@ -0,0 +1,140 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.cards.tests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import swen221.cards.core.*;
+import swen221.cards.util.*;
+import swen221.cards.variations.*;
+
+/**
+ * Tests which check that a recorded game replays exactly as it was played.
+ *
+ */
+public class GameReplayTests {
+
+	/**
+	 * Check that a recording begun part way through a game (e.g. after its
+	 * first hand, with trumps moved on and scores already counted) replays to
+	 * the same final state, having been saved and loaded.
+	 *
+	 * @throws Exception
+	 */
+	@Test public void testRecordFromMidGame() throws Exception {
+		// A single hand game is over before there is anything to record
+		for (CardGame game : new CardGame[] { new ClassicWhist(), new KnockOutWhist() }) {
+			Random random = new Random(37);
+			// Play the first hand, and part of the second, before recording
+			playHand(game, random, Integer.MAX_VALUE, null);
+			playHand(game, random, 5, null);
+			GameRecorder recorder = new GameRecorder(game);
+			game.addGameListener(recorder);
+			// The rest of the hand in progress is not recorded
+			while (!game.isHandFinished()) {
+				playTrick(game, null);
+			}
+			game.endHand();
+			// The state once each recorded trick is complete
+			List<String> tricks = new ArrayList<>();
+			while (!game.isGameFinished()) {
+				playHand(game, random, Integer.MAX_VALUE, tricks);
+			}
+			GameRecording recording = reload(recorder.getRecording());
+			GameReplay replay = new GameReplay(recording);
+			CardGame start = recording.getStart();
+			CardGame first = replay.seek(0);
+			assertEquals(start.getOverallScores(), first.getOverallScores());
+			for (Player.Direction d : Player.Direction.values()) {
+				assertEquals(start.getPlayer(d).getHand().mask(), first.getPlayer(d).getHand().mask());
+			}
+			assertEquals(tricks.size() * 4, replay.length());
+			for (int k = 0; k != tricks.size(); ++k) {
+				assertEquals(tricks.get(k), describe(replay.seek(k * 4 + 4)));
+			}
+		}
+	}
+
+	// ===========================================================================
+	// Helpers
+	// ===========================================================================
+
+	private static GameRecording reload(GameRecording recording) throws IOException {
+		StringWriter out = new StringWriter();
+		recording.write(out);
+		return GameRecording.read(new StringReader(out.toString()));
+	}
+
+	/**
+	 * Deal a new hand, and play at most a given number of tricks of it.
+	 */
+	private static void playHand(CardGame game, Random random, int count, List<String> tricks) throws IllegalMove {
+		List<Card> deck = AbstractCardGame.createDeck();
+		Collections.shuffle(deck, random);
+		game.deal(deck);
+		for (int i = 0; i != count && !game.isHandFinished(); ++i) {
+			playTrick(game, tricks);
+		}
+		if (game.isHandFinished()) {
+			game.endHand();
+		}
+	}
+
+	/**
+	 * Play a trick, adding the state once all four cards are played to a list
+	 * (if given).
+	 */
+	private static void playTrick(CardGame game, List<String> tricks) throws IllegalMove {
+		game.startRound();
+		for (int i = 0; i != 4; ++i) {
+			Player.Direction d = game.getTrick().getNextToPlay();
+			game.play(d, legalCard(game.getTrick(), game.getPlayer(d).getHand()));
+		}
+		if (tricks != null) {
+			tricks.add(describe(game));
+		}
+		game.endRound();
+	}
+
+	/**
+	 * Describe the state of a game, including its trumps, tricks, scores, hands
+	 * and current trick.
+	 */
+	private static String describe(CardGame game) {
+		StringBuilder sb = new StringBuilder();
+		sb.append(game.getTrick().getTrumps()).append(' ');
+		sb.append(game.getTricksWon()).append(' ');
+		sb.append(game.getOverallScores()).append(' ');
+		for (Player.Direction d : Player.Direction.values()) {
+			sb.append(Long.toHexString(game.getPlayer(d).getHand().mask())).append(' ');
+		}
+		sb.append(game.getTrick().getLeadPlayer()).append(game.getTrick().getCardsPlayed());
+		return sb.toString();
+	}
+
+	/**
+	 * Choose the lowest card which follows suit, if possible.
+	 */
+	private static Card legalCard(Trick trick, Hand hand) {
+		List<Card> played = trick.getCardsPlayed();
+		if (!played.isEmpty()) {
+			for (Card card : hand) {
+				if (card.suit() == played.get(0).suit()) {
+					return card;
+				}
+			}
+		}
+		return hand.iterator().next();
+	}
+}
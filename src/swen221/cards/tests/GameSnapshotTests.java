@@ -0,0 +1,103 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.cards.tests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import swen221.cards.core.*;
+import swen221.cards.util.AbstractCardGame;
+import swen221.cards.util.GameSnapshot;
+import swen221.cards.variations.*;
+
+/**
+ * Tests which check that games restored from a <code>GameSnapshot</code> are
+ * identical to the originals.
+ *
+ */
+public class GameSnapshotTests {
+
+	/**
+	 * Check that every state reached in a game of each variation survives a
+	 * round trip, and that the restored game plays on exactly as the original.
+	 *
+	 * @throws IllegalMove
+	 */
+	@Test public void testRoundTrip() throws IllegalMove {
+		for (CardGame game : new CardGame[] { new ClassicWhist(), new KnockOutWhist(), new SingleHandWhist() }) {
+			Random random = new Random(221);
+			while (!game.isGameFinished()) {
+				List<Card> deck = AbstractCardGame.createDeck();
+				Collections.shuffle(deck, random);
+				game.deal(deck);
+				checkRoundTrip(game);
+				while (!game.isHandFinished()) {
+					game.startRound();
+					checkRoundTrip(game);
+					for (int i = 0; i != 4; ++i) {
+						Player.Direction d = game.getTrick().getNextToPlay();
+						game.play(d, legalCard(game.getTrick(), game.getPlayer(d).getHand()));
+						checkRoundTrip(game);
+					}
+					game.endRound();
+					checkRoundTrip(game);
+				}
+				game.endHand();
+				checkRoundTrip(game);
+			}
+		}
+	}
+
+	/**
+	 * Check that a restored trick still insists on following suit.
+	 *
+	 * @throws IllegalMove
+	 */
+	@Test public void testRestoredTrickFollowsSuit() throws IllegalMove {
+		CardGame game = new ClassicWhist();
+		game.deal(AbstractCardGame.createDeck());
+		game.startRound();
+		// Cards are dealt in turn, so North holds the two of hearts and East
+		// holds both the three of hearts and the two of clubs
+		game.play(Player.Direction.NORTH, new Card(Card.Suit.HEARTS, Card.Rank.TWO));
+		CardGame copy = GameSnapshot.decode(GameSnapshot.encode(game));
+		assertThrows(IllegalMove.class, () -> copy.play(Player.Direction.EAST,
+				new Card(Card.Suit.CLUBS, Card.Rank.TWO)));
+	}
+
+	private void checkRoundTrip(CardGame game) {
+		byte[] bytes = GameSnapshot.encode(game);
+		assertTrue(bytes.length <= 48, "snapshot too large: " + bytes.length);
+		CardGame copy = GameSnapshot.decode(bytes);
+		assertEquals(game.getClass(), copy.getClass());
+		assertArrayEquals(bytes, GameSnapshot.encode(copy));
+		assertEquals(game.isGameFinished(), copy.isGameFinished());
+		assertEquals(game.getOverallScores(), copy.getOverallScores());
+		assertEquals(game.getTricksWon(), copy.getTricksWon());
+		for (Player.Direction d : Player.Direction.values()) {
+			assertEquals(game.getPlayer(d).getHand().mask(), copy.getPlayer(d).getHand().mask());
+		}
+		assertArrayEquals(bytes, GameSnapshot.encode(game.clone()));
+	}
+
+	/**
+	 * Choose the lowest card which follows suit, if possible.
+	 */
+	private static Card legalCard(Trick trick, Hand hand) {
+		List<Card> played = trick.getCardsPlayed();
+		if (!played.isEmpty()) {
+			for (Card card : hand) {
+				if (card.suit() == played.get(0).suit()) {
+					return card;
+				}
+			}
+		}
+		return hand.iterator().next();
+	}
+}
@@ -0,0 +1,143 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.cards.tests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import swen221.cards.core.*;
+import swen221.cards.util.AbstractCardGame;
+import swen221.cards.variations.*;
+
+/**
+ * Tests which check that the <code>GameState</code> published by a game
+ * matches the game after every change, and is never changed afterwards.
+ *
+ */
+public class GameStateTests {
+
+	/**
+	 * Check that a new game of every variation publishes an empty state, which
+	 * is not finished.
+	 */
+	@Test public void testNewGame() {
+		for (CardGame game : new CardGame[] { new ClassicWhist(), new KnockOutWhist(), new SingleHandWhist() }) {
+			GameState state = game.getState();
+			assertFalse(state.isGameFinished(), game.getName());
+			assertFalse(state.hasTrick());
+			for (Player.Direction d : Player.Direction.values()) {
+				assertEquals(0, state.getHandSize(d));
+				assertEquals(0, state.getTricksWon(d));
+				assertEquals(0, state.getOverallScore(d));
+			}
+		}
+	}
+
+	/**
+	 * Check that every change to a game publishes a state with a larger
+	 * version, which matches the game at that point.
+	 *
+	 * @throws Exception
+	 */
+	@Test public void testStateFollowsGame() throws Exception {
+		for (CardGame game : new CardGame[] { new ClassicWhist(), new KnockOutWhist(), new SingleHandWhist() }) {
+			Random random = new Random(30);
+			long version = game.getState().getVersion();
+			while (!game.isGameFinished()) {
+				List<Card> deck = AbstractCardGame.createDeck();
+				Collections.shuffle(deck, random);
+				game.deal(deck);
+				version = checkState(game, version);
+				while (!game.isHandFinished()) {
+					game.startRound();
+					version = checkState(game, version);
+					for (int i = 0; i != 4; ++i) {
+						playCard(game);
+						version = checkState(game, version);
+					}
+					game.endRound();
+					version = checkState(game, version);
+				}
+				game.endHand();
+				version = checkState(game, version);
+			}
+			assertTrue(game.getState().isGameFinished());
+		}
+	}
+
+	/**
+	 * Check that a state, once published, does not change as the game goes on.
+	 *
+	 * @throws Exception
+	 */
+	@Test public void testStateImmutable() throws Exception {
+		CardGame game = new ClassicWhist();
+		List<Card> deck = AbstractCardGame.createDeck();
+		Collections.shuffle(deck, new Random(30));
+		game.deal(deck);
+		game.startRound();
+		GameState before = game.getState();
+		long north = before.getHand(Player.Direction.NORTH);
+		playCard(game);
+		playCard(game);
+		assertEquals(north, before.getHand(Player.Direction.NORTH));
+		assertNull(before.getCardPlayed(Player.Direction.NORTH));
+		assertEquals(Player.Direction.NORTH, before.getNextToPlay());
+		assertEquals(Player.Direction.SOUTH, game.getState().getNextToPlay());
+		assertTrue(north != game.getState().getHand(Player.Direction.NORTH));
+	}
+
+	// ===========================================================================
+	// Helpers
+	// ===========================================================================
+
+	/**
+	 * Check that the published state has moved on from a given version, and
+	 * matches the game, returning its version.
+	 */
+	private static long checkState(CardGame game, long version) {
+		GameState state = game.getState();
+		assertTrue(state.getVersion() > version);
+		Trick trick = game.getTrick();
+		for (Player.Direction d : Player.Direction.values()) {
+			Hand hand = game.getPlayer(d).getHand();
+			assertEquals(hand.mask(), state.getHand(d));
+			assertEquals(hand.size(), state.getHandSize(d));
+			assertEquals((int) game.getTricksWon().get(d), state.getTricksWon(d));
+			assertEquals((int) game.getOverallScores().get(d), state.getOverallScore(d));
+			assertEquals(trick == null ? null : trick.getCardPlayed(d), state.getCardPlayed(d));
+		}
+		assertEquals(trick != null, state.hasTrick());
+		if (trick != null) {
+			assertEquals(trick.getLeadPlayer(), state.getLeadPlayer());
+			assertEquals(trick.getNextToPlay(), state.getNextToPlay());
+			assertEquals(trick.getTrumps(), state.getTrumps());
+		}
+		assertEquals(game.isGameFinished(), state.isGameFinished());
+		return state.getVersion();
+	}
+
+	/**
+	 * Play the lowest card which follows suit for the next player.
+	 */
+	private static void playCard(CardGame game) throws IllegalMove {
+		Player.Direction d = game.getTrick().getNextToPlay();
+		Hand hand = game.getPlayer(d).getHand();
+		List<Card> played = game.getTrick().getCardsPlayed();
+		if (!played.isEmpty()) {
+			for (Card card : hand) {
+				if (card.suit() == played.get(0).suit()) {
+					game.play(d, card);
+					return;
+				}
+			}
+		}
+		game.play(d, hand.iterator().next());
+	}
+}
@@ -0,0 +1,109 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.cards.tests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.junit.jupiter.api.Test;
+
+import swen221.cards.simulation.*;
+
+/**
+ * Tests which check that games added to a <code>GameStore</code> can be read
+ * back as they were simulated.
+ *
+ */
+public class GameStoreTests {
+
+	/**
+	 * Check that each stored record matches the game replayed from its seed.
+	 *
+	 * @throws InterruptedException
+	 */
+	@Test public void testRecordsMatchSimulation() throws InterruptedException {
+		for (Rules rules : Rules.values()) {
+			GameStore store = new GameStore(2000);
+			new SimulationRunner(rules, Policy.GREEDY, 64).run(0, 2000, 2, store);
+			assertEquals(2000, store.size());
+			BatchSimulator sim = new BatchSimulator(rules, Policy.GREEDY, 1);
+			for (long i = 0; i != store.size(); ++i) {
+				sim.reset(0, store.getSeed(i));
+				for (int p = 0; p != 4; ++p) {
+					assertEquals(sim.getHand(0, p), store.getDeal(i, p));
+				}
+				while (sim.step() > 0) {
+				}
+				for (int p = 0; p != 4; ++p) {
+					assertEquals(sim.getScore(0, p), store.getScore(i, p));
+				}
+				assertEquals(sim.getWinners(0), store.getWinners(i));
+				assertEquals(sim.getHandsPlayed(0), store.getHandsPlayed(i));
+			}
+		}
+	}
+
+	/**
+	 * Check that scanning a store gives the same tally as the runner which
+	 * filled it.
+	 *
+	 * @throws InterruptedException
+	 */
+	@Test public void testScanMatchesRunner() throws InterruptedException {
+		GameStore store = new GameStore(5000);
+		Tally expected = new SimulationRunner(Rules.CLASSIC, Policy.RANDOM, 128).run(100, 5000, 3, store);
+		Tally actual = store.scan(4, Tally::new, (t, i) -> t.record(store, i), Tally::add);
+		actual.addPlays(expected.getPlays());
+		assertEquals(expected, actual);
+	}
+
+	/**
+	 * Check that records are kept intact when appended across the boundary
+	 * between two buffers.
+	 */
+	@Test public void testAppendAcrossChunks() {
+		int count = GameStore.CHUNK_RECORDS + 10;
+		GameStore store = new GameStore(count);
+		ByteBuffer records = ByteBuffer.allocate((count - 5) * GameStore.RECORD_SIZE).order(ByteOrder.nativeOrder());
+		for (int i = 0; i != count - 5; ++i) {
+			records.putLong(i * GameStore.RECORD_SIZE, i);
+		}
+		store.append(records);
+		store.append(ByteBuffer.allocate(5 * GameStore.RECORD_SIZE));
+		assertEquals(count, store.size());
+		for (int i = 0; i < count - 5; i += 4099) {
+			assertEquals(i, store.getSeed(i));
+		}
+		assertEquals(GameStore.CHUNK_RECORDS, store.getSeed(GameStore.CHUNK_RECORDS));
+		assertEquals(0, store.getSeed(count - 1));
+		assertThrows(IllegalStateException.class, () -> store.append(ByteBuffer.allocate(GameStore.RECORD_SIZE)));
+	}
+
+	/**
+	 * Check that records given in the other byte order to the store's are read
+	 * in that order, rather than having their fields scrambled.
+	 */
+	@Test public void testAppendOtherByteOrder() {
+		ByteOrder other = ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN ? ByteOrder.BIG_ENDIAN
+				: ByteOrder.LITTLE_ENDIAN;
+		GameStore store = new GameStore(100);
+		ByteBuffer records = ByteBuffer.allocate(100 * GameStore.RECORD_SIZE).order(other);
+		for (int i = 0; i != 100; ++i) {
+			int offset = i * GameStore.RECORD_SIZE;
+			records.putLong(offset, 1000L * i + 1);
+			records.put(offset + 21, (byte) 0b0101);
+			records.putShort(offset + 22, (short) (i + 300));
+			records.put(offset + 24, (byte) i);
+		}
+		store.append(records);
+		for (int i = 0; i != 100; ++i) {
+			assertEquals(1000L * i + 1, store.getSeed(i));
+			assertEquals(0b0101, store.getWinners(i));
+			assertEquals(i + 300, store.getHandsPlayed(i));
+			assertEquals(i, store.getScore(i, 0));
+		}
+	}
+}
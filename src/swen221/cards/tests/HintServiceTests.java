@@ -0,0 +1,159 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.cards.tests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.junit.jupiter.api.Test;
+
+import swen221.cards.core.*;
+import swen221.cards.util.AbstractCardGame;
+import swen221.cards.util.HintService;
+import swen221.cards.util.HintService.Hint;
+import swen221.cards.variations.ClassicWhist;
+
+/**
+ * Tests which check that <code>HintService</code> suggests legal cards,
+ * finishes with a complete hint, and stops once cancelled.
+ *
+ */
+public class HintServiceTests {
+
+	/**
+	 * Check that an analysis which runs to the end reports a legal card, and
+	 * that its final hint (and only that one) is complete.
+	 *
+	 * @throws Exception
+	 */
+	@Test public void testCompleteHint() throws Exception {
+		CardGame game = newGame(38);
+		// Give the player something to follow
+		playCard(game);
+		List<Hint> hints = new ArrayList<>();
+		HintService service = new HintService(Runnable::run, 2000);
+		Future<?> analysis = service.analyse(game.getState(), hints::add);
+		assertTrue(analysis.isDone());
+		Hint last = hints.get(hints.size() - 1);
+		assertTrue(last.isComplete());
+		assertTrue(last.getPlayouts() >= 2000);
+		for (Hint hint : hints.subList(0, hints.size() - 1)) {
+			assertFalse(hint.isComplete());
+		}
+		Player.Direction player = game.getTrick().getNextToPlay();
+		assertTrue(isLegal(game, player, last.getCard()));
+		assertTrue(last.getExpectedTricks() >= 0 && last.getExpectedTricks() <= 13);
+	}
+
+	/**
+	 * Check that a player with only one legal card is told to play it straight
+	 * away, and that nothing is reported when there is no trick.
+	 *
+	 * @throws Exception
+	 */
+	@Test public void testNothingToDecide() throws Exception {
+		// NORTH and EAST swap the two of clubs and ace of hearts, so EAST holds
+		// only one club
+		List<Card> deck = new ArrayList<>();
+		Card.Rank[] ranks = Card.Rank.values();
+		for (int i = 0; i != 13; ++i) {
+			deck.add(i == 0 ? new Card(Card.Suit.HEARTS, ranks[12]) : new Card(Card.Suit.CLUBS, ranks[i]));
+			deck.add(i == 12 ? new Card(Card.Suit.CLUBS, ranks[0]) : new Card(Card.Suit.HEARTS, ranks[i]));
+			deck.add(new Card(Card.Suit.DIAMONDS, ranks[i]));
+			deck.add(new Card(Card.Suit.SPADES, ranks[i]));
+		}
+		CardGame game = new ClassicWhist();
+		game.deal(deck);
+		List<Hint> hints = new ArrayList<>();
+		HintService service = new HintService(Runnable::run, Integer.MAX_VALUE);
+		service.analyse(game.getState(), hints::add);
+		assertTrue(hints.isEmpty());
+		game.startRound();
+		game.play(Player.Direction.NORTH, new Card(Card.Suit.CLUBS, Card.Rank.ACE));
+		service.analyse(game.getState(), hints::add);
+		assertEquals(1, hints.size());
+		assertTrue(hints.get(0).isComplete());
+		assertEquals(new Card(Card.Suit.CLUBS, ranks[0]), hints.get(0).getCard());
+	}
+
+	/**
+	 * Check that an analysis which would otherwise run (almost) forever stops
+	 * once cancelled, reporting nothing further and freeing its thread.
+	 *
+	 * @throws Exception
+	 */
+	@Test public void testCancel() throws Exception {
+		ThreadPoolExecutor executor = (ThreadPoolExecutor) Executors.newFixedThreadPool(1);
+		try {
+			CardGame game = newGame(38);
+			BlockingQueue<Hint> hints = new LinkedBlockingQueue<>();
+			HintService service = new HintService(executor, Integer.MAX_VALUE);
+			Future<?> analysis = service.analyse(game.getState(), hints::add);
+			// Wait until the analysis is properly under way
+			Hint first = hints.poll(10, TimeUnit.SECONDS);
+			assertNotNull(first);
+			assertFalse(first.isComplete());
+			analysis.cancel(true);
+			long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+			while (executor.getActiveCount() != 0 && System.nanoTime() < end) {
+				Thread.sleep(1);
+			}
+			assertEquals(0, executor.getActiveCount());
+			hints.clear();
+			Thread.sleep(300);
+			assertTrue(hints.isEmpty());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	// ===========================================================================
+	// Helpers
+	// ===========================================================================
+
+	/**
+	 * Create a game of classic whist, dealt from a deck shuffled with a given
+	 * seed, with the first trick started.
+	 */
+	private static CardGame newGame(long seed) {
+		CardGame game = new ClassicWhist();
+		List<Card> deck = AbstractCardGame.createDeck();
+		Collections.shuffle(deck, new Random(seed));
+		game.deal(deck);
+		game.startRound();
+		return game;
+	}
+
+	/**
+	 * Check whether a given player can legally play a given card.
+	 */
+	private static boolean isLegal(CardGame game, Player.Direction player, Card card) {
+		try {
+			game.clone().play(player, card);
+			return true;
+		} catch (IllegalMove e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Play the lowest card which follows suit for the next player.
+	 */
+	private static void playCard(CardGame game) throws IllegalMove {
+		Player.Direction d = game.getTrick().getNextToPlay();
+		Hand hand = game.getPlayer(d).getHand();
+		List<Card> played = game.getTrick().getCardsPlayed();
+		if (!played.isEmpty()) {
+			for (Card card : hand) {
+				if (card.suit() == played.get(0).suit()) {
+					game.play(d, card);
+					return;
+				}
+			}
+		}
+		game.play(d, hand.iterator().next());
+	}
+}
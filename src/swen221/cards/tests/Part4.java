@@ -272,6 +272,19 @@ public class Part4 {
 		checkCardPlayed(hand[3],trumps,played,hand);
 	}
 
+	/**
+	 * Test AI does not try to win with the suit led once a trump is winning.
+	 *
+	 * @throws IllegalMove
+	 */
+	@Test public void testSimpleAI_20() throws IllegalMove {
+		Card.Suit trumps = SPADES;
+		Card[] played = { new Card(HEARTS,FIVE),new Card(SPADES,TWO),new Card(HEARTS,KING) };
+		Card hand[] = { new Card(HEARTS,ACE),new Card(HEARTS,THREE) };
+		// the two of trumps is winning, so the ace cannot win and the three is discarded
+		checkCardPlayed(hand[1],trumps,played,hand);
+	}
+
 	private void checkCardPlayed(Card expected, Card.Suit trumps,
 			Card[] played, Card[] hand) throws IllegalMove {
 		
@@ -0,0 +1,132 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.cards.tests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+
+import org.junit.jupiter.api.Test;
+
+import swen221.cards.core.*;
+import swen221.cards.util.AbstractCardGame;
+import swen221.cards.util.AbstractComputerPlayer;
+import swen221.cards.util.Ponderer;
+import swen221.cards.util.SimpleComputerPlayer;
+import swen221.cards.variations.ClassicWhist;
+
+/**
+ * Tests which check that the responses looked up from a
+ * <code>Ponderer</code> are those the computer players would have chosen
+ * anyway. Pondering is run on the calling thread, so that it has always
+ * finished before anything is looked up.
+ *
+ */
+public class PondererTests {
+
+	/**
+	 * Check that, for every card the human could play, the responses looked up
+	 * match those worked out afresh, whichever seat the human is in.
+	 *
+	 * @throws Exception
+	 */
+	@Test public void testLookupMatchesFreshMoves() throws Exception {
+		int matched = 0;
+		for (long seed = 0; seed != 10; ++seed) {
+			for (Player.Direction human : Player.Direction.values()) {
+				CardGame game = newGame(seed);
+				// Play up to the human's turn
+				while (game.getTrick().getNextToPlay() != human) {
+					Player.Direction d = game.getTrick().getNextToPlay();
+					game.play(d, new SimpleComputerPlayer(game.getPlayer(d)).getNextCard(game.getTrick()));
+				}
+				Ponderer ponderer = new Ponderer(Runnable::run);
+				ponderer.ponder(game, computerPlayers(game, human));
+				for (Card card : game.getPlayer(human).getHand()) {
+					matched += checkResponses(ponderer, game.clone(), human, card);
+				}
+			}
+		}
+		assertTrue(matched > 100);
+	}
+
+	/**
+	 * Check that nothing is looked up once the ponderer has been cleared, nor
+	 * in a trick it has not pondered.
+	 *
+	 * @throws Exception
+	 */
+	@Test public void testClear() throws Exception {
+		CardGame game = newGame(39);
+		Ponderer ponderer = new Ponderer(Runnable::run);
+		Trick trick = game.getTrick();
+		assertNull(ponderer.lookup(trick));
+		ponderer.ponder(game, computerPlayers(game, Player.Direction.NORTH));
+		game.play(Player.Direction.NORTH, game.getPlayer(Player.Direction.NORTH).getHand().iterator().next());
+		assertNotNull(ponderer.lookup(trick));
+		ponderer.clear();
+		assertNull(ponderer.lookup(trick));
+	}
+
+	// ===========================================================================
+	// Helpers
+	// ===========================================================================
+
+	/**
+	 * Play a given card for the human, and then check the response of each
+	 * computer player following them in the trick, returning how many were
+	 * looked up.
+	 */
+	private static int checkResponses(Ponderer ponderer, CardGame game, Player.Direction human, Card card)
+			throws IllegalMove {
+		try {
+			game.play(human, card);
+		} catch (IllegalMove e) {
+			// The human cannot play this card, so there is nothing to ponder
+			return 0;
+		}
+		int matched = 0;
+		Player.Direction next = game.getTrick().getNextToPlay();
+		while (next != null) {
+			Card fresh = new SimpleComputerPlayer(game.getPlayer(next)).getNextCard(game.getTrick());
+			assertEquals(fresh, ponderer.lookup(game.getTrick()));
+			if (fresh == null) {
+				// The simple player can fail to choose a card, and then nothing
+				// after it is pondered either
+				return matched;
+			}
+			game.play(next, fresh);
+			next = game.getTrick().getNextToPlay();
+			matched++;
+		}
+		return matched;
+	}
+
+	/**
+	 * Create a game of classic whist, dealt from a deck shuffled with a given
+	 * seed, with the first trick started.
+	 */
+	private static CardGame newGame(long seed) {
+		CardGame game = new ClassicWhist();
+		List<Card> deck = AbstractCardGame.createDeck();
+		Collections.shuffle(deck, new Random(seed));
+		game.deal(deck);
+		game.startRound();
+		return game;
+	}
+
+	/**
+	 * Seat a simple computer player in every direction but the human's.
+	 */
+	private static Map<Player.Direction, AbstractComputerPlayer> computerPlayers(CardGame game,
+			Player.Direction human) {
+		Map<Player.Direction, AbstractComputerPlayer> players = new EnumMap<>(Player.Direction.class);
+		for (Player.Direction d : Player.Direction.values()) {
+			if (d != human) {
+				players.put(d, new SimpleComputerPlayer(game.getPlayer(d)));
+			}
+		}
+		return players;
+	}
+}
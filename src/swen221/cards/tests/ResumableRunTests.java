@@ -0,0 +1,74 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.cards.tests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.BitSet;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import swen221.cards.simulation.*;
+
+/**
+ * Tests which check that a simulation resumed from a checkpoint gives the same
+ * tally as one run from the start.
+ *
+ */
+public class ResumableRunTests {
+
+	/**
+	 * Check that a run resumed part way through only plays the blocks not yet
+	 * complete.
+	 *
+	 * @throws Exception
+	 */
+	@Test public void testResumeSkipsCompletedBlocks() throws Exception {
+		SimulationRunner runner = new SimulationRunner(Rules.SINGLE_HAND, Policy.RANDOM, 256);
+		long count = 4 * ResumableRun.BLOCK_SIZE + 123;
+		Path file = Files.createTempFile("whist", ".ckpt");
+		try {
+			// Pretend that an earlier run finished the first and third blocks
+			BitSet completed = new BitSet();
+			Tally tally = new Tally();
+			for (int block : new int[] { 0, 2 }) {
+				completed.set(block);
+				tally.add(runner.run(7 + (long) block * ResumableRun.BLOCK_SIZE, ResumableRun.BLOCK_SIZE));
+			}
+			new Checkpoint(Rules.SINGLE_HAND, Policy.RANDOM, 7, count, ResumableRun.BLOCK_SIZE, completed, tally)
+					.write(file);
+			ResumableRun run = new ResumableRun(runner, file, 10, TimeUnit.MILLISECONDS);
+			assertEquals(runner.run(7, count), run.run(7, count, 2));
+			assertEquals(3, run.getBlocksPlayed());
+			// The final checkpoint records that every block is complete
+			Checkpoint end = Checkpoint.read(file);
+			assertEquals(5, end.getCompletedCount());
+			assertEquals(runner.run(7, count), run.run(7, count, 2));
+			assertEquals(0, run.getBlocksPlayed());
+		} finally {
+			Files.deleteIfExists(file);
+		}
+	}
+
+	/**
+	 * Check that a checkpoint for a different run is not used.
+	 *
+	 * @throws Exception
+	 */
+	@Test public void testDifferentRunRejected() throws Exception {
+		Path file = Files.createTempFile("whist", ".ckpt");
+		try {
+			new Checkpoint(Rules.CLASSIC, Policy.GREEDY, 0, 100, 10, new BitSet(), new Tally()).write(file);
+			ResumableRun run = new ResumableRun(new SimulationRunner(Rules.CLASSIC, Policy.RANDOM, 16), file, 1,
+					TimeUnit.SECONDS);
+			assertThrows(IOException.class, () -> run.run(0, 100, 1));
+		} finally {
+			Files.deleteIfExists(file);
+		}
+	}
+}
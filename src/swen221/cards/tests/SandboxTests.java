@@ -0,0 +1,85 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.cards.tests;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static swen221.cards.core.Card.Rank.*;
+import static swen221.cards.core.Card.Suit.*;
+
+import java.util.concurrent.*;
+
+import org.junit.jupiter.api.Test;
+
+import swen221.cards.core.Card;
+import swen221.cards.core.Player;
+import swen221.cards.core.Trick;
+import swen221.cards.util.AbstractComputerPlayer;
+import swen221.cards.util.Deadline;
+import swen221.cards.util.SandboxedComputerPlayer;
+import swen221.cards.util.SandboxedComputerPlayer.Violation;
+
+/**
+ * Tests which check that <code>SandboxedComputerPlayer</code> contains a
+ * computer player which overruns its time limit.
+ *
+ */
+public class SandboxTests {
+
+	/**
+	 * A player which ignores interrupts, and only plays once it is released.
+	 */
+	public static class StuckPlayer extends AbstractComputerPlayer {
+		volatile boolean released;
+
+		/**
+		 * Construct a stuck player.
+		 *
+		 * @param player Key player information.
+		 */
+		public StuckPlayer(Player player) {
+			super(player);
+		}
+
+		@Override
+		public Card getNextCard(Trick trick) {
+			while (!released) {
+				Thread.onSpinWait();
+			}
+			return new Card(HEARTS, ACE);
+		}
+	}
+
+	/**
+	 * Check that a player which ignores its interrupt is given no more threads
+	 * until its abandoned thread finishes, after which it plays again.
+	 *
+	 * @throws Exception
+	 */
+	@Test public void testOverrunQuarantined() throws Exception {
+		Player player = new Player(Player.Direction.NORTH);
+		player.getHand().add(new Card(HEARTS, ACE));
+		player.getHand().add(new Card(CLUBS, TWO));
+		StuckPlayer stuck = new StuckPlayer(player);
+		SandboxedComputerPlayer sandbox = new SandboxedComputerPlayer(stuck, 20, TimeUnit.MILLISECONDS);
+		ThreadPoolExecutor executor = (ThreadPoolExecutor) Executors.newCachedThreadPool();
+		try {
+			Trick trick = new Trick(Player.Direction.NORTH, null);
+			for (int i = 0; i != 5; ++i) {
+				Card card = sandbox.getNextCardAsync(trick, Deadline.none(), executor).get(10, TimeUnit.SECONDS);
+				assertEquals(new Card(CLUBS, TWO), card);
+			}
+			assertEquals(5, sandbox.getViolations(Violation.TIMEOUT));
+			assertEquals(1, executor.getPoolSize());
+			// Once released, the player's thread finishes and it plays again
+			stuck.released = true;
+			while (executor.getActiveCount() != 0) {
+				Thread.sleep(1);
+			}
+			assertEquals(new Card(HEARTS, ACE),
+					sandbox.getNextCardAsync(trick, Deadline.none(), executor).get(10, TimeUnit.SECONDS));
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+}
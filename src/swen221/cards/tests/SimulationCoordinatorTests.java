@@ -0,0 +1,70 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.cards.tests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.*;
+import java.net.Socket;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import swen221.cards.simulation.*;
+
+/**
+ * Tests which check that games shared between worker processes are tallied
+ * exactly as if they were played in this program.
+ *
+ */
+public class SimulationCoordinatorTests {
+
+	/**
+	 * Check that several workers together produce the same tally as a single
+	 * runner.
+	 *
+	 * @throws Exception
+	 */
+	@Test public void testWorkersMatchRunner() throws Exception {
+		Tally expected = new SimulationRunner(Rules.SINGLE_HAND, Policy.GREEDY, 256).run(0, 60_000);
+		try (SimulationCoordinator coordinator = new SimulationCoordinator(Rules.SINGLE_HAND, Policy.GREEDY, 0,
+				60_000, 20_000)) {
+			coordinator.start();
+			List<Process> workers = coordinator.launchLocalWorkers(3, 1);
+			assertEquals(expected, coordinator.await());
+			for (Process worker : workers) {
+				assertEquals(0, worker.waitFor());
+			}
+		}
+	}
+
+	/**
+	 * Check that the range of a worker which disconnects part way through is
+	 * handed to another worker.
+	 *
+	 * @throws Exception
+	 */
+	@Test public void testCrashedWorkerIsReplaced() throws Exception {
+		Tally expected = new SimulationRunner(Rules.KNOCK_OUT, Policy.RANDOM, 256).run(500, 30_000);
+		try (SimulationCoordinator coordinator = new SimulationCoordinator(Rules.KNOCK_OUT, Policy.RANDOM, 500,
+				30_000, 10_000)) {
+			coordinator.start();
+			// A worker which takes a range and then disappears without playing it
+			try (Socket socket = new Socket("localhost", coordinator.getPort())) {
+				DataInputStream in = new DataInputStream(socket.getInputStream());
+				DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+				assertEquals('C', in.readByte());
+				in.readUTF();
+				in.readUTF();
+				out.writeByte('W');
+				out.flush();
+				assertEquals('R', in.readByte());
+				assertEquals(500, in.readLong());
+			}
+			coordinator.launchLocalWorkers(1, 1);
+			assertEquals(expected, coordinator.await());
+			assertEquals(1, coordinator.getReassignedCount());
+		}
+	}
+}
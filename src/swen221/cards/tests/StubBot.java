@@ -0,0 +1,61 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.cards.tests;
+
+import java.io.*;
+
+/**
+ * A minimal external computer player, used to test
+ * <code>ExternalBotClient</code>. It always plays the lowest legal card, where
+ * cards are ordered by their identifiers. Answers are flushed only when no
+ * further requests are waiting, so that batches of requests are answered in
+ * batches. Given the argument <code>exit</code>, it quits straight away (as a
+ * crashed player would); given <code>noisy</code>, it writes lines which are
+ * not valid answers before each answer; and given <code>silent</code>, it
+ * never answers (as a hung player would).
+ *
+ */
+public class StubBot {
+	/**
+	 * Run the stub player over standard input and output.
+	 *
+	 * @param args Either empty, <code>exit</code>, <code>noisy</code> or
+	 *             <code>silent</code>.
+	 * @throws IOException If there is a problem communicating.
+	 */
+	public static void main(String[] args) throws IOException {
+		String mode = args.length == 0 ? "" : args[0];
+		if (mode.equals("exit")) {
+			return;
+		}
+		BufferedReader in = new BufferedReader(new InputStreamReader(System.in));
+		PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out)));
+		String line;
+		while ((line = in.readLine()) != null && !line.equals("quit")) {
+			String[] parts = line.split(" ");
+			if (parts[0].equals("move") && !mode.equals("silent")) {
+				if (mode.equals("noisy")) {
+					out.println("info " + parts[1] + " thinking");
+					out.println("play x 0");
+				}
+				out.println("play " + parts[1] + " " + decide(parts[4], Long.parseUnsignedLong(parts[5], 16)));
+			}
+			if (!in.ready()) {
+				out.flush();
+			}
+		}
+		out.flush();
+	}
+
+	private static int decide(String played, long hand) {
+		if (!played.equals("-")) {
+			int lead = Integer.parseInt(played.split(",")[0]);
+			long follow = hand & (((1L << 13) - 1) << (13 * (lead / 13)));
+			if (follow != 0) {
+				return Long.numberOfTrailingZeros(follow);
+			}
+		}
+		return Long.numberOfTrailingZeros(hand);
+	}
+}
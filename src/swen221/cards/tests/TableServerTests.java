@@ -0,0 +1,206 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.cards.tests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.junit.jupiter.api.Test;
+
+import swen221.cards.core.*;
+import swen221.cards.server.Table;
+import swen221.cards.server.TableServer;
+import swen221.cards.util.AbstractComputerPlayer;
+import swen221.cards.variations.*;
+
+/**
+ * Tests which check that <code>TableServer</code> plays many tables to
+ * completion, and that a table reports a computer player which fails.
+ *
+ */
+public class TableServerTests {
+
+	/**
+	 * A player which plays the first card in its hand which follows suit, if
+	 * possible, and otherwise the first card held.
+	 */
+	public static class FirstLegalPlayer extends AbstractComputerPlayer {
+		/**
+		 * Construct a player which plays its first legal card.
+		 *
+		 * @param player Key player information.
+		 */
+		public FirstLegalPlayer(Player player) {
+			super(player);
+		}
+
+		@Override
+		public Card getNextCard(Trick trick) {
+			List<Card> played = trick.getCardsPlayed();
+			if (!played.isEmpty()) {
+				for (Card card : player.getHand()) {
+					if (card.suit() == played.get(0).suit()) {
+						return card;
+					}
+				}
+			}
+			return player.getHand().iterator().next();
+		}
+	}
+
+	/**
+	 * Check that many tables, sharing a single computer player thread with a
+	 * small queue (so that tables often decide moves on their own threads),
+	 * all play their games to completion.
+	 *
+	 * @throws Exception
+	 */
+	@Test public void testManyTables() throws Exception {
+		TableServer server = new TableServer(1, 4);
+		try {
+			List<CardGame> games = new ArrayList<>();
+			List<Table> tables = new ArrayList<>();
+			for (int i = 0; i != 300; ++i) {
+				CardGame game = i % 3 == 0 ? new ClassicWhist()
+						: i % 3 == 1 ? new KnockOutWhist() : new SingleHandWhist();
+				Map<Player.Direction, AbstractComputerPlayer> computerPlayers = new EnumMap<>(Player.Direction.class);
+				for (Player.Direction d : Player.Direction.values()) {
+					computerPlayers.put(d, new FirstLegalPlayer(game.getPlayer(d)));
+				}
+				games.add(game);
+				tables.add(server.openTable(game, computerPlayers));
+			}
+			for (Table table : tables) {
+				table.start();
+			}
+			for (int i = 0; i != tables.size(); ++i) {
+				Set<Player.Direction> winners = tables.get(i).getResult().get(30, TimeUnit.SECONDS);
+				assertFalse(winners.isEmpty());
+				assertTrue(games.get(i).isGameFinished());
+				assertEquals(games.get(i).getWinnersOfGame(), winners);
+			}
+			assertEquals(300, server.getTableCount());
+		} finally {
+			server.shutdown();
+		}
+		assertEquals(0, server.getTableCount());
+	}
+
+	/**
+	 * Check that messages posted to a table from several threads at once are
+	 * run one at a time, and in the order each thread posted them, even when
+	 * there are many more than are drained in one go.
+	 *
+	 * @throws Exception
+	 */
+	@Test public void testMailboxOrder() throws Exception {
+		TableServer server = new TableServer(1, 4);
+		ExecutorService senders = Executors.newFixedThreadPool(4);
+		try {
+			Table table = server.openTable(new ClassicWhist(), Collections.emptyMap());
+			// Only ever touched by messages, so needs no locking
+			List<Integer> received = new ArrayList<>();
+			List<Future<?>> sent = new ArrayList<>();
+			for (int s = 0; s != 4; ++s) {
+				int sender = s;
+				sent.add(senders.submit(() -> {
+					for (int i = 0; i != 1000; ++i) {
+						int message = sender * 1000 + i;
+						table.send(() -> received.add(message));
+					}
+				}));
+			}
+			for (Future<?> f : sent) {
+				f.get(10, TimeUnit.SECONDS);
+			}
+			CompletableFuture<List<Integer>> done = new CompletableFuture<>();
+			table.send(() -> done.complete(new ArrayList<>(received)));
+			List<Integer> messages = done.get(10, TimeUnit.SECONDS);
+			assertEquals(4000, messages.size());
+			int[] next = new int[4];
+			for (int message : messages) {
+				assertEquals(next[message / 1000]++, message % 1000);
+			}
+		} finally {
+			senders.shutdownNow();
+			server.shutdown();
+		}
+	}
+
+	/**
+	 * Check that a computer player which throws completes the table's result
+	 * exceptionally with that exception.
+	 *
+	 * @throws Exception
+	 */
+	@Test public void testPlayerFails() throws Exception {
+		RuntimeException error = new RuntimeException("player failed");
+		Table table = checkFailed(game -> new FirstLegalPlayer(game.getPlayer(Player.Direction.EAST)) {
+			@Override
+			public Card getNextCard(Trick trick) {
+				throw error;
+			}
+		});
+		ExecutionException e = assertThrows(ExecutionException.class,
+				() -> table.getResult().get(10, TimeUnit.SECONDS));
+		assertSame(error, e.getCause());
+	}
+
+	/**
+	 * Check that a computer player which attempts an illegal move completes
+	 * the table's result exceptionally.
+	 *
+	 * @throws Exception
+	 */
+	@Test public void testPlayerCheats() throws Exception {
+		Table table = checkFailed(game -> new FirstLegalPlayer(game.getPlayer(Player.Direction.EAST)) {
+			@Override
+			public Card getNextCard(Trick trick) {
+				// The lead player's card, which is no longer in anyone's hand
+				return trick.getCardsPlayed().get(0);
+			}
+		});
+		ExecutionException e = assertThrows(ExecutionException.class,
+				() -> table.getResult().get(10, TimeUnit.SECONDS));
+		assertTrue(e.getCause().getCause() instanceof IllegalMove);
+	}
+
+	// ===========================================================================
+	// Helpers
+	// ===========================================================================
+
+	private interface PlayerFactory {
+		AbstractComputerPlayer create(CardGame game);
+	}
+
+	/**
+	 * Start a table where EAST is created by a given factory, and the other
+	 * players play their first legal card, returning the table once its
+	 * result has completed.
+	 */
+	private static Table checkFailed(PlayerFactory east) throws Exception {
+		TableServer server = new TableServer(1, 4);
+		try {
+			CardGame game = new ClassicWhist();
+			Map<Player.Direction, AbstractComputerPlayer> computerPlayers = new EnumMap<>(Player.Direction.class);
+			for (Player.Direction d : Player.Direction.values()) {
+				computerPlayers.put(d, d == Player.Direction.EAST ? east.create(game)
+						: new FirstLegalPlayer(game.getPlayer(d)));
+			}
+			Table table = server.openTable(game, computerPlayers);
+			table.start();
+			try {
+				table.getResult().get(10, TimeUnit.SECONDS);
+			} catch (ExecutionException e) {
+				// Checked by the caller
+			}
+			assertTrue(table.getResult().isCompletedExceptionally());
+			return table;
+		} finally {
+			server.shutdown();
+		}
+	}
+}
@@ -0,0 +1,182 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.cards.tests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import swen221.cards.core.Card;
+import swen221.cards.core.IllegalMove;
+import swen221.cards.core.Player;
+import swen221.cards.core.Trick;
+import swen221.cards.simulation.TrickResolver;
+
+/**
+ * Differential tests which check that <code>TrickResolver</code> and
+ * <code>Trick.getWinner()</code> agree with a plain statement of the rules.
+ *
+ */
+public class TrickResolverTests {
+
+	/**
+	 * Test every lead card against every possible follower, for every choice of
+	 * trumps.
+	 *
+	 * @throws IllegalMove
+	 */
+	@Test public void testExhaustivePairs() throws IllegalMove {
+		int n = 0;
+		int[][] tricks = new int[5 * 52 * 51][];
+		int[] trumps = new int[tricks.length];
+		for (int t = -1; t != 4; ++t) {
+			for (int a = 0; a != 52; ++a) {
+				for (int b = 0; b != 52; ++b) {
+					if (a != b) {
+						// The other two cards are the lowest not already used
+						int[] cards = { a, b, 0, 0 };
+						for (int i = 2, c = 0; i != 4; ++c) {
+							if (c != a && c != b && (i == 2 || c != cards[2])) {
+								cards[i++] = c;
+							}
+						}
+						tricks[n] = cards;
+						trumps[n++] = t;
+					}
+				}
+			}
+		}
+		checkTricks(tricks, trumps, new Random(1));
+	}
+
+	/**
+	 * Test many random tricks.
+	 *
+	 * @throws IllegalMove
+	 */
+	@Test public void testRandomTricks() throws IllegalMove {
+		Random random = new Random(2);
+		int[][] tricks = new int[100_000][];
+		int[] trumps = new int[tricks.length];
+		for (int i = 0; i != tricks.length; ++i) {
+			tricks[i] = randomTrick(random);
+			trumps[i] = random.nextInt(5) - 1;
+		}
+		checkTricks(tricks, trumps, random);
+	}
+
+	/**
+	 * Test random tricks where every card is of the suit led or trumps.
+	 *
+	 * @throws IllegalMove
+	 */
+	@Test public void testContestedTricks() throws IllegalMove {
+		Random random = new Random(3);
+		int[][] tricks = new int[100_000][];
+		int[] trumps = new int[tricks.length];
+		for (int i = 0; i != tricks.length; ++i) {
+			int lead = random.nextInt(4);
+			int trump = random.nextInt(4);
+			int[] cards = new int[4];
+			long used = 0;
+			for (int j = 0; j != 4; ++j) {
+				int card;
+				do {
+					int suit = j == 0 || random.nextBoolean() ? lead : trump;
+					card = suit * 13 + random.nextInt(13);
+				} while ((used & (1L << card)) != 0);
+				used |= 1L << card;
+				cards[j] = card;
+			}
+			tricks[i] = cards;
+			trumps[i] = trump;
+		}
+		checkTricks(tricks, trumps, random);
+	}
+
+	// ===========================================================================
+	// Helpers
+	// ===========================================================================
+
+	private static int[] randomTrick(Random random) {
+		int[] cards = new int[4];
+		long used = 0;
+		for (int j = 0; j != 4; ++j) {
+			int card;
+			do {
+				card = random.nextInt(52);
+			} while ((used & (1L << card)) != 0);
+			used |= 1L << card;
+			cards[j] = card;
+		}
+		return cards;
+	}
+
+	/**
+	 * Check the resolver and <code>Trick.getWinner()</code> against the
+	 * reference winner for a set of tricks, each led by a random player.
+	 */
+	private static void checkTricks(int[][] tricks, int[] trumps, Random random) throws IllegalMove {
+		int n = tricks.length;
+		int[] first = new int[n], second = new int[n], third = new int[n], fourth = new int[n];
+		int[] leaders = new int[n];
+		int[] expected = new int[n];
+		for (int i = 0; i != n; ++i) {
+			int[] cards = tricks[i];
+			first[i] = cards[0];
+			second[i] = cards[1];
+			third[i] = cards[2];
+			fourth[i] = cards[3];
+			leaders[i] = random.nextInt(4);
+			expected[i] = referenceWinner(cards, leaders[i], trumps[i]);
+			assertEquals(expected[i], getWinner(cards, leaders[i], trumps[i]));
+			assertEquals(expected[i], TrickResolver.winner(cards, leaders[i], trumps[i]));
+		}
+		int[] winners = new int[n];
+		TrickResolver.resolve(n, first, second, third, fourth, leaders, trumps, winners);
+		for (int i = 0; i != n; ++i) {
+			if (winners[i] != expected[i]) {
+				fail("trick " + i + " resolved to " + winners[i] + ", expected " + expected[i]);
+			}
+		}
+	}
+
+	/**
+	 * Determine the winner of a trick directly from the rules: the highest
+	 * trump wins if any was played, otherwise the highest card of the suit led.
+	 * This deliberately shares no code with <code>CardStrength</code>.
+	 */
+	private static int referenceWinner(int[] cards, int leader, int trumps) {
+		int winning = 0;
+		for (int i = 1; i != 4; ++i) {
+			int suit = cards[i] / 13;
+			int best = cards[winning] / 13;
+			if (suit == trumps && best != trumps) {
+				winning = i;
+			} else if (suit == best && cards[i] % 13 > cards[winning] % 13) {
+				winning = i;
+			}
+		}
+		return (leader + winning) % 4;
+	}
+
+	/**
+	 * Determine the winner of a trick using <code>Trick.getWinner()</code>.
+	 */
+	private static int getWinner(int[] cards, int leader, int trumps) throws IllegalMove {
+		Player.Direction lead = Player.Direction.values()[leader];
+		Trick trick = new Trick(lead, trumps < 0 ? null : Card.Suit.values()[trumps]);
+		Player.Direction d = lead;
+		for (int card : cards) {
+			// Each player holds only the card they play, so it always follows suit
+			Player ghost = new Player(d);
+			ghost.getHand().add(Card.fromId(card));
+			trick.play(ghost, Card.fromId(card));
+			d = d.next();
+		}
+		return trick.getWinner().ordinal();
+	}
+}
@@ -3,15 +3,10 @@
 // You may not distribute it in any other way without permission.
 package swen221.cards.util;
 
-import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
 import java.util.*;
 
 import swen221.cards.core.*;
 import swen221.cards.core.Player.Direction;
-import swen221.cards.variations.ClassicWhist;
-import swen221.cards.variations.KnockOutWhist;
-import swen221.cards.variations.SingleHandWhist;
 
 /**
  * Represents an abstract whist-like card game. This provides a common
@@ -53,6 +48,24 @@ public abstract class AbstractCardGame implements CardGame, Cloneable {
 	 */
 	protected Trick currentTrick;
 
+	/**
+	 * The listeners registered with this game. This array is replaced (rather
+	 * than modified) whenever a listener is added or removed, so that events
+	 * can be dispatched without allocating.
+	 */
+	private volatile GameListener[] listeners = NO_LISTENERS;
+
+	private static final GameListener[] NO_LISTENERS = new GameListener[0];
+
+	/**
+	 * The most recently published state of this game. This is replaced after
+	 * every change to the game, and can be safely read by any thread. Until
+	 * the first hand is dealt, this is the state of a new game; capturing it
+	 * in the constructor would call <code>isGameFinished()</code> before the
+	 * variation is initialised.
+	 */
+	private volatile GameState state = GameState.NEW_GAME;
+
 	/**
 	 * Construct a new (abstract) card game where each player initially has taken no
 	 * tricks, and has no score.
@@ -69,35 +82,14 @@ public abstract class AbstractCardGame implements CardGame, Cloneable {
 	// Methods required for Cloneable
 	// ========================================================
 
+	/**
+	 * Make a deep copy of this game, by way of its snapshot (see
+	 * <code>GameSnapshot</code>). The copy has the same variation as this game,
+	 * but none of its listeners.
+	 */
 	@Override
-	public CardGame clone(){
-		// This clone method used the default clone method found in
-		// java.lang.Object. This creates a shallow copy of the card game. For
-		// Part 3 of the assignment, you need to re-implement this to perform a
-		// deep clone.
-		
-		ClassicWhist clonedGame = new ClassicWhist();
-		
-		clonedGame.players.put(Direction.NORTH, this.getPlayer(Direction.NORTH).clone());
-		clonedGame.players.put(Direction.EAST, this.getPlayer(Direction.EAST).clone());
-		clonedGame.players.put(Direction.SOUTH, this.getPlayer(Direction.SOUTH).clone());
-		clonedGame.players.put(Direction.WEST, this.getPlayer(Direction.WEST).clone());
-		
-		Map<Player.Direction, Integer> copyTricks = this.getTricksWon();
-		for(Map.Entry<Player.Direction, Integer> entry : copyTricks.entrySet()) {
-			clonedGame.tricks.put(entry.getKey(), entry.getValue());
-		}
-		
-		Map<Player.Direction, Integer> copyScores = this.getOverallScores();
-		for(Map.Entry<Player.Direction, Integer> entry : copyScores.entrySet()) {
-			clonedGame.scores.put(entry.getKey(), entry.getValue());
-		}
-		if(this.getTrick() != null) {
-			clonedGame.currentTrick = this.getTrick().clone();
-		}
-		clonedGame.trumps = this.trumps;
-		return (CardGame) clonedGame;
-		
+	public CardGame clone() {
+		return GameSnapshot.copy(this);
 	}
 
 	// ========================================================
@@ -152,10 +144,39 @@ public abstract class AbstractCardGame implements CardGame, Cloneable {
 		return scores;
 	}
 
+	@Override
+	public GameState getState() {
+		return state;
+	}
+
+	@Override
+	public synchronized void addGameListener(GameListener listener) {
+		GameListener[] nListeners = Arrays.copyOf(listeners, listeners.length + 1);
+		nListeners[listeners.length] = listener;
+		listeners = nListeners;
+	}
+
+	@Override
+	public synchronized void removeGameListener(GameListener listener) {
+		for (int i = 0; i != listeners.length; ++i) {
+			if (listeners[i] == listener) {
+				GameListener[] nListeners = new GameListener[listeners.length - 1];
+				System.arraycopy(listeners, 0, nListeners, 0, i);
+				System.arraycopy(listeners, i + 1, nListeners, i, nListeners.length - i);
+				listeners = nListeners;
+				return;
+			}
+		}
+	}
+
 	@Override
 	public void play(Direction player, Card card) throws IllegalMove {
 		Player pl = players.get(player);
 		currentTrick.play(pl, card);
+		publishState();
+		for (GameListener l : listeners) {
+			l.cardPlayed(player, card);
+		}
 	}
 
 	@Override
@@ -167,6 +188,7 @@ public abstract class AbstractCardGame implements CardGame, Cloneable {
 		}
 		// Second, start a new trick
 		currentTrick = new Trick(d,trumps);
+		publishState();
 	}
 
 	@Override
@@ -174,6 +196,10 @@ public abstract class AbstractCardGame implements CardGame, Cloneable {
 		// Score previous round
 		Player.Direction winner = currentTrick.getWinner();
 		tricks.put(winner, tricks.get(winner) + 1);
+		publishState();
+		for (GameListener l : listeners) {
+			l.trickWon(winner);
+		}
 	}
 
 	@Override
@@ -183,12 +209,67 @@ public abstract class AbstractCardGame implements CardGame, Cloneable {
 		resetTricksWon();
 		// now cycle trumps
 		trumps = nextTrumps(currentTrick.getTrumps());
+		publishState();
+		// finally, notify any listeners
+		GameListener[] ls = listeners;
+		for (GameListener l : ls) {
+			l.handEnded();
+		}
+		for (GameListener l : ls) {
+			l.trumpsChanged(trumps);
+		}
+		if (ls.length > 0 && isGameFinished()) {
+			for (GameListener l : ls) {
+				l.gameFinished();
+			}
+		}
 	}
 
 	// ========================================================
 	// Helper methods
 	// ========================================================
 
+	/**
+	 * Signal that a new hand has been dealt. Implementations of
+	 * <code>deal()</code> should call this once the cards are in the players'
+	 * hands.
+	 */
+	protected void dealFinished() {
+		publishState();
+		for (GameListener l : listeners) {
+			l.handDealt();
+		}
+	}
+
+	/**
+	 * Get any state held by a variation beyond that of this class, packed into
+	 * an integer. This is included in the game's snapshot (see
+	 * <code>GameSnapshot</code>) and in the start state of a recording (see
+	 * <code>GameRecording</code>), and given back to
+	 * <code>setVariantState()</code> when either is restored.
+	 *
+	 * @return The variation's state (zero by default).
+	 */
+	protected int getVariantState() {
+		return 0;
+	}
+
+	/**
+	 * Restore the state returned by <code>getVariantState()</code>.
+	 *
+	 * @param state The variation's state.
+	 */
+	protected void setVariantState(int state) {
+	}
+
+	/**
+	 * Publish the current state of this game, so that it is visible to other
+	 * threads. This should be called after every change to the game.
+	 */
+	protected void publishState() {
+		state = GameState.of(state.getVersion() + 1, this);
+	}
+
 	private void scoreHand() {
 		int maxScore = 0;
 		// first, calculate winning score
@@ -3,6 +3,8 @@
 // You may not distribute it in any other way without permission.
 package swen221.cards.util;
 
+import java.util.concurrent.*;
+
 import swen221.cards.core.*;
 
 /**
@@ -39,6 +41,87 @@ public abstract class AbstractComputerPlayer {
 	 */
 	abstract public Card getNextCard(Trick trick);
 
+	/**
+	 * Get the next card to be played by this computer player in a given trick,
+	 * taking into account how long is left to decide. By default, the deadline
+	 * is ignored; however, players which search for a move should override
+	 * this to stop once the deadline expires.
+	 *
+	 * @param trick    The trick being played.
+	 * @param deadline The time by which the card must be chosen.
+	 * @return The card to play next.
+	 */
+	protected Card getNextCard(Trick trick, Deadline deadline) {
+		return getNextCard(trick);
+	}
+
+	/**
+	 * Get the next card to be played by this computer player in a given trick,
+	 * without blocking the caller. The card is decided on a shared pool of
+	 * threads.
+	 *
+	 * @param trick    The trick being played.
+	 * @param deadline The time by which the card must be chosen.
+	 * @return The card to play next, which completes exceptionally (with a
+	 *         <code>TimeoutException</code>) if the deadline expires first.
+	 */
+	public CompletableFuture<Card> getNextCardAsync(Trick trick, Deadline deadline) {
+		return getNextCardAsync(trick, deadline, Pool.EXECUTOR);
+	}
+
+	/**
+	 * Get the next card to be played by this computer player in a given trick,
+	 * without blocking the caller. By default, the card is decided on the given
+	 * executor using <code>getNextCard(Trick,Deadline)</code>. Players which
+	 * are naturally asynchronous (e.g. they wait on another process) can
+	 * override this to avoid occupying a thread whilst they wait. If the
+	 * returned future is cancelled, or times out, then the deadline is
+	 * cancelled as well so that the player can stop working.
+	 *
+	 * @param trick    The trick being played.
+	 * @param deadline The time by which the card must be chosen.
+	 * @param executor The executor on which to decide the card.
+	 * @return The card to play next, which completes exceptionally (with a
+	 *         <code>TimeoutException</code>) if the deadline expires first.
+	 */
+	public CompletableFuture<Card> getNextCardAsync(Trick trick, Deadline deadline, Executor executor) {
+		CompletableFuture<Card> result = CompletableFuture.supplyAsync(() -> {
+			if (deadline.isExpired()) {
+				throw new CancellationException("deadline expired before starting");
+			}
+			return getNextCard(trick, deadline);
+		}, executor);
+		long remaining = deadline.remaining(TimeUnit.NANOSECONDS);
+		if (remaining != Long.MAX_VALUE) {
+			result.orTimeout(remaining, TimeUnit.NANOSECONDS);
+		}
+		result.whenComplete((card, e) -> {
+			if (e != null) {
+				deadline.cancel();
+			}
+		});
+		return result;
+	}
+
+	/**
+	 * Create a new computer player of the same kind as this one, but with
+	 * different player information. This is used to try out moves on a copy of
+	 * the game, without disturbing this player. By default, the copy is made
+	 * using a public constructor which accepts the player information, hence
+	 * subclasses without such a constructor (or which carry other state) should
+	 * override this.
+	 *
+	 * @param player The player information for the copy.
+	 * @return The new computer player.
+	 */
+	public AbstractComputerPlayer copy(Player player) {
+		try {
+			return getClass().getConstructor(Player.class).newInstance(player);
+		} catch (ReflectiveOperationException e) {
+			throw new UnsupportedOperationException("cannot copy " + getClass().getName(), e);
+		}
+	}
+
 	/**
 	 * Set the current player information associated with this player.
 	 *
@@ -47,4 +130,17 @@ public abstract class AbstractComputerPlayer {
 	public void setPlayer(Player player) {
 		this.player = player;
 	}
+
+	/**
+	 * The pool used to decide moves when no executor is given. This is only
+	 * created when first needed.
+	 */
+	private static final class Pool {
+		private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(
+				Runtime.getRuntime().availableProcessors(), r -> {
+					Thread thread = new Thread(r, "computer-player");
+					thread.setDaemon(true);
+					return thread;
+				});
+	}
 }
@@ -0,0 +1,86 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.cards.util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A point in time by which some work (e.g. a computer player deciding its
+ * move) should be finished. A deadline can also be cancelled early, for
+ * example when the result is no longer needed. Long-running work should check
+ * <code>isExpired()</code> periodically, and give up (or return the best answer
+ * found so far) once it is.
+ *
+ */
+public final class Deadline {
+	/**
+	 * The time at which this deadline expires, as given by
+	 * <code>System.nanoTime()</code>.
+	 */
+	private final long expiry;
+	private volatile boolean cancelled;
+
+	private Deadline(long expiry) {
+		this.expiry = expiry;
+	}
+
+	/**
+	 * Construct a deadline which expires after a given amount of time from now.
+	 *
+	 * @param timeout The time allowed.
+	 * @param unit    The units of the time allowed.
+	 * @return The new deadline.
+	 */
+	public static Deadline after(long timeout, TimeUnit unit) {
+		return new Deadline(System.nanoTime() + unit.toNanos(timeout));
+	}
+
+	/**
+	 * Construct a deadline which never expires, unless cancelled.
+	 *
+	 * @return The new deadline.
+	 */
+	public static Deadline none() {
+		return new Deadline(Long.MAX_VALUE);
+	}
+
+	/**
+	 * Get the time remaining before this deadline expires.
+	 *
+	 * @param unit The units in which to return the time.
+	 * @return The time remaining, which is zero if this deadline has expired or
+	 *         been cancelled.
+	 */
+	public long remaining(TimeUnit unit) {
+		if (cancelled || expiry == Long.MAX_VALUE) {
+			return cancelled ? 0 : Long.MAX_VALUE;
+		}
+		return unit.convert(Math.max(0, expiry - System.nanoTime()), TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Check whether this deadline has passed, or been cancelled.
+	 *
+	 * @return <code>true</code> if work against this deadline should stop.
+	 */
+	public boolean isExpired() {
+		return cancelled || (expiry != Long.MAX_VALUE && expiry - System.nanoTime() <= 0);
+	}
+
+	/**
+	 * Check whether this deadline was cancelled.
+	 *
+	 * @return <code>true</code> if this deadline was cancelled.
+	 */
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	/**
+	 * Cancel this deadline, so that it expires immediately.
+	 */
+	public void cancel() {
+		cancelled = true;
+	}
+}
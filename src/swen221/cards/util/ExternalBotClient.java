@@ -0,0 +1,295 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.cards.util;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import swen221.cards.core.*;
+
+/**
+ * A connection to a computer player running outside this program, typically
+ * as a separate process. The two sides exchange lines of text over the
+ * process's standard input and output. Each decision is requested by a line of
+ * the form:
+ *
+ * <pre>
+ * move &lt;id&gt; &lt;trumps&gt; &lt;lead&gt; &lt;played&gt; &lt;hand&gt;
+ * </pre>
+ *
+ * where <code>id</code> identifies the request, <code>trumps</code> is the
+ * suit of trumps (e.g. <code>HEARTS</code>) or <code>-</code> for none,
+ * <code>lead</code> is the direction of the lead player, <code>played</code>
+ * is a comma-separated list of the cards played in the trick so far (or
+ * <code>-</code> if none), and <code>hand</code> is the hand of the player to
+ * move, as a hexadecimal mask. Cards are given by <code>Card.id()</code>. The
+ * external player answers each request with a line of the form:
+ *
+ * <pre>
+ * play &lt;id&gt; &lt;card&gt;
+ * </pre>
+ *
+ * or <code>error &lt;id&gt; &lt;message&gt;</code> if it cannot decide. Many
+ * requests (e.g. from different tables) may be outstanding at once, and the
+ * answers may come back in any order. Requests no longer needed are followed
+ * by <code>cancel &lt;id&gt;</code>, which the external player may ignore, and
+ * the connection ends with <code>quit</code>. To reduce the cost of talking to
+ * the other process, requests made at about the same time are written out
+ * together in a single batch.
+ *
+ */
+public class ExternalBotClient implements Closeable {
+	/**
+	 * The maximum number of lines written out in one batch.
+	 */
+	private static final int MAX_BATCH = 256;
+
+	/**
+	 * Marks the end of the outgoing messages.
+	 */
+	private static final String QUIT = "quit";
+
+	private final Process process;
+	private final BufferedReader in;
+	private final Writer out;
+	private final BlockingQueue<String> outgoing = new LinkedBlockingQueue<>();
+	private final Map<Long, CompletableFuture<Card>> pending = new ConcurrentHashMap<>();
+	private final AtomicLong nextId = new AtomicLong();
+	private final AtomicLong batches = new AtomicLong();
+	private volatile boolean closed;
+
+	// Whether close() has been called, which may be after the connection was
+	// lost; guarded by this object
+	private boolean quit;
+
+	/**
+	 * Start an external computer player as a new process.
+	 *
+	 * @param command The command (and its arguments) which starts the process.
+	 * @throws IOException If the process could not be started.
+	 */
+	public ExternalBotClient(String... command) throws IOException {
+		this(new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start());
+	}
+
+	private ExternalBotClient(Process process) {
+		this(process, process.getInputStream(), process.getOutputStream());
+	}
+
+	/**
+	 * Connect to an external computer player over a given pair of streams
+	 * (e.g. those of a socket).
+	 *
+	 * @param in  The stream on which answers are received.
+	 * @param out The stream on which requests are sent.
+	 */
+	public ExternalBotClient(InputStream in, OutputStream out) {
+		this(null, in, out);
+	}
+
+	private ExternalBotClient(Process process, InputStream in, OutputStream out) {
+		this.process = process;
+		this.in = new BufferedReader(new InputStreamReader(in, StandardCharsets.US_ASCII));
+		this.out = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.US_ASCII), 1 << 16);
+		start("bot-writer", this::writeLoop);
+		start("bot-reader", this::readLoop);
+	}
+
+	/**
+	 * Ask the external player which card to play in a given trick. The trick
+	 * and hand are encoded before this method returns, hence the caller may
+	 * change them as soon as it does.
+	 *
+	 * @param trick The trick being played.
+	 * @param hand  The hand of the player to move.
+	 * @return The card chosen, which completes exceptionally if the external
+	 *         player reports an error, or the connection is lost.
+	 */
+	public CompletableFuture<Card> request(Trick trick, Hand hand) {
+		long id = nextId.getAndIncrement();
+		CompletableFuture<Card> result = new CompletableFuture<>();
+		if (closed) {
+			result.completeExceptionally(new IOException("connection closed"));
+			return result;
+		}
+		pending.put(id, result);
+		// The connection may have been lost whilst the request was being added,
+		// after its outstanding requests had already failed
+		if (closed && pending.remove(id) != null) {
+			result.completeExceptionally(new IOException("connection closed"));
+			return result;
+		}
+		outgoing.add(encode(id, trick, hand));
+		// Let the external player know if the answer is no longer wanted
+		result.whenComplete((card, e) -> {
+			if (pending.remove(id) != null && !closed) {
+				outgoing.add("cancel " + id);
+			}
+		});
+		return result;
+	}
+
+	/**
+	 * Get the number of requests made so far.
+	 *
+	 * @return The number of requests.
+	 */
+	public long getRequestCount() {
+		return nextId.get();
+	}
+
+	/**
+	 * Get the number of batches written so far. Each batch is flushed to the
+	 * external player in one go.
+	 *
+	 * @return The number of batches.
+	 */
+	public long getBatchCount() {
+		return batches.get();
+	}
+
+	/**
+	 * Close the connection, asking the external player to quit. Any requests
+	 * still outstanding fail.
+	 */
+	@Override
+	public synchronized void close() {
+		if (!quit) {
+			quit = true;
+			closed = true;
+			outgoing.add(QUIT);
+			failAll(new IOException("connection closed"));
+			if (process != null) {
+				try {
+					if (!process.waitFor(1, TimeUnit.SECONDS)) {
+						process.destroy();
+					}
+				} catch (InterruptedException e) {
+					process.destroy();
+					Thread.currentThread().interrupt();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Encode a request for a decision.
+	 *
+	 * @param id    The identifier of the request.
+	 * @param trick The trick being played.
+	 * @param hand  The hand of the player to move.
+	 * @return The encoded request.
+	 */
+	static String encode(long id, Trick trick, Hand hand) {
+		StringBuilder line = new StringBuilder(64);
+		line.append("move ").append(id).append(' ');
+		line.append(trick.getTrumps() == null ? "-" : trick.getTrumps().name()).append(' ');
+		line.append(trick.getLeadPlayer().name()).append(' ');
+		List<Card> played = trick.getCardsPlayed();
+		if (played.isEmpty()) {
+			line.append('-');
+		}
+		for (int i = 0; i != played.size(); ++i) {
+			if (i != 0) {
+				line.append(',');
+			}
+			line.append(played.get(i).id());
+		}
+		line.append(' ').append(Long.toHexString(hand.mask()));
+		return line.toString();
+	}
+
+	private void writeLoop() {
+		List<String> batch = new ArrayList<>();
+		try {
+			while (true) {
+				// Wait for one line, then take whatever else is ready
+				batch.add(outgoing.take());
+				outgoing.drainTo(batch, MAX_BATCH - 1);
+				for (String line : batch) {
+					out.write(line);
+					out.write('\n');
+					if (line.equals(QUIT)) {
+						out.flush();
+						out.close();
+						return;
+					}
+				}
+				out.flush();
+				batches.incrementAndGet();
+				batch.clear();
+			}
+		} catch (IOException e) {
+			closed = true;
+			failAll(e);
+		} catch (InterruptedException e) {
+			// Nothing more to write
+		}
+	}
+
+	private void readLoop() {
+		try {
+			String line;
+			while ((line = in.readLine()) != null) {
+				String[] parts = line.split(" ", 3);
+				if (parts.length < 3 || !(parts[0].equals("play") || parts[0].equals("error"))) {
+					// Not an answer (e.g. diagnostic output), so ignore it
+					continue;
+				}
+				CompletableFuture<Card> result;
+				try {
+					result = pending.remove(Long.parseLong(parts[1]));
+				} catch (NumberFormatException e) {
+					continue;
+				}
+				if (result == null) {
+					// Cancelled, or never requested
+					continue;
+				} else if (parts[0].equals("play")) {
+					int card = parseCard(parts[2].trim());
+					if (card >= 0 && card < 52) {
+						result.complete(Card.fromId(card));
+					} else {
+						result.completeExceptionally(new IOException("invalid card: " + line));
+					}
+				} else {
+					result.completeExceptionally(new IOException(parts[2]));
+				}
+			}
+			closed = true;
+			failAll(new EOFException("external player has quit"));
+		} catch (IOException e) {
+			closed = true;
+			failAll(e);
+		}
+	}
+
+	private static int parseCard(String card) {
+		try {
+			return Integer.parseInt(card);
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+
+	private void failAll(IOException e) {
+		for (Long id : pending.keySet()) {
+			CompletableFuture<Card> result = pending.remove(id);
+			if (result != null) {
+				result.completeExceptionally(e);
+			}
+		}
+	}
+
+	private static void start(String name, Runnable loop) {
+		Thread thread = new Thread(loop, name);
+		thread.setDaemon(true);
+		thread.start();
+	}
+}
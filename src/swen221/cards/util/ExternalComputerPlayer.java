@@ -0,0 +1,89 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.cards.util;
+
+import java.util.concurrent.*;
+
+import swen221.cards.core.*;
+
+/**
+ * A computer player whose moves are decided outside this program, using an
+ * <code>ExternalBotClient</code>. Many players (e.g. at different tables) can
+ * share the same client, in which case their requests are sent together. No
+ * thread is tied up whilst waiting for a move to be decided.
+ *
+ */
+public class ExternalComputerPlayer extends AbstractComputerPlayer {
+	/**
+	 * The time (in milliseconds) the external player is allowed to decide each
+	 * move, unless another limit is given.
+	 */
+	public static final long DEFAULT_TIME_LIMIT = 10_000;
+
+	private final ExternalBotClient client;
+	private final long timeLimit;
+
+	/**
+	 * Construct a new external computer player, which is allowed the default
+	 * time limit for each move.
+	 *
+	 * @param player Key player information.
+	 * @param client The connection to the external player.
+	 */
+	public ExternalComputerPlayer(Player player, ExternalBotClient client) {
+		this(player, client, DEFAULT_TIME_LIMIT, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Construct a new external computer player.
+	 *
+	 * @param player    Key player information.
+	 * @param client    The connection to the external player.
+	 * @param timeLimit The time allowed for each move.
+	 * @param unit      The units of the time allowed.
+	 */
+	public ExternalComputerPlayer(Player player, ExternalBotClient client, long timeLimit, TimeUnit unit) {
+		super(player);
+		this.client = client;
+		this.timeLimit = unit.toNanos(timeLimit);
+	}
+
+	/**
+	 * Ask the external player for its move, and wait for the answer.
+	 *
+	 * @throws CompletionException If the external player fails, or does not
+	 *                             answer within the time limit (in which case
+	 *                             the cause is a <code>TimeoutException</code>
+	 *                             saying so).
+	 */
+	@Override
+	public Card getNextCard(Trick trick) {
+		try {
+			return getNextCardAsync(trick, Deadline.none(), null).join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof TimeoutException) {
+				throw new CompletionException(new TimeoutException(player.getDirection()
+						+ ": no move from external player within " + TimeUnit.NANOSECONDS.toMillis(timeLimit) + "ms"));
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Ask the external player for its move, which must be decided within the
+	 * time limit (or the given deadline, if sooner). The executor is not used,
+	 * since no thread is needed whilst waiting.
+	 */
+	@Override
+	public CompletableFuture<Card> getNextCardAsync(Trick trick, Deadline deadline, Executor executor) {
+		CompletableFuture<Card> result = client.request(trick, player.getHand());
+		result.orTimeout(Math.min(timeLimit, deadline.remaining(TimeUnit.NANOSECONDS)), TimeUnit.NANOSECONDS);
+		return result;
+	}
+
+	@Override
+	public AbstractComputerPlayer copy(Player player) {
+		return new ExternalComputerPlayer(player, client, timeLimit, TimeUnit.NANOSECONDS);
+	}
+}
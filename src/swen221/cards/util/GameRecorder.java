@@ -0,0 +1,64 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.cards.util;
+
+import swen221.cards.core.*;
+
+/**
+ * Records a game as it is played, so that it can be replayed later. Recording
+ * begins with the next hand dealt, from the state of the game at that point
+ * (e.g. its scores so far); any hand already in progress is ignored.
+ * For example:
+ *
+ * <pre>
+ * GameRecorder recorder = new GameRecorder(game);
+ * game.addGameListener(recorder);
+ * </pre>
+ *
+ */
+public class GameRecorder implements GameListener {
+	private final CardGame game;
+	private final GameRecording recording;
+	private boolean started;
+
+	/**
+	 * Construct a recorder for a given game.
+	 *
+	 * @param game The game to be recorded.
+	 */
+	public GameRecorder(CardGame game) {
+		this.game = game;
+		this.recording = new GameRecording(game.getClass());
+	}
+
+	/**
+	 * Get the recording made so far.
+	 *
+	 * @return The recording.
+	 */
+	public GameRecording getRecording() {
+		return recording;
+	}
+
+	@Override
+	public void handDealt() {
+		GameState state = game.getState();
+		long[] hands = new long[4];
+		for (Player.Direction d : Player.Direction.values()) {
+			hands[d.ordinal()] = state.getHand(d);
+		}
+		if (!started) {
+			recording.setStart(game);
+			started = true;
+		}
+		recording.addDeal(hands);
+	}
+
+	@Override
+	public void cardPlayed(Player.Direction player, Card card) {
+		if (started) {
+			recording.addPlay(player, card);
+		}
+	}
+}
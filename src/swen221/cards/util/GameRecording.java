@@ -0,0 +1,282 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.cards.util;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import swen221.cards.core.*;
+
+/**
+ * A record of a game, consisting of the kind of game played, the state of the
+ * game once the first hand was dealt, the cards dealt for each hand, and every
+ * card played in order. This is enough to replay the game exactly, even if
+ * the recording began part way through. Recordings are stored as plain text,
+ * for example:
+ *
+ * <pre>
+ * game swen221.cards.variations.ClassicWhist
+ * start CLUBS 1 0 1 0 0
+ * deal 0 5 9 ... 
+ * play NORTH 12
+ * play EAST 3
+ * ...
+ * </pre>
+ *
+ * Here, the start state gives trumps (or <code>NONE</code>), the score of each
+ * player starting with NORTH, and any state kept by the variation. Each deal
+ * lists (by identifier) the cards in the order they were dealt, starting with
+ * NORTH. Recordings without a start state begin with a new game.
+ *
+ */
+public class GameRecording {
+	private final String kind;
+	/**
+	 * The state of the game once the first hand was dealt, or
+	 * <code>null</code> if none was recorded. This holds the ordinal of trumps
+	 * (or <code>-1</code> for no trumps), the score of each player indexed by
+	 * direction, and finally the state of the variation.
+	 */
+	private int[] start;
+	private final List<int[]> decks = new ArrayList<>();
+	private int[] plays = new int[64];
+	private int playCount;
+
+	/**
+	 * Construct an empty recording for a given kind of game.
+	 *
+	 * @param kind The class of game being recorded.
+	 */
+	public GameRecording(Class<? extends CardGame> kind) {
+		this(kind.getName());
+	}
+
+	private GameRecording(String kind) {
+		this.kind = kind;
+	}
+
+	/**
+	 * Create a new game of the kind recorded.
+	 *
+	 * @return A new game, ready to be dealt.
+	 */
+	public CardGame newGame() {
+		try {
+			return (CardGame) Class.forName(kind).getDeclaredConstructor().newInstance();
+		} catch (ReflectiveOperationException | ClassCastException e) {
+			throw new IllegalArgumentException("cannot create game " + kind, e);
+		}
+	}
+
+	/**
+	 * Record the state of the game once the first hand was dealt, so that a
+	 * replay can begin from it (e.g. with the scores and trumps of a game
+	 * already in progress).
+	 *
+	 * @param game The game, which must extend <code>AbstractCardGame</code>.
+	 */
+	public void setStart(CardGame game) {
+		AbstractCardGame g = (AbstractCardGame) game;
+		start = new int[6];
+		start[0] = g.trumps == null ? -1 : g.trumps.ordinal();
+		for (Player.Direction d : Player.Direction.values()) {
+			start[1 + d.ordinal()] = g.scores.get(d);
+		}
+		start[5] = g.getVariantState();
+	}
+
+	/**
+	 * Get the state of the game once the first hand was dealt.
+	 *
+	 * @return A new game in that state, or <code>null</code> if none was
+	 *         recorded.
+	 */
+	public CardGame getStart() {
+		if (start == null) {
+			return null;
+		}
+		AbstractCardGame game = (AbstractCardGame) newGame();
+		game.trumps = start[0] < 0 ? null : Card.Suit.values()[start[0]];
+		for (Player.Direction d : Player.Direction.values()) {
+			game.scores.put(d, start[1 + d.ordinal()]);
+		}
+		game.setVariantState(start[5]);
+		game.deal(getDeck(0));
+		return game;
+	}
+
+	/**
+	 * Record that a new hand was dealt.
+	 *
+	 * @param hands The hand of each player (as a bit mask), indexed by
+	 *              direction.
+	 */
+	public void addDeal(long[] hands) {
+		// Reconstruct a deck which deals out to exactly these hands
+		int size = Long.bitCount(hands[0]);
+		int[] deck = new int[size * 4];
+		long[] remaining = Arrays.copyOf(hands, 4);
+		for (int i = 0; i != deck.length; ++i) {
+			long mask = remaining[i % 4];
+			deck[i] = Long.numberOfTrailingZeros(mask);
+			remaining[i % 4] = mask & (mask - 1);
+		}
+		decks.add(deck);
+	}
+
+	/**
+	 * Record that a given player played a given card.
+	 *
+	 * @param player The player who played the card.
+	 * @param card   The card which was played.
+	 */
+	public void addPlay(Player.Direction player, Card card) {
+		if (playCount == plays.length) {
+			plays = Arrays.copyOf(plays, plays.length * 2);
+		}
+		plays[playCount++] = (player.ordinal() << 6) | card.id();
+	}
+
+	/**
+	 * Get the number of hands dealt in this recording.
+	 *
+	 * @return The number of deals.
+	 */
+	public int getDealCount() {
+		return decks.size();
+	}
+
+	/**
+	 * Get the deck used for a given deal, in the order cards were dealt.
+	 *
+	 * @param deal The index of the deal.
+	 * @return The deck which was dealt.
+	 */
+	public List<Card> getDeck(int deal) {
+		int[] deck = decks.get(deal);
+		ArrayList<Card> cards = new ArrayList<>(deck.length);
+		for (int id : deck) {
+			cards.add(Card.fromId(id));
+		}
+		return cards;
+	}
+
+	/**
+	 * Get the number of cards played in this recording.
+	 *
+	 * @return The number of plays.
+	 */
+	public int getPlayCount() {
+		return playCount;
+	}
+
+	/**
+	 * Get the player who made a given play.
+	 *
+	 * @param play The index of the play.
+	 * @return The player who played the card.
+	 */
+	public Player.Direction getPlayer(int play) {
+		return Player.Direction.values()[plays[play] >> 6];
+	}
+
+	/**
+	 * Get the card played in a given play.
+	 *
+	 * @param play The index of the play.
+	 * @return The card which was played.
+	 */
+	public Card getCard(int play) {
+		return Card.fromId(plays[play] & 63);
+	}
+
+	/**
+	 * Write this recording out as text.
+	 *
+	 * @param writer Where to write the recording.
+	 * @throws IOException If the recording could not be written.
+	 */
+	public void write(Writer writer) throws IOException {
+		PrintWriter out = new PrintWriter(writer);
+		out.println("game " + kind);
+		if (start != null) {
+			out.print("start " + (start[0] < 0 ? "NONE" : Card.Suit.values()[start[0]].name()));
+			for (int i = 1; i != start.length; ++i) {
+				out.print(" " + start[i]);
+			}
+			out.println();
+		}
+		int play = 0;
+		for (int[] deck : decks) {
+			out.print("deal");
+			for (int id : deck) {
+				out.print(" " + id);
+			}
+			out.println();
+			// Write out the plays for this deal
+			for (int i = 0; i != deck.length && play < playCount; ++i, ++play) {
+				out.println("play " + getPlayer(play) + " " + getCard(play).id());
+			}
+		}
+		out.flush();
+		if (out.checkError()) {
+			throw new IOException("error writing recording");
+		}
+	}
+
+	/**
+	 * Read a recording previously written by <code>write()</code>.
+	 *
+	 * @param reader Where to read the recording from.
+	 * @return The recording read.
+	 * @throws IOException If the recording could not be read, or is malformed.
+	 */
+	public static GameRecording read(Reader reader) throws IOException {
+		BufferedReader in = new BufferedReader(reader);
+		String line = in.readLine();
+		if (line == null || !line.startsWith("game ")) {
+			throw new IOException("missing game kind");
+		}
+		GameRecording recording = new GameRecording(line.substring(5).trim());
+		try {
+			while ((line = in.readLine()) != null) {
+				String[] parts = line.trim().split(" +");
+				if (parts[0].equals("start") && parts.length == 7) {
+					int[] start = new int[6];
+					start[0] = parts[1].equals("NONE") ? -1 : Card.Suit.valueOf(parts[1]).ordinal();
+					for (int i = 1; i != start.length; ++i) {
+						start[i] = Integer.parseInt(parts[i + 1]);
+					}
+					recording.start = start;
+				} else if (parts[0].equals("deal")) {
+					int[] deck = new int[parts.length - 1];
+					for (int i = 0; i != deck.length; ++i) {
+						deck[i] = checkId(Integer.parseInt(parts[i + 1]));
+					}
+					recording.decks.add(deck);
+				} else if (parts[0].equals("play") && parts.length == 3) {
+					Card card = Card.fromId(checkId(Integer.parseInt(parts[2])));
+					recording.addPlay(Player.Direction.valueOf(parts[1]), card);
+				} else if (!parts[0].isEmpty()) {
+					throw new IOException("unexpected line: " + line);
+				}
+			}
+		} catch (IllegalArgumentException e) {
+			throw new IOException("malformed recording: " + line, e);
+		}
+		if (recording.start != null && recording.decks.isEmpty()) {
+			throw new IOException("start state without a deal");
+		}
+		return recording;
+	}
+
+	private static int checkId(int id) throws IOException {
+		if (id < 0 || id >= 52) {
+			throw new IOException("invalid card " + id);
+		}
+		return id;
+	}
+}
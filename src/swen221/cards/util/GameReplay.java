@@ -0,0 +1,99 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.cards.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import swen221.cards.core.*;
+
+/**
+ * Allows a recorded game to be viewed from any point. When the replay is
+ * constructed, the recording is played through once and a copy of the game
+ * (a "keyframe") is kept at the start of every trick. Seeking to any play then
+ * requires copying the nearest keyframe, and replaying at most four cards,
+ * irrespective of how long the game is.
+ *
+ */
+public class GameReplay {
+	private final GameRecording recording;
+	/**
+	 * The game at the start of each trick, indexed by trick number. Since every
+	 * trick has exactly four plays, trick <code>k</code> begins with play
+	 * <code>4k</code>.
+	 */
+	private final List<CardGame> keyframes = new ArrayList<>();
+
+	/**
+	 * Construct a replay of a given recording.
+	 *
+	 * @param recording The recording to replay.
+	 * @throws IllegalMove If the recording contains an illegal move.
+	 */
+	public GameReplay(GameRecording recording) throws IllegalMove {
+		this.recording = recording;
+		// The first hand is already dealt in the start state, if there is one
+		CardGame start = recording.getStart();
+		CardGame game = start != null ? start : recording.newGame();
+		int play = 0;
+		for (int deal = 0; deal != recording.getDealCount() && play < recording.getPlayCount(); ++deal) {
+			if (deal != 0 || start == null) {
+				game.deal(recording.getDeck(deal));
+			}
+			while (!game.isHandFinished() && play < recording.getPlayCount()) {
+				game.startRound();
+				keyframes.add(game.clone());
+				for (int i = 0; i != 4 && play < recording.getPlayCount(); ++i, ++play) {
+					game.play(recording.getPlayer(play), recording.getCard(play));
+				}
+				if (game.getTrick().getNextToPlay() == null) {
+					game.endRound();
+				}
+			}
+			if (game.isHandFinished()) {
+				game.endHand();
+			}
+		}
+	}
+
+	/**
+	 * Get the number of cards played in the recording.
+	 *
+	 * @return The number of plays which can be seeked to.
+	 */
+	public int length() {
+		return recording.getPlayCount();
+	}
+
+	/**
+	 * Get the game as it was once a given number of cards had been played. The
+	 * game returned is a fresh copy, which may be freely modified.
+	 *
+	 * @param position The number of cards played, between <code>0</code> and
+	 *                 <code>length()</code>.
+	 * @return The game at the given position.
+	 */
+	public CardGame seek(int position) {
+		if (position < 0 || position > length()) {
+			throw new IndexOutOfBoundsException("position " + position);
+		} else if (keyframes.isEmpty()) {
+			CardGame start = recording.getStart();
+			return start != null ? start : recording.newGame();
+		} else if (position == 0) {
+			return keyframes.get(0).clone();
+		}
+		// Show a completed trick, rather than the start of the next one
+		int trick = (position - 1) / 4;
+		CardGame game = keyframes.get(trick).clone();
+		try {
+			for (int play = trick * 4; play != position; ++play) {
+				game.play(recording.getPlayer(play), recording.getCard(play));
+			}
+		} catch (IllegalMove e) {
+			// Cannot happen, as every play was checked when the keyframes were built
+			throw new IllegalStateException(e);
+		}
+		return game;
+	}
+}
@@ -0,0 +1,214 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.cards.util;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+import swen221.cards.core.*;
+import swen221.cards.variations.ClassicWhist;
+import swen221.cards.variations.KnockOutWhist;
+import swen221.cards.variations.SingleHandWhist;
+
+/**
+ * Encodes the complete state of a game as a few dozen bytes, from which an
+ * identical game can be restored. Snapshots can be stored (e.g. to save a game
+ * and resume it later), sent to other processes, or decoded straight away to
+ * copy a game. The encoding is as follows:
+ *
+ * <pre>
+ * size  field
+ *  1    version
+ *  1    variation (or 127, followed by the class name)
+ *  1    trumps (suit ordinal, or -1 for none)
+ *  4    variation-specific state (see AbstractCardGame.getVariantState())
+ *  4    tricks won by each player
+ *  4    overall score of each player
+ *  7    cards held, as a mask
+ * 13    holder of each card (2 bits per card)
+ *  1    lead player of the current trick (or -1 if there is none)
+ *  1    trumps of the current trick
+ *  1    number of cards played in the current trick
+ *  n    cards played in the current trick
+ * </pre>
+ *
+ * Cards are given by their identifiers (see <code>Card.id()</code>), and
+ * players and suits by their ordinals. Listeners registered with a game are not
+ * part of its snapshot.
+ *
+ */
+public final class GameSnapshot {
+	private static final byte VERSION = 1;
+
+	/**
+	 * Marks a variation not listed in <code>VARIATIONS</code>, which is
+	 * identified by its class name instead.
+	 */
+	private static final byte OTHER = 127;
+
+	/**
+	 * The known variations, identified by their index.
+	 */
+	private static final List<Class<? extends AbstractCardGame>> VARIATIONS = List.of(ClassicWhist.class,
+			KnockOutWhist.class, SingleHandWhist.class);
+	private static final List<Supplier<AbstractCardGame>> CONSTRUCTORS = List.of(ClassicWhist::new,
+			KnockOutWhist::new, SingleHandWhist::new);
+
+	private GameSnapshot() {
+	}
+
+	/**
+	 * Encode the state of a game.
+	 *
+	 * @param game The game, which must extend <code>AbstractCardGame</code>.
+	 * @return The encoded state.
+	 * @throws IllegalArgumentException If the game's state cannot be accessed.
+	 */
+	public static byte[] encode(CardGame game) {
+		if (!(game instanceof AbstractCardGame)) {
+			throw new IllegalArgumentException("cannot snapshot " + game.getClass().getName());
+		}
+		AbstractCardGame g = (AbstractCardGame) game;
+		int variation = VARIATIONS.indexOf(g.getClass());
+		byte[] name = variation < 0 ? g.getClass().getName().getBytes(StandardCharsets.UTF_8) : new byte[0];
+		ByteBuffer out = ByteBuffer.allocate(48 + name.length);
+		out.put(VERSION);
+		if (variation < 0) {
+			out.put(OTHER);
+			out.putShort((short) name.length);
+			out.put(name);
+		} else {
+			out.put((byte) variation);
+		}
+		out.put(ordinal(g.trumps));
+		out.putInt(g.getVariantState());
+		for (Player.Direction d : Player.Direction.values()) {
+			out.put(g.tricks.get(d).byteValue());
+		}
+		for (Player.Direction d : Player.Direction.values()) {
+			out.put(g.scores.get(d).byteValue());
+		}
+		// Each card is either held by a player, or not held at all
+		long held = 0;
+		byte[] holders = new byte[13];
+		for (Player.Direction d : Player.Direction.values()) {
+			long mask = g.players.get(d).getHand().mask();
+			held |= mask;
+			for (long cards = mask; cards != 0; cards &= cards - 1) {
+				int card = Long.numberOfTrailingZeros(cards);
+				holders[card >> 2] |= d.ordinal() << ((card & 3) * 2);
+			}
+		}
+		for (int i = 0; i != 7; ++i) {
+			out.put((byte) (held >>> (i * 8)));
+		}
+		out.put(holders);
+		Trick trick = g.currentTrick;
+		if (trick == null) {
+			out.put((byte) -1);
+		} else {
+			List<Card> played = trick.getCardsPlayed();
+			out.put((byte) trick.getLeadPlayer().ordinal());
+			out.put(ordinal(trick.getTrumps()));
+			out.put((byte) played.size());
+			for (Card card : played) {
+				out.put((byte) card.id());
+			}
+		}
+		return Arrays.copyOf(out.array(), out.position());
+	}
+
+	/**
+	 * Restore a game from its encoded state.
+	 *
+	 * @param bytes The encoded state, as produced by <code>encode()</code>.
+	 * @return A new game, in the encoded state.
+	 * @throws IllegalArgumentException If the bytes are not a valid snapshot.
+	 */
+	public static CardGame decode(byte[] bytes) {
+		try {
+			ByteBuffer in = ByteBuffer.wrap(bytes);
+			if (in.get() != VERSION) {
+				throw new IllegalArgumentException("unsupported snapshot version");
+			}
+			AbstractCardGame game = newGame(in);
+			game.trumps = suit(in.get());
+			game.setVariantState(in.getInt());
+			for (Player.Direction d : Player.Direction.values()) {
+				game.tricks.put(d, in.get() & 0xFF);
+			}
+			for (Player.Direction d : Player.Direction.values()) {
+				game.scores.put(d, in.get() & 0xFF);
+			}
+			long held = 0;
+			for (int i = 0; i != 7; ++i) {
+				held |= (in.get() & 0xFFL) << (i * 8);
+			}
+			byte[] holders = new byte[13];
+			in.get(holders);
+			Player.Direction[] directions = Player.Direction.values();
+			for (Player.Direction d : directions) {
+				game.players.get(d).getHand().clear();
+			}
+			for (long cards = held; cards != 0; cards &= cards - 1) {
+				int card = Long.numberOfTrailingZeros(cards);
+				int holder = (holders[card >> 2] >>> ((card & 3) * 2)) & 3;
+				game.players.get(directions[holder]).getHand().add(Card.fromId(card));
+			}
+			byte lead = in.get();
+			if (lead < 0) {
+				game.currentTrick = null;
+			} else {
+				Card.Suit trumps = suit(in.get());
+				List<Card> played = new ArrayList<>();
+				for (int i = in.get(); i > 0; --i) {
+					played.add(Card.fromId(in.get()));
+				}
+				game.currentTrick = new Trick(directions[lead], trumps, played);
+			}
+			game.publishState();
+			return game;
+		} catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+			throw new IllegalArgumentException("truncated or corrupt snapshot", e);
+		}
+	}
+
+	/**
+	 * Copy a game by encoding and then decoding it.
+	 *
+	 * @param game The game to copy.
+	 * @return The copy.
+	 */
+	public static CardGame copy(CardGame game) {
+		return decode(encode(game));
+	}
+
+	private static AbstractCardGame newGame(ByteBuffer in) {
+		byte variation = in.get();
+		if (variation != OTHER) {
+			return CONSTRUCTORS.get(variation).get();
+		}
+		byte[] name = new byte[in.getShort()];
+		in.get(name);
+		String className = new String(name, StandardCharsets.UTF_8);
+		try {
+			return (AbstractCardGame) Class.forName(className).getConstructor().newInstance();
+		} catch (ReflectiveOperationException | ClassCastException e) {
+			throw new IllegalArgumentException("cannot create " + className, e);
+		}
+	}
+
+	private static byte ordinal(Card.Suit suit) {
+		return (byte) (suit == null ? -1 : suit.ordinal());
+	}
+
+	private static Card.Suit suit(byte ordinal) {
+		return ordinal < 0 ? null : Card.Suit.values()[ordinal];
+	}
+}
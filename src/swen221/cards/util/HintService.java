@@ -0,0 +1,325 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.cards.util;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+
+import swen221.cards.core.*;
+
+/**
+ * Suggests which card a player should play next. Each analysis runs in the
+ * background, starting from an (immutable) snapshot of the game, and so never
+ * touches the game itself. The cards held by the other players are unknown,
+ * hence the analysis repeatedly deals them out at random and plays the rest of
+ * the hand through, picking random legal cards for everyone. The card which
+ * wins the most tricks on average is suggested. This is an "anytime" search:
+ * the suggestion is reported periodically, and becomes more reliable the
+ * longer the analysis runs. For example:
+ *
+ * <pre>
+ * Future&lt;?&gt; analysis = hints.analyse(game.getState(), hint -&gt; show(hint));
+ * ...
+ * analysis.cancel(true);
+ * </pre>
+ *
+ */
+public class HintService {
+	/**
+	 * The number of playouts made for each card between checks for
+	 * cancellation.
+	 */
+	private static final int BATCH_SIZE = 16;
+
+	/**
+	 * The minimum time between reported hints (in nanoseconds).
+	 */
+	private static final long REPORT_INTERVAL = 100_000_000L;
+
+	/**
+	 * The cards of a single suit, as a mask.
+	 */
+	private static final long SUIT_MASK = (1L << 13) - 1;
+
+	/**
+	 * A suggestion of which card to play.
+	 */
+	public static final class Hint {
+		private final Card card;
+		private final double expectedTricks;
+		private final int playouts;
+		private final boolean complete;
+
+		private Hint(Card card, double expectedTricks, int playouts, boolean complete) {
+			this.card = card;
+			this.expectedTricks = expectedTricks;
+			this.playouts = playouts;
+			this.complete = complete;
+		}
+
+		/**
+		 * Get the card suggested.
+		 *
+		 * @return The card to play.
+		 */
+		public Card getCard() {
+			return card;
+		}
+
+		/**
+		 * Get the average number of tricks won for the rest of this hand, when
+		 * playing the suggested card.
+		 *
+		 * @return The expected number of tricks.
+		 */
+		public double getExpectedTricks() {
+			return expectedTricks;
+		}
+
+		/**
+		 * Get the total number of playouts this suggestion is based on.
+		 *
+		 * @return The number of playouts.
+		 */
+		public int getPlayouts() {
+			return playouts;
+		}
+
+		/**
+		 * Check whether this is the final suggestion of the analysis.
+		 *
+		 * @return <code>true</code> if the analysis has finished.
+		 */
+		public boolean isComplete() {
+			return complete;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%s (%.1f tricks)", card, expectedTricks);
+		}
+	}
+
+	private final Executor executor;
+	private final int maxPlayouts;
+
+	/**
+	 * Construct a hint service which analyses on its own background thread,
+	 * making at most 50,000 playouts per analysis.
+	 */
+	public HintService() {
+		this(Executors.newSingleThreadExecutor(r -> {
+			Thread thread = new Thread(r, "hints");
+			thread.setDaemon(true);
+			return thread;
+		}), 50_000);
+	}
+
+	/**
+	 * Construct a hint service which analyses using a given executor.
+	 *
+	 * @param executor    The executor to run each analysis on.
+	 * @param maxPlayouts The number of playouts after which an analysis stops.
+	 */
+	public HintService(Executor executor, int maxPlayouts) {
+		this.executor = executor;
+		this.maxPlayouts = maxPlayouts;
+	}
+
+	/**
+	 * Begin analysing the options of the player next to play. The listener is
+	 * called (on the analysing thread) each time the suggestion is refined,
+	 * and finally with a complete suggestion. Nothing is reported if the
+	 * analysis is cancelled, or there is no player to play.
+	 *
+	 * @param state    The state of the game to analyse.
+	 * @param listener Receives the suggestions made.
+	 * @return The analysis, which can be cancelled.
+	 */
+	public Future<?> analyse(GameState state, Consumer<Hint> listener) {
+		FutureTask<Void> task = new FutureTask<>(() -> run(state, listener), null);
+		executor.execute(task);
+		return task;
+	}
+
+	private void run(GameState state, Consumer<Hint> listener) {
+		Player.Direction player = state.hasTrick() ? state.getNextToPlay() : null;
+		if (player == null) {
+			return;
+		}
+		Analysis analysis = new Analysis(state, player);
+		int[] candidates = analysis.candidates();
+		if (candidates.length == 1) {
+			// Nothing to decide
+			listener.accept(new Hint(Card.fromId(candidates[0]), Double.NaN, 0, true));
+			return;
+		}
+		long[] tricks = new long[candidates.length];
+		int playouts = 0;
+		long nextReport = System.nanoTime() + REPORT_INTERVAL;
+		while (playouts < maxPlayouts) {
+			for (int i = 0; i != candidates.length; ++i) {
+				for (int j = 0; j != BATCH_SIZE; ++j) {
+					tricks[i] += analysis.playout(candidates[i]);
+				}
+			}
+			playouts += BATCH_SIZE * candidates.length;
+			if (Thread.currentThread().isInterrupted()) {
+				return;
+			} else if (System.nanoTime() >= nextReport) {
+				listener.accept(best(candidates, tricks, playouts, false));
+				nextReport = System.nanoTime() + REPORT_INTERVAL;
+			}
+		}
+		listener.accept(best(candidates, tricks, playouts, true));
+	}
+
+	private static Hint best(int[] candidates, long[] tricks, int playouts, boolean complete) {
+		int best = 0;
+		for (int i = 1; i != candidates.length; ++i) {
+			if (tricks[i] > tricks[best]) {
+				best = i;
+			}
+		}
+		double perCard = playouts / candidates.length;
+		return new Hint(Card.fromId(candidates[best]), tricks[best] / perCard, playouts, complete);
+	}
+
+	/**
+	 * The position being analysed, represented using card masks and
+	 * identifiers (as given by <code>Card.id()</code>) so that playouts are
+	 * cheap. All arrays are indexed by direction.
+	 */
+	private static final class Analysis {
+		private final int me;
+		private final int lead;
+		private final int trumps;
+		private final long myHand;
+		private final int[] trick = new int[4];
+		private final int[] sizes = new int[4];
+		/**
+		 * The cards held by the other players, which are unknown to this player.
+		 */
+		private final int[] unknown;
+		private final SplittableRandom random = new SplittableRandom();
+		// Scratch space for playouts
+		private final long[] hands = new long[4];
+		private final int[] cards = new int[4];
+
+		Analysis(GameState state, Player.Direction player) {
+			this.me = player.ordinal();
+			this.lead = state.getLeadPlayer().ordinal();
+			this.trumps = state.getTrumps() == null ? -1 : state.getTrumps().ordinal();
+			this.myHand = state.getHand(player);
+			long others = 0;
+			for (Player.Direction d : Player.Direction.values()) {
+				Card played = state.getCardPlayed(d);
+				trick[d.ordinal()] = played == null ? -1 : played.id();
+				sizes[d.ordinal()] = state.getHandSize(d);
+				if (d != player) {
+					others |= state.getHand(d);
+				}
+			}
+			this.unknown = new int[Long.bitCount(others)];
+			for (int i = 0; others != 0; ++i, others &= others - 1) {
+				unknown[i] = Long.numberOfTrailingZeros(others);
+			}
+		}
+
+		/**
+		 * Determine the cards this player can legally play.
+		 *
+		 * @return The identifiers of the legal cards.
+		 */
+		int[] candidates() {
+			long legal = legal(myHand, me == lead ? -1 : trick[lead] / 13);
+			int[] candidates = new int[Long.bitCount(legal)];
+			for (int i = 0; legal != 0; ++i, legal &= legal - 1) {
+				candidates[i] = Long.numberOfTrailingZeros(legal);
+			}
+			return candidates;
+		}
+
+		/**
+		 * Play out the rest of the hand after this player plays a given card,
+		 * with the unknown cards dealt at random.
+		 *
+		 * @param card The card played by this player.
+		 * @return The number of tricks won by this player.
+		 */
+		int playout(int card) {
+			// Deal out the unknown cards
+			for (int i = unknown.length - 1; i > 0; --i) {
+				int j = random.nextInt(i + 1);
+				int tmp = unknown[i];
+				unknown[i] = unknown[j];
+				unknown[j] = tmp;
+			}
+			for (int d = 0, k = 0; d != 4; ++d) {
+				hands[d] = 0;
+				if (d != me) {
+					for (int i = 0; i != sizes[d]; ++i) {
+						hands[d] |= 1L << unknown[k++];
+					}
+				}
+			}
+			hands[me] = myHand & ~(1L << card);
+			System.arraycopy(trick, 0, cards, 0, 4);
+			cards[me] = card;
+			// Play the remaining tricks
+			int leader = lead;
+			int won = 0;
+			while (true) {
+				for (int i = 0; i != 4; ++i) {
+					int d = (leader + i) & 3;
+					if (cards[d] < 0) {
+						cards[d] = choose(hands[d], i == 0 ? -1 : cards[leader] / 13);
+						hands[d] &= ~(1L << cards[d]);
+					}
+				}
+				leader = winner(leader);
+				if (leader == me) {
+					won++;
+				}
+				if ((hands[0] | hands[1] | hands[2] | hands[3]) == 0) {
+					return won;
+				}
+				cards[0] = cards[1] = cards[2] = cards[3] = -1;
+			}
+		}
+
+		private int choose(long hand, int suit) {
+			long legal = legal(hand, suit);
+			for (int k = random.nextInt(Long.bitCount(legal)); k > 0; --k) {
+				legal &= legal - 1;
+			}
+			return Long.numberOfTrailingZeros(legal);
+		}
+
+		private int winner(int leader) {
+			int suit = cards[leader] / 13;
+			int winner = leader;
+			int best = CardStrength.strength(cards[leader], trumps, suit);
+			for (int d = 0; d != 4; ++d) {
+				int strength = CardStrength.strength(cards[d], trumps, suit);
+				if (strength > best) {
+					best = strength;
+					winner = d;
+				}
+			}
+			return winner;
+		}
+
+		private static long legal(long hand, int suit) {
+			if (suit >= 0) {
+				long follow = hand & (SUIT_MASK << (13 * suit));
+				if (follow != 0) {
+					return follow;
+				}
+			}
+			return hand;
+		}
+	}
+}
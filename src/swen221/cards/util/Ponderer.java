@@ -0,0 +1,126 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.cards.util;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+
+import swen221.cards.core.*;
+
+/**
+ * Lets computer players think whilst a human player is deciding their move.
+ * For each card the human could play, the ponderer works out (in the
+ * background) how the computer players following them in the trick would
+ * respond. Once the human has actually played, the computer players' moves
+ * are looked up rather than worked out again. Responses are cached only for
+ * the current trick, and are identified by the cards played in the trick
+ * before them.
+ *
+ */
+public class Ponderer {
+	private final Executor executor;
+	/**
+	 * The responses worked out so far, mapping the cards played in the trick
+	 * to the card played next.
+	 */
+	private volatile Map<List<Card>, Card> cache = new ConcurrentHashMap<>();
+	private Future<?> task;
+
+	/**
+	 * Construct a ponderer which thinks on its own background thread.
+	 */
+	public Ponderer() {
+		this(Executors.newSingleThreadExecutor(r -> {
+			Thread thread = new Thread(r, "ponder");
+			thread.setDaemon(true);
+			return thread;
+		}));
+	}
+
+	/**
+	 * Construct a ponderer which thinks using a given executor.
+	 *
+	 * @param executor The executor to ponder on.
+	 */
+	public Ponderer(Executor executor) {
+		this.executor = executor;
+	}
+
+	/**
+	 * Begin working out the responses to each card the player next to play
+	 * could play. This should be called by the thread which owns the game, as
+	 * the game is copied before pondering begins. Any responses from previous
+	 * pondering are discarded.
+	 *
+	 * @param game            The game being played.
+	 * @param computerPlayers The computer players in the game. These are not
+	 *                        used directly, but copied.
+	 */
+	public void ponder(CardGame game, Map<Player.Direction, AbstractComputerPlayer> computerPlayers) {
+		clear();
+		Map<List<Card>, Card> responses = new ConcurrentHashMap<>();
+		CardGame snapshot = game.clone();
+		Map<Player.Direction, AbstractComputerPlayer> players = new EnumMap<>(Player.Direction.class);
+		players.putAll(computerPlayers);
+		FutureTask<Void> task = new FutureTask<>(() -> run(snapshot, players, responses), null);
+		this.cache = responses;
+		this.task = task;
+		executor.execute(task);
+	}
+
+	/**
+	 * Look up the response of the player next to play in a given trick.
+	 *
+	 * @param trick The trick being played.
+	 * @return The card to play, or <code>null</code> if this has not been
+	 *         worked out.
+	 */
+	public Card lookup(Trick trick) {
+		return cache.get(trick.getCardsPlayed());
+	}
+
+	/**
+	 * Stop pondering, and discard all responses. This should be called once the
+	 * current trick is finished.
+	 */
+	public void clear() {
+		if (task != null) {
+			task.cancel(true);
+			task = null;
+		}
+		cache = new ConcurrentHashMap<>();
+	}
+
+	private static void run(CardGame snapshot, Map<Player.Direction, AbstractComputerPlayer> computerPlayers,
+			Map<List<Card>, Card> responses) {
+		Player.Direction human = snapshot.getTrick().getNextToPlay();
+		if (human == null) {
+			return;
+		}
+		for (Card card : snapshot.getPlayer(human).getHand()) {
+			if (Thread.currentThread().isInterrupted()) {
+				return;
+			}
+			CardGame game = snapshot.clone();
+			try {
+				game.play(human, card);
+				// Work out the responses up until the next human player
+				Player.Direction next = game.getTrick().getNextToPlay();
+				while (next != null && computerPlayers.containsKey(next)) {
+					AbstractComputerPlayer player = computerPlayers.get(next).copy(game.getPlayer(next));
+					List<Card> played = game.getTrick().getCardsPlayed();
+					Card response = player.getNextCard(game.getTrick());
+					game.play(next, response);
+					responses.put(played, response);
+					next = game.getTrick().getNextToPlay();
+				}
+			} catch (IllegalMove | RuntimeException e) {
+				// Either the human cannot play this card, or the computer player
+				// failed; in both cases, the move is worked out later (if needed)
+			}
+		}
+	}
+}
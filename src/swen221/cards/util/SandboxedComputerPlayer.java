@@ -0,0 +1,280 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.cards.util;
+
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import swen221.cards.core.*;
+
+/**
+ * Protects a game from a computer player which misbehaves. Each move is
+ * decided by the wrapped player on the caller's executor, under a strict time
+ * limit. If the player takes too long, fails with an exception, or picks a
+ * card it cannot legally play, then a legal card is chosen instead and the
+ * violation is recorded. A player which overruns its time limit is interrupted
+ * and, if it ignores this, is quarantined: until its abandoned thread
+ * finishes, each move is chosen for it without asking it, so that it cannot
+ * tie up any more threads. Thus, a misbehaving player can never hold up the
+ * game for longer than its time limit. For example:
+ *
+ * <pre>
+ * AbstractComputerPlayer player = new SandboxedComputerPlayer(
+ * 		new SimpleComputerPlayer(game.getPlayer(d)), 1, TimeUnit.SECONDS);
+ * </pre>
+ *
+ */
+public class SandboxedComputerPlayer extends AbstractComputerPlayer {
+	/**
+	 * The kinds of misbehaviour which are recorded.
+	 */
+	public enum Violation {
+		/**
+		 * The player did not decide its move within the time limit.
+		 */
+		TIMEOUT,
+		/**
+		 * The player failed with an exception.
+		 */
+		FAILURE,
+		/**
+		 * The player picked no card, or one it could not legally play.
+		 */
+		ILLEGAL_MOVE
+	}
+
+	/**
+	 * Interrupts players once they overrun their time limit. Checks for moves
+	 * which finish in time are cancelled, and so removed straight away.
+	 */
+	private static final ScheduledThreadPoolExecutor WATCHDOG = new ScheduledThreadPoolExecutor(1, r -> {
+		Thread thread = new Thread(r, "sandbox-watchdog");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	static {
+		WATCHDOG.setRemoveOnCancelPolicy(true);
+	}
+
+	private final AbstractComputerPlayer delegate;
+	private final long timeLimit;
+	private final AtomicLongArray violations;
+	private volatile String lastViolation;
+
+	/**
+	 * The number of tasks started for the wrapped player which have not yet
+	 * finished, including any it abandoned by ignoring an interrupt.
+	 */
+	private final AtomicInteger running = new AtomicInteger();
+
+	/**
+	 * Construct a sandbox around a given computer player.
+	 *
+	 * @param delegate  The computer player to protect against.
+	 * @param timeLimit The time allowed for each move.
+	 * @param unit      The units of the time allowed.
+	 */
+	public SandboxedComputerPlayer(AbstractComputerPlayer delegate, long timeLimit, TimeUnit unit) {
+		super(delegate.player);
+		this.delegate = delegate;
+		this.timeLimit = unit.toNanos(timeLimit);
+		this.violations = new AtomicLongArray(Violation.values().length);
+	}
+
+	/**
+	 * Get the computer player being protected against.
+	 *
+	 * @return The wrapped player.
+	 */
+	public AbstractComputerPlayer getDelegate() {
+		return delegate;
+	}
+
+	/**
+	 * Get the number of violations of a given kind made by the wrapped player.
+	 *
+	 * @param kind The kind of violation.
+	 * @return The number of violations.
+	 */
+	public long getViolations(Violation kind) {
+		return violations.get(kind.ordinal());
+	}
+
+	/**
+	 * Get a description of the most recent violation made by the wrapped
+	 * player.
+	 *
+	 * @return The description, or <code>null</code> if there have been none.
+	 */
+	public String getLastViolation() {
+		return lastViolation;
+	}
+
+	@Override
+	public Card getNextCard(Trick trick) {
+		return getNextCardAsync(trick, Deadline.none()).join();
+	}
+
+	/**
+	 * Get the next card to be played by the wrapped player, enforcing the time
+	 * limit (or the given deadline, if sooner). The player's work is run on the
+	 * given executor, unless it is quarantined. The returned future always
+	 * completes with a legal card.
+	 */
+	@Override
+	public CompletableFuture<Card> getNextCardAsync(Trick trick, Deadline deadline, Executor executor) {
+		if (running.get() != 0) {
+			return CompletableFuture.completedFuture(
+					fallback(trick, Violation.TIMEOUT, "quarantined until its previous move finishes"));
+		}
+		long limit = Math.min(timeLimit, deadline.remaining(TimeUnit.NANOSECONDS));
+		Deadline sandbox = Deadline.after(limit, TimeUnit.NANOSECONDS);
+		CompletableFuture<Card> move;
+		try {
+			move = delegate.getNextCardAsync(trick, sandbox, task -> execute(task, executor)).copy();
+		} catch (RuntimeException e) {
+			move = CompletableFuture.failedFuture(e);
+		}
+		return move.orTimeout(limit, TimeUnit.NANOSECONDS).handle((card, e) -> {
+			if (e instanceof CompletionException && e.getCause() != null) {
+				e = e.getCause();
+			}
+			if (e instanceof TimeoutException) {
+				return fallback(trick, Violation.TIMEOUT, "no move within time limit");
+			} else if (e != null) {
+				return fallback(trick, Violation.FAILURE, e.toString());
+			} else if (!isLegal(trick, card)) {
+				return fallback(trick, Violation.ILLEGAL_MOVE, "cannot play " + card);
+			}
+			return card;
+		});
+	}
+
+	@Override
+	public AbstractComputerPlayer copy(Player player) {
+		return new SandboxedComputerPlayer(delegate.copy(player), timeLimit, TimeUnit.NANOSECONDS);
+	}
+
+	@Override
+	public void setPlayer(Player player) {
+		super.setPlayer(player);
+		delegate.setPlayer(player);
+	}
+
+	/**
+	 * Run part of a move on a given executor, interrupting it if it overruns
+	 * the time limit.
+	 *
+	 * @param task     The task to run.
+	 * @param executor The executor to run it on.
+	 */
+	private void execute(Runnable task, Executor executor) {
+		Guarded guarded = new Guarded(() -> {
+			running.incrementAndGet();
+			try {
+				task.run();
+			} finally {
+				running.decrementAndGet();
+			}
+		});
+		executor.execute(guarded);
+		guarded.watch(WATCHDOG.schedule(() -> guarded.cancel(true), timeLimit, TimeUnit.NANOSECONDS));
+	}
+
+	/**
+	 * A task which stops its watchdog once it is done, so that the watchdog
+	 * does not hold on to tasks which finished in time.
+	 */
+	private static final class Guarded extends FutureTask<Void> {
+		private volatile Future<?> watchdog;
+
+		Guarded(Runnable task) {
+			super(task, null);
+		}
+
+		void watch(Future<?> watchdog) {
+			this.watchdog = watchdog;
+			if (isDone()) {
+				watchdog.cancel(false);
+			}
+		}
+
+		@Override
+		protected void done() {
+			Future<?> w = watchdog;
+			if (w != null) {
+				w.cancel(false);
+			}
+		}
+	}
+
+	/**
+	 * Record a violation, and pick a legal card to play instead.
+	 *
+	 * @param trick       The trick being played.
+	 * @param kind        The kind of violation.
+	 * @param description A description of the violation.
+	 * @return The card to play instead.
+	 */
+	private Card fallback(Trick trick, Violation kind, String description) {
+		violations.incrementAndGet(kind.ordinal());
+		lastViolation = player.getDirection() + ": " + description;
+		return defaultCard(trick, player.getHand());
+	}
+
+	/**
+	 * Check whether a given card can legally be played in a given trick by
+	 * this player.
+	 *
+	 * @param trick The trick being played.
+	 * @param card  The card to check.
+	 * @return <code>true</code> if the card can be played.
+	 */
+	private boolean isLegal(Trick trick, Card card) {
+		Hand hand = player.getHand();
+		if (card == null || !hand.contains(card)) {
+			return false;
+		}
+		List<Card> played = trick.getCardsPlayed();
+		if (played.isEmpty()) {
+			return true;
+		}
+		Card.Suit suit = played.get(0).suit();
+		return card.suit() == suit || hand.matches(suit).isEmpty();
+	}
+
+	/**
+	 * Pick a legal card quickly, without any thought. The lowest card of the
+	 * suit led is played if possible; otherwise, the lowest card is thrown
+	 * away, avoiding trumps where possible.
+	 *
+	 * @param trick The trick being played.
+	 * @param hand  The hand to play from.
+	 * @return The card to play.
+	 */
+	public static Card defaultCard(Trick trick, Hand hand) {
+		List<Card> played = trick.getCardsPlayed();
+		if (!played.isEmpty()) {
+			Card lowest = lowest(hand.matches(played.get(0).suit()), null);
+			if (lowest != null) {
+				return lowest;
+			}
+		}
+		Card lowest = lowest(hand, trick.getTrumps());
+		return lowest != null ? lowest : lowest(hand, null);
+	}
+
+	private static Card lowest(Iterable<Card> cards, Card.Suit avoid) {
+		Card lowest = null;
+		for (Card card : cards) {
+			if (card.suit() != avoid && (lowest == null || card.rank().compareTo(lowest.rank()) < 0)) {
+				lowest = card;
+			}
+		}
+		return lowest;
+	}
+}
@@ -11,6 +11,7 @@ import java.util.Set;
 
 import swen221.cards.core.Card;
 import swen221.cards.core.Card.Suit;
+import swen221.cards.core.CardStrength;
 import swen221.cards.core.Hand;
 import swen221.cards.core.Player;
 import swen221.cards.core.Player.Direction;
@@ -47,13 +48,13 @@ public class SimpleComputerPlayer extends AbstractComputerPlayer {
 		if (cardsPlayed.size() == 3) {
 			// Last player as there are 3 played cards already
 			suitToFollow = cardsPlayed.get(0).suit(); // same suit as leader
-			Card highest = highestCard(trick.getTrumps(), suitToFollow, cardsPlayed);
+			Card highest = highestCard(trick.getTrumps(), cardsPlayed);
 			return last(highest, playerHand, trick.getTrumps(), suitToFollow);
 		} 
 		else if (!cardsPlayed.isEmpty()) { 
 			// Second or third player
 			suitToFollow = cardsPlayed.get(0).suit(); // same suit as leader
-			Card highest = highestCard(trick.getTrumps(), suitToFollow, cardsPlayed);
+			Card highest = highestCard(trick.getTrumps(), cardsPlayed);
 			return toPlay(highest, playerHand, trick.getTrumps(), suitToFollow);
 		} 
 		else { 
@@ -280,25 +281,11 @@ public class SimpleComputerPlayer extends AbstractComputerPlayer {
 	 * Return the highest card that has been played so far
 	 *
 	 * @param trump
-	 * @param follow
 	 * @param played
 	 * @return
 	 */
-	private Card highestCard(Suit trump, Suit follow, List<Card> played) {
-		Card card = played.get(0);
-		for (Card c : played) {
-			if (c.suit() == follow) { 
-				// if it follows the leading suit
-				if (card.rank().ordinal() < c.rank().ordinal()) card = c; // if it is the higher card
-			} 
-			else if (c.suit() == trump) {
-				// if it is the trump suit
-				if (card.suit() == trump) { // if the the highest card is also trump
-					if (card.rank().ordinal() < c.rank().ordinal()) card = c;
-				} 
-				else card = c;
-			}
-		}
-		return card;
+	private Card highestCard(Suit trump, List<Card> played) {
+		// The first card played determines the suit to follow
+		return CardStrength.strongest(played, trump);
 	}
 }
\ No newline at end of file
@@ -0,0 +1,65 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.cards.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import swen221.cards.core.*;
+
+/**
+ * Records the state of a game after every hand dealt, card played, trick won
+ * and hand ended. Since states are immutable, the recorded sequence can later be
+ * processed (e.g. rendered) by any number of threads. For example:
+ *
+ * <pre>
+ * StateRecorder recorder = new StateRecorder(game);
+ * game.addGameListener(recorder);
+ * </pre>
+ *
+ */
+public class StateRecorder implements GameListener {
+	private final CardGame game;
+	private final ArrayList<GameState> states = new ArrayList<>();
+
+	/**
+	 * Construct a recorder for a given game, starting from its current state.
+	 *
+	 * @param game The game being recorded.
+	 */
+	public StateRecorder(CardGame game) {
+		this.game = game;
+		this.states.add(game.getState());
+	}
+
+	/**
+	 * Get the states recorded so far, in the order they occurred.
+	 *
+	 * @return The list of recorded states.
+	 */
+	public List<GameState> getStates() {
+		return Collections.unmodifiableList(states);
+	}
+
+	@Override
+	public void handDealt() {
+		states.add(game.getState());
+	}
+
+	@Override
+	public void cardPlayed(Player.Direction player, Card card) {
+		states.add(game.getState());
+	}
+
+	@Override
+	public void trickWon(Player.Direction winner) {
+		states.add(game.getState());
+	}
+
+	@Override
+	public void handEnded() {
+		states.add(game.getState());
+	}
+}
@@ -0,0 +1,400 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.cards.viewer;
+
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import javax.imageio.ImageIO;
+
+import swen221.cards.core.Card;
+import swen221.cards.core.Player;
+
+/**
+ * A sprite atlas holding the image of every card, as seen from every side of
+ * the table, packed into a single image. Card images are rendered lazily the
+ * first time they are drawn. A completed atlas is also cached on disk (keyed by
+ * card size and font), so that subsequent runs can simply load it.
+ *
+ * The atlas is laid out as four blocks of 13 columns (one per rank) by four
+ * rows (one per suit) for each of NORTH, EAST, SOUTH and WEST, followed by a
+ * row holding the two card backs.
+ *
+ */
+public class CardAtlas {
+	private static final Color background = new Color(0,150,0);
+	private static char[] suits = { '\u2665','\u2663','\u2666','\u2660' };
+	private static String[] numbers = { "","","2","3","4","5","6","7","8","9","10","J","Q","K","A" };
+
+	/**
+	 * Total number of cells in the atlas (i.e. 52 cards from four sides, plus
+	 * two card backs).
+	 */
+	private static final int CELLS = 52 * 4 + 2;
+	private static final int BACK_HORIZONTAL = 52 * 4;
+	private static final int BACK_VERTICAL = 52 * 4 + 1;
+
+	/**
+	 * The number of atlases retained by <code>forSize()</code>.
+	 */
+	private static final int CACHED_ATLASES = 4;
+
+	/**
+	 * Recently used atlases, in order of least recent use.
+	 */
+	private static final Map<String, CardAtlas> cache = new LinkedHashMap<String, CardAtlas>(16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, CardAtlas> eldest) {
+			return size() > CACHED_ATLASES;
+		}
+	};
+
+	private final int width;
+	private final int height;
+	private final Font font;
+	private final File cacheFile;
+	private final BufferedImage atlas;
+	/**
+	 * Records which cells of the atlas have been rendered so far.
+	 */
+	private final BitSet rendered = new BitSet(CELLS);
+	/**
+	 * Set once every cell has been rendered, after which the atlas is never
+	 * changed again and can be drawn from without locking.
+	 */
+	private volatile boolean complete;
+
+	/**
+	 * Construct an atlas for cards of a given size. If a cached copy of the
+	 * atlas exists on disk then this is loaded, otherwise card images are
+	 * rendered as they are needed.
+	 *
+	 * @param width  The width of an upright card.
+	 * @param height The height of an upright card.
+	 * @param font   The font used for card faces (sized for a card 100 pixels
+	 *               high), or <code>null</code> for the default font.
+	 */
+	public CardAtlas(int width, int height, Font font) {
+		this.width = width;
+		this.height = height;
+		this.font = font;
+		this.cacheFile = cacheFile(width, height, font);
+		BufferedImage cached = load(cacheFile, atlasWidth(), atlasHeight());
+		if (cached != null) {
+			this.atlas = cached;
+			this.rendered.set(0, CELLS);
+			this.complete = true;
+		} else {
+			this.atlas = new BufferedImage(atlasWidth(), atlasHeight(), BufferedImage.TYPE_INT_RGB);
+		}
+	}
+
+	/**
+	 * Get an atlas for cards of a given size, using the default font.
+	 *
+	 * @param width  The width of an upright card.
+	 * @param height The height of an upright card.
+	 * @return The atlas for cards of the given size.
+	 */
+	public static CardAtlas forSize(int width, int height) {
+		return forSize(width, height, null);
+	}
+
+	/**
+	 * Get an atlas for cards of a given size and font. A small number of
+	 * recently used atlases are retained, so that redrawing at a handful of
+	 * sizes (e.g. when a window is resized back and forth) doesn't repeatedly
+	 * render the cards again.
+	 *
+	 * @param width  The width of an upright card.
+	 * @param height The height of an upright card.
+	 * @param font   The font used for card faces (sized for a card 100 pixels
+	 *               high), or <code>null</code> for the default font.
+	 * @return The atlas for cards of the given size.
+	 */
+	public static CardAtlas forSize(int width, int height, Font font) {
+		String key = cacheFile(width, height, font).getName();
+		synchronized (cache) {
+			CardAtlas atlas = cache.get(key);
+			if (atlas == null) {
+				atlas = new CardAtlas(width, height, font);
+				cache.put(key, atlas);
+			}
+			return atlas;
+		}
+	}
+
+	/**
+	 * Get the width of an upright card in this atlas.
+	 *
+	 * @return The card width.
+	 */
+	public int getCardWidth() {
+		return width;
+	}
+
+	/**
+	 * Get the height of an upright card in this atlas.
+	 *
+	 * @return The card height.
+	 */
+	public int getCardHeight() {
+		return height;
+	}
+
+	/**
+	 * Draw a card face up, as seen by the player in a given direction.
+	 *
+	 * @param g    The graphics to draw on.
+	 * @param card The card to draw.
+	 * @param dir  The side of the table the card belongs to.
+	 * @param x    The x position of the card.
+	 * @param y    The y position of the card.
+	 */
+	public void drawCard(Graphics g, Card card, Player.Direction dir, int x, int y) {
+		drawCell(g, dir.ordinal() * 52 + card.id(), x, y);
+	}
+
+	/**
+	 * Draw a card face down.
+	 *
+	 * @param g          The graphics to draw on.
+	 * @param horizontal Whether the card is lying horizontally (i.e. belongs to
+	 *                   EAST or WEST).
+	 * @param x          The x position of the card.
+	 * @param y          The y position of the card.
+	 */
+	public void drawCardBack(Graphics g, boolean horizontal, int x, int y) {
+		drawCell(g, horizontal ? BACK_HORIZONTAL : BACK_VERTICAL, x, y);
+	}
+
+	/**
+	 * Render every card in this atlas, and then save it to the disk cache. This
+	 * is intended to be called on a background thread, so that later runs can
+	 * start with a complete atlas.
+	 */
+	public void renderAll() {
+		for (int cell = 0; cell != CELLS; ++cell) {
+			ensureRendered(cell);
+		}
+	}
+
+	// ========================================================
+	// Helper methods
+	// ========================================================
+
+	private void drawCell(Graphics g, int cell, int x, int y) {
+		Rectangle r = cellBounds(cell);
+		if (complete) {
+			g.drawImage(atlas, x, y, x + r.width, y + r.height, r.x, r.y, r.x + r.width, r.y + r.height, null);
+		} else {
+			// Other cells may still be rendered into the atlas concurrently
+			synchronized (this) {
+				ensureRendered(cell);
+				g.drawImage(atlas, x, y, x + r.width, y + r.height, r.x, r.y, r.x + r.width, r.y + r.height, null);
+			}
+		}
+	}
+
+	private void ensureRendered(int cell) {
+		if (complete) {
+			return;
+		}
+		synchronized (this) {
+			if (rendered.get(cell)) {
+				return;
+			}
+			Rectangle r = cellBounds(cell);
+			BufferedImage img;
+			if (cell == BACK_HORIZONTAL || cell == BACK_VERTICAL) {
+				img = createCardDownImage(r.width, r.height);
+			} else {
+				int id = cell % 52;
+				Player.Direction dir = Player.Direction.values()[cell / 52];
+				img = createCardImage(width, height, id / 13, (id % 13) + 2, dir);
+			}
+			Graphics2D g = atlas.createGraphics();
+			g.drawImage(img, r.x, r.y, null);
+			g.dispose();
+			rendered.set(cell);
+			if (rendered.cardinality() == CELLS) {
+				complete = true;
+				// Writing the atlas out is slow, so keep it off the caller's thread
+				CompletableFuture.runAsync(this::save);
+			}
+		}
+	}
+
+	/**
+	 * Determine where a given cell lies within the atlas.
+	 *
+	 * @param cell The cell in question.
+	 * @return The bounds of the cell.
+	 */
+	private Rectangle cellBounds(int cell) {
+		if (cell == BACK_HORIZONTAL) {
+			return new Rectangle(0, 8 * (width + height), height, width);
+		} else if (cell == BACK_VERTICAL) {
+			return new Rectangle(height, 8 * (width + height), width, height);
+		}
+		int dir = cell / 52;
+		int id = cell % 52;
+		// Blocks alternate between upright (NORTH, SOUTH) and sideways (EAST, WEST)
+		int blockY = (dir / 2) * 4 * (width + height) + ((dir % 2) * 4 * height);
+		int cw = (dir % 2) == 0 ? width : height;
+		int ch = (dir % 2) == 0 ? height : width;
+		return new Rectangle((id % 13) * cw, blockY + (id / 13) * ch, cw, ch);
+	}
+
+	/**
+	 * Scale a dimension given for a card 100 pixels high to the size of cards
+	 * in this atlas.
+	 *
+	 * @param n The dimension to scale.
+	 * @return The scaled dimension.
+	 */
+	private int scaled(int n) {
+		return Math.max(1, Math.round(n * height / 100f));
+	}
+
+	private int atlasWidth() {
+		return 13 * Math.max(width, height);
+	}
+
+	private int atlasHeight() {
+		return 8 * (width + height) + Math.max(width, height);
+	}
+
+	private void save() {
+		try {
+			File dir = cacheFile.getParentFile();
+			dir.mkdirs();
+			// Write to a temporary file first, so a partial atlas is never loaded
+			File tmp = File.createTempFile("atlas", ".png", dir);
+			ImageIO.write(atlas, "png", tmp);
+			Files.move(tmp.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException | SecurityException e) {
+			// The disk cache is only an optimisation, so just carry on.
+		}
+	}
+
+	private static BufferedImage load(File file, int width, int height) {
+		try {
+			if (file.exists()) {
+				BufferedImage img = ImageIO.read(file);
+				if (img != null && img.getWidth() == width && img.getHeight() == height) {
+					return img;
+				}
+			}
+		} catch (IOException | SecurityException e) {
+			// Fall through and render the atlas from scratch.
+		}
+		return null;
+	}
+
+	private static File cacheFile(int width, int height, Font font) {
+		String key = width + "x" + height + "-"
+				+ (font == null ? "default" : font.getFamily() + "-" + font.getStyle() + "-" + font.getSize());
+		key = key.replaceAll("[^A-Za-z0-9._-]", "_");
+		File dir = new File(System.getProperty("user.home"), ".swen221-cards");
+		return new File(dir, "atlas-" + key + ".png");
+	}
+
+	private BufferedImage createCardImage(int width, int height, int suit, int number, Player.Direction dir) {
+		// Yeah, this method is pretty crazy ... it probably could be a *lot* better
+		double theta;
+		int cwidth = width;
+		int cheight = height;
+		int twidth = 0;
+		int theight = 0;
+
+		if(dir == Player.Direction.WEST) {
+			theta = Math.PI / 2;
+			cheight = width;
+			cwidth = height;
+			twidth = 0;
+			theight = -height;
+		} else if(dir == Player.Direction.EAST) {
+			theta = -Math.PI / 2;
+			cheight = width;
+			cwidth = height;
+			twidth = -width;
+		} else if(dir == Player.Direction.SOUTH) {
+			theta = 0;
+		} else {
+			theta = Math.PI;
+			twidth = -width;
+			theight = -height;
+		}
+
+		BufferedImage img = new BufferedImage(cwidth, cheight, BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = img.createGraphics();
+		g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+		// Everything is sized relative to a card which is 100 pixels high
+		int arc = scaled(15);
+		int margin = scaled(5);
+		if (font != null) {
+			g.setFont(height == 100 ? font : font.deriveFont(font.getSize2D() * height / 100f));
+		} else if (height != 100) {
+			g.setFont(g.getFont().deriveFont((float) scaled(12)));
+		}
+
+		AffineTransform at = new AffineTransform();
+		at.rotate(theta);
+		at.translate(twidth,theight);
+		g.setTransform(at);
+
+		g.setColor(background);
+		g.fillRect(0,0,width,height);
+		g.setColor(Color.WHITE);
+		g.fillRoundRect(0,0, width, height,arc,arc);
+		g.setColor(Color.BLACK);
+		g.drawRoundRect(0,0, width, height,arc,arc);
+
+		if((suit % 2) != 0) {
+			g.setColor(Color.BLACK);
+		} else {
+			g.setColor(Color.RED);
+		}
+
+		FontMetrics metrics = g.getFontMetrics();
+		char[] numChars = (numbers[number]).toCharArray();
+		char[] suitChars = {suits[suit]};
+		int off = width - (metrics.charsWidth(numChars,0,numChars.length) + margin);
+		int ascent = metrics.getAscent();
+		g.drawChars(numChars,0,numChars.length,margin,margin+ascent);
+		g.drawChars(suitChars,0,suitChars.length,margin,margin+ascent+ascent);
+		g.drawChars(numChars,0,numChars.length,off,height-margin);
+		g.drawChars(suitChars,0,suitChars.length,off,height-margin-ascent);
+		g.dispose();
+
+		return img;
+	}
+
+	private BufferedImage createCardDownImage(int width, int height) {
+		BufferedImage img = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = img.createGraphics();
+		int arc = scaled(15);
+
+		g.setColor(background);
+		g.fillRect(0,0,width,height);
+		g.setColor(Color.BLACK);
+		g.fillRoundRect(0,0, width, height,arc,arc);
+		g.setColor(Color.GRAY);
+		g.fillRoundRect(1,1, width-2, height-2,arc,arc);
+		g.dispose();
+
+		return img;
+	}
+}
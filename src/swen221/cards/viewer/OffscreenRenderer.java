@@ -0,0 +1,107 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.cards.viewer;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import javax.imageio.ImageIO;
+
+import swen221.cards.core.GameState;
+
+/**
+ * Renders game states to images without any window, and so works with
+ * <code>java.awt.headless=true</code> (e.g. on a build server). This uses the
+ * same layout and card sprites as the table drawn on screen.
+ *
+ */
+public class OffscreenRenderer {
+	private final int size;
+
+	/**
+	 * Construct a renderer producing (square) images of a given size.
+	 *
+	 * @param size The width and height of each image in pixels.
+	 */
+	public OffscreenRenderer(int size) {
+		this.size = size;
+	}
+
+	/**
+	 * Draw a single state of a game, with every hand face up.
+	 *
+	 * @param state The state to draw.
+	 * @return A new image of the table.
+	 */
+	public BufferedImage render(GameState state) {
+		return new TableRenderer(size).render(state, d -> false);
+	}
+
+	/**
+	 * Export a sequence of states as numbered PNG files (i.e.
+	 * <code>frame-00000.png</code>, <code>frame-00001.png</code>, etc). The
+	 * states are split into contiguous runs, one per thread, so that each
+	 * thread only redraws what changes between consecutive states.
+	 *
+	 * @param states    The states to export, in order.
+	 * @param directory The directory to write the images into.
+	 * @param threads   The number of threads to use.
+	 * @return The number of images written.
+	 * @throws IOException              If an image could not be written.
+	 * @throws IllegalArgumentException If the number of threads is not
+	 *                                  positive.
+	 */
+	public int exportFrames(List<GameState> states, File directory, int threads) throws IOException {
+		if (threads <= 0) {
+			throw new IllegalArgumentException("invalid number of threads: " + threads);
+		}
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new IOException("cannot create directory " + directory);
+		}
+		// Render every sprite up front, so threads never wait on each other
+		new TableRenderer(size).getAtlas().renderAll();
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			int chunk = (states.size() + threads - 1) / threads;
+			List<Future<?>> futures = new ArrayList<>();
+			for (int start = 0; start < states.size(); start += chunk) {
+				final int from = start;
+				final int to = Math.min(states.size(), start + chunk);
+				futures.add(executor.submit(() -> exportRange(states, from, to, directory)));
+			}
+			for (Future<?> f : futures) {
+				f.get();
+			}
+			return states.size();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("export interrupted", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof UncheckedIOException) {
+				throw ((UncheckedIOException) e.getCause()).getCause();
+			}
+			throw new IOException(e.getCause());
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	private void exportRange(List<GameState> states, int from, int to, File directory) {
+		TableRenderer renderer = new TableRenderer(size);
+		for (int i = from; i != to; ++i) {
+			BufferedImage image = renderer.render(states.get(i), d -> false);
+			File file = new File(directory, String.format("frame-%05d.png", i));
+			try {
+				ImageIO.write(image, "png", file);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+}
@@ -0,0 +1,113 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.cards.viewer;
+
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+
+import javax.swing.*;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+
+import swen221.cards.core.*;
+import swen221.cards.util.GameReplay;
+
+/**
+ * A window for viewing a recorded game. The slider can be dragged to any point
+ * in the game, whilst the buttons step forwards or backwards one card at a
+ * time. All hands are shown face up.
+ *
+ */
+public class ReplayFrame extends JFrame {
+	private final GameReplay replay;
+	private final TableRenderer renderer = new TableRenderer(TableRenderer.TABLE_SIZE);
+	private final JComponent view;
+	private final JSlider slider;
+	private final JLabel statusBar;
+	/**
+	 * The state of the game at the current position.
+	 */
+	private GameState state;
+
+	/**
+	 * Construct a window for viewing a given replay.
+	 *
+	 * @param replay The replay to view.
+	 */
+	public ReplayFrame(GameReplay replay) {
+		super("Card Game Replay");
+		this.replay = replay;
+		this.state = replay.seek(0).getState();
+
+		view = new JComponent() {
+			@Override
+			protected void paintComponent(Graphics g) {
+				g.drawImage(renderer.render(state, d -> false), 0, 0, null);
+			}
+		};
+		view.setPreferredSize(new Dimension(renderer.getSize(), renderer.getSize()));
+		view.setOpaque(true);
+
+		slider = new JSlider(0, replay.length(), 0);
+		slider.addChangeListener(new ChangeListener() {
+			@Override
+			public void stateChanged(ChangeEvent e) {
+				seek(slider.getValue());
+			}
+		});
+		JButton prevButton = new JButton("<");
+		prevButton.addActionListener(new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				slider.setValue(slider.getValue() - 1);
+			}
+		});
+		JButton nextButton = new JButton(">");
+		nextButton.addActionListener(new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				slider.setValue(slider.getValue() + 1);
+			}
+		});
+		statusBar = new JLabel();
+		updateStatusBar();
+
+		JPanel controls = new JPanel(new BorderLayout());
+		controls.add(prevButton, BorderLayout.WEST);
+		controls.add(slider, BorderLayout.CENTER);
+		controls.add(nextButton, BorderLayout.EAST);
+		controls.add(statusBar, BorderLayout.SOUTH);
+
+		setLayout(new BorderLayout());
+		add(view, BorderLayout.CENTER);
+		add(controls, BorderLayout.SOUTH);
+		setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+		pack();
+		setVisible(true);
+	}
+
+	/**
+	 * Show the game once a given number of cards have been played.
+	 *
+	 * @param position The number of cards played.
+	 */
+	private void seek(int position) {
+		state = replay.seek(position).getState();
+		updateStatusBar();
+		view.repaint();
+	}
+
+	private void updateStatusBar() {
+		String text = "Card " + slider.getValue() + " of " + replay.length();
+		if (state.getTrumps() != null) {
+			text += ", " + state.getTrumps() + " are trumps";
+		}
+		String score = "";
+		for (Player.Direction d : Player.Direction.values()) {
+			score += ", " + d + ": " + state.getTricksWon(d) + " (" + state.getOverallScore(d) + ")";
+		}
+		statusBar.setText(text + score);
+	}
+}
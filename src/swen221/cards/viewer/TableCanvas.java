@@ -8,6 +8,8 @@ import java.awt.image.*;
 import java.awt.geom.*;
 import java.awt.event.*;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Predicate;
 
 import swen221.cards.core.*;
 
@@ -28,6 +30,50 @@ public class TableCanvas extends Canvas implements MouseListener {
 	 * @param parent
 	 */
 	public TableCanvas(TableFrame parent) {
+		this.parent = parent;
+		this.faceDown = parent::isComputerPlayer;
+		setPreferredSize(new Dimension(600,600));
+		addMouseListener(this);
+		// Finish rendering the card images in the background
+		CompletableFuture.runAsync(() -> CardAtlas.forSize(75, 100).renderAll());
+		// Enumerating the system fonts is slow, so do this off the startup path.
+		// Until it is done, cards are drawn in the default font.
+		CompletableFuture.supplyAsync(TableCanvas::resolveFont).thenAccept(f -> {
+			if (f != null) {
+				EventQueue.invokeLater(() -> changeFont(f));
+			}
+		});
+	}
+
+	/**
+	 * Switch to drawing the card faces in a given font. The cards are first
+	 * rendered in the new font, in the background, at the size currently
+	 * drawn. Only then does the canvas switch over, so it never stalls whilst
+	 * the cards are rendered, nor shows some in one font and some in the other.
+	 *
+	 * @param f The font to switch to.
+	 */
+	private void changeFont(Font f) {
+		int size = renderer == null ? TableRenderer.TABLE_SIZE : renderer.getSize();
+		CompletableFuture.supplyAsync(() -> {
+			TableRenderer r = new TableRenderer(size, f);
+			r.getAtlas().renderAll();
+			return r;
+		}).thenAccept(r -> EventQueue.invokeLater(() -> {
+			font = f;
+			// If the canvas has since been resized, paint() replaces this anyway
+			renderer = r;
+			repaint();
+		}));
+	}
+
+	/**
+	 * Determine the first of the preferred fonts which is available on this
+	 * system (if any).
+	 *
+	 * @return The font to use, or <code>null</code> for the default font.
+	 */
+	private static Font resolveFont() {
 		GraphicsEnvironment env = GraphicsEnvironment.getLocalGraphicsEnvironment();
 		HashSet<String> availableNames = new HashSet<>();
 
@@ -37,217 +83,87 @@ public class TableCanvas extends Canvas implements MouseListener {
 
 		for(String pf : preferredFonts) {
 			if(availableNames.contains(pf)) {
-				font = new Font(pf,Font.PLAIN,20);
-				break;
+				return new Font(pf,Font.PLAIN,20);
 			}
 		}
-
-		this.parent = parent;
-		setBounds(0,0,600,600);
-		addMouseListener(this);
-	}
-
-	@Override
-	public void paint(Graphics g) {
-		CardGame game = parent.getGame();
-		g.setColor(new Color(0,150,0));
-		g.fillRect(0,0,getWidth(),getHeight());
-		if(font != null) { g.setFont(font); }
-		drawVHand(game.getPlayer(Player.Direction.WEST), cardsWest, g, 10);
-		drawVHand(game.getPlayer(Player.Direction.EAST), cardsEast, g, 490);
-		drawHHand(game.getPlayer(Player.Direction.SOUTH), cardsSouth, g, 490);
-		drawHHand(game.getPlayer(Player.Direction.NORTH), cardsNorth, g, 10);
-
-		g.setColor(Color.YELLOW);
-		g.drawRect(120,120,360,360);
-		Trick trick = game.getTrick();
-		if(trick != null) {
-			drawPlayedCard(trick.getCardPlayed(Player.Direction.NORTH), cardsNorth, g, 265, 150);
-			drawPlayedCard(trick.getCardPlayed(Player.Direction.EAST), cardsEast, g, 350, 265);
-			drawPlayedCard(trick.getCardPlayed(Player.Direction.SOUTH), cardsSouth, g, 265, 350);
-			drawPlayedCard(trick.getCardPlayed(Player.Direction.WEST), cardsWest, g, 150, 265);
-		}
+		return null;
 	}
 
-	private void drawPlayedCard(Card card, Image[] cards, Graphics g, int x, int y) {
-		if(card != null) {
-			Image cimg = cards[cn(card)];
-			g.drawImage(cimg,x,y,null);
-		}
-	}
+	/**
+	 * Draws the table at the current size of this canvas. This is replaced
+	 * whenever the canvas changes size.
+	 */
+	private TableRenderer renderer;
 
-	private void drawVHand(Player player, Image[] cards, Graphics g, int xpos) {
-		Hand hand = player.getHand();
-		if(hand.size() > 0) {
-			final float spacing = spacing(hand);
-			int ypos = pos(hand.size(), spacing);
-			for(Card c : hand) {
-				Image cimg;
-				if(parent.isComputerPlayer(player.getDirection())) {
-					cimg = cardDownHorizontal;
-				} else {
-					cimg = cards[cn(c)];
-				}
-				g.drawImage(cimg,xpos,ypos,null);
-				ypos += spacing;
-			}
-		}
-	}
+	/**
+	 * Identifies which hands are drawn face down.
+	 */
+	private final Predicate<Player.Direction> faceDown;
 
-	private void drawHHand(Player player, Image[] cards, Graphics g, int ypos) {
-		Hand hand = player.getHand();
-		if(hand.size() > 0) {
-			final float spacing = spacing(hand);
-			int xpos = pos(hand.size(), spacing);
-			for(Card c : hand) {
-				Image cimg;
-				if(parent.isComputerPlayer(player.getDirection())) {
-					cimg = cardDownVertical;
-				} else {
-					cimg = cards[cn(c)];
-				}
-				g.drawImage(cimg,xpos,ypos,null);
-				xpos += spacing;
-			}
-		}
-	}
+	/**
+	 * Where the table was last drawn on this canvas, and how large it was (in
+	 * canvas units). These are needed to work out which card was clicked.
+	 */
+	private double tableX, tableY, tableSize = TableRenderer.TABLE_SIZE;
 
-	private int pos(int size, float spacing) {
-		return 300 - ((int) ((size * spacing)+80)/2);
-	}
+	private static final Color background = new Color(0,150,0);
 
-	private int spacing(Hand hand) {
-		return Math.min(80, 300 / hand.size());
+	@Override
+	public void update(Graphics g) {
+		// The whole canvas is always repainted, so don't clear it first
+		paint(g);
 	}
 
-	private int cn(Card c) {
-		return c.suit().ordinal()*13 + c.rank().ordinal();
-	}
-
-	private static final Image[] cardsNorth = new Image[52];
-	private static final Image[] cardsEast = new Image[52];
-	private static final Image[] cardsSouth = new Image[52];
-	private static final Image[] cardsWest = new Image[52];
-	private static final Image cardDownHorizontal;
-	private static final Image cardDownVertical;
-	private static char[] suits = { '\u2665','\u2663','\u2666','\u2660' };
-	private static String[] numbers = { "","","2","3","4","5","6","7","8","9","10","J","Q","K","A" };
-
-	static {
-		int width = 75;
-		int height = 100;
-
-		for(int s=0;s<=3;++s) {
-			for(int i=2;i<=14;++i) {
-				int cn = (13*s)+(i-2);
-				cardsNorth[cn] = createCardImage(width,height,s,i,Player.Direction.NORTH);
-				cardsEast[cn] = createCardImage(width,height,s,i,Player.Direction.EAST);
-				cardsSouth[cn] = createCardImage(width,height,s,i,Player.Direction.SOUTH);
-				cardsWest[cn] = createCardImage(width,height,s,i,Player.Direction.WEST);
-			}
+	@Override
+	public void paint(Graphics g) {
+		// Render from a single immutable state, so the view is never torn
+		GameState state = parent.getGame().getState();
+		// Render at the resolution of the screen (which may exceed one pixel per
+		// unit on HiDPI displays). The size is rounded down to a multiple of
+		// 1/16th scale, so that small changes in window size reuse the same sprites.
+		GraphicsConfiguration gc = getGraphicsConfiguration();
+		double dpi = gc == null ? 1 : gc.getDefaultTransform().getScaleX();
+		int side = Math.min(getWidth(), getHeight());
+		int steps = Math.max(1, (int) Math.floor(side * dpi * 16 / TableRenderer.TABLE_SIZE));
+		int pixels = steps * TableRenderer.TABLE_SIZE / 16;
+		if (renderer == null || renderer.getSize() != pixels) {
+			renderer = new TableRenderer(pixels, font);
 		}
-
-		cardDownHorizontal = createCardDownImage(height,width);
-		cardDownVertical = createCardDownImage(width,height);
-	}
-
-	private static Image createCardImage(int width, int height, int suit, int number, Player.Direction dir) {
-		// Yeah, this method is pretty crazy ... it probably could be a *lot* better
-		double theta;
-		int cwidth = width;
-		int cheight = height;
-		int twidth = 0;
-		int theight = 0;
-
-		if(dir == Player.Direction.WEST) {
-			theta = Math.PI / 2;
-			cheight = width;
-			cwidth = height;
-			twidth = 0;
-			theight = -height;
-		} else if(dir == Player.Direction.EAST) {
-			theta = -Math.PI / 2;
-			cheight = width;
-			cwidth = height;
-			twidth = -width;
-		} else if(dir == Player.Direction.SOUTH) {
-			theta = 0;
-		} else {
-			theta = Math.PI;
-			twidth = -width;
-			theight = -height;
+		BufferedImage table = renderer.render(state, faceDown);
+		tableSize = pixels / dpi;
+		tableX = (getWidth() - tableSize) / 2;
+		tableY = (getHeight() - tableSize) / 2;
+		BufferStrategy strategy = getBufferStrategy();
+		if (strategy == null) {
+			createBufferStrategy(2);
+			strategy = getBufferStrategy();
 		}
-
-		GraphicsEnvironment ge = GraphicsEnvironment
-				.getLocalGraphicsEnvironment();
-		GraphicsDevice gs = ge.getDefaultScreenDevice();
-		GraphicsConfiguration gc = gs.getDefaultConfiguration();
-		BufferedImage img = gc.createCompatibleImage(cwidth, cheight, Transparency.OPAQUE);
-		Graphics2D g = img.createGraphics();
-
-		AffineTransform at = new AffineTransform();
-		at.rotate(theta);
-		at.translate(twidth,theight);
-		g.setTransform(at);
-
-		g.setColor(new Color(0,150,0));
-		g.fillRect(0,0,width,height);
-		g.setColor(Color.WHITE);
-		g.fillRoundRect(0,0, width, height,15,15);
-		g.setColor(Color.BLACK);
-		g.drawRoundRect(0,0, width, height,15,15);
-
-		if((suit % 2) != 0) {
-			g.setColor(Color.BLACK);
-		} else {
-			g.setColor(Color.RED);
-		}
-
-		FontMetrics metrics = g.getFontMetrics();
-		char[] numChars = (numbers[number]).toCharArray();
-		char[] suitChars = {suits[suit]};
-		int off = width - (metrics.charsWidth(numChars,0,numChars.length) + 5);
-		int ascent = metrics.getAscent();
-		g.drawChars(numChars,0,numChars.length,5,5+ascent);
-		g.drawChars(suitChars,0,suitChars.length,5,5+ascent+ascent);
-		g.drawChars(numChars,0,numChars.length,off,height-5);
-		g.drawChars(suitChars,0,suitChars.length,off,height-5-ascent);
-
-		return img;
-	}
-
-	private static Image createCardDownImage(int width, int height) {
-		GraphicsEnvironment ge = GraphicsEnvironment
-		.getLocalGraphicsEnvironment();
-		GraphicsDevice gs = ge.getDefaultScreenDevice();
-		GraphicsConfiguration gc = gs.getDefaultConfiguration();
-		BufferedImage img = gc.createCompatibleImage(width, height, Transparency.OPAQUE);
-		Graphics2D g = img.createGraphics();
-
-		g.setColor(new Color(0,150,0));
-		g.fillRect(0,0,width,height);
-		g.setColor(Color.BLACK);
-		g.fillRoundRect(0,0, width, height,15,15);
-		g.setColor(Color.GRAY);
-		g.fillRoundRect(1,1, width-2, height-2,15,15);
-
-		return img;
-	}
-
-	private void determinePlayedCard(int distance, Player player) {
+		do {
+			do {
+				Graphics bg = strategy.getDrawGraphics();
+				bg.setColor(background);
+				bg.fillRect(0, 0, getWidth(), getHeight());
+				bg.drawImage(table, (int) tableX, (int) tableY, (int) tableSize, (int) tableSize, null);
+				bg.dispose();
+			} while (strategy.contentsRestored());
+			strategy.show();
+		} while (strategy.contentsLost());
+	}
+
+	private void determinePlayedCard(int distance, GameState state, Player.Direction player) {
 		try {
-			Hand hand = player.getHand();
-			if (hand.size() > 0) {
-				float spacing = spacing(hand);
-				int pos = pos(hand.size(), spacing);
+			int size = state.getHandSize(player);
+			if (size > 0) {
+				float spacing = TableRenderer.spacing(size);
+				int pos = TableRenderer.pos(size, spacing);
 				int idx = 1;
-				for (Card card : hand) {
+				for (Card card : state.getCards(player)) {
 					float width = spacing;
-					if (idx == hand.size()) {
+					if (idx == size) {
 						width = 80; // for last card, which has larger surface
 					}
 					if (distance > pos && distance < (pos + width)) {
-						parent.playedEvent(player.getDirection(),card);
+						parent.playedEvent(player,card);
 						return;
 					}
 					pos += spacing;
@@ -265,21 +181,22 @@ public class TableCanvas extends Canvas implements MouseListener {
 
 	@Override
 	public void mouseClicked(MouseEvent e) {
-		CardGame game = parent.getGame();
-		int xpos = e.getX();
-		int ypos = e.getY();
+		GameState state = parent.getGame().getState();
+		// Convert into table units
+		int xpos = (int) ((e.getX() - tableX) * TableRenderer.TABLE_SIZE / tableSize);
+		int ypos = (int) ((e.getY() - tableY) * TableRenderer.TABLE_SIZE / tableSize);
 		if(ypos < 110) {
 			// NORTH CLICK
-			determinePlayedCard(xpos, game.getPlayer(Player.Direction.NORTH));
+			determinePlayedCard(xpos, state, Player.Direction.NORTH);
 		} else if(ypos > 490) {
 			// SOUTH CLICK
-			determinePlayedCard(xpos, game.getPlayer(Player.Direction.SOUTH));
+			determinePlayedCard(xpos, state, Player.Direction.SOUTH);
 		} else if(xpos < 110) {
 			// WEST CLICK
-			determinePlayedCard(ypos, game.getPlayer(Player.Direction.WEST));
+			determinePlayedCard(ypos, state, Player.Direction.WEST);
 		} else if(xpos > 490) {
 			// EAST CLICK
-			determinePlayedCard(ypos, game.getPlayer(Player.Direction.EAST));
+			determinePlayedCard(ypos, state, Player.Direction.EAST);
 		}
 	}
 
@@ -297,6 +214,8 @@ public class TableCanvas extends Canvas implements MouseListener {
 
 	@Override
 	public void mouseReleased(MouseEvent e) {
+		// The player is making their move, so stop thinking for them
+		parent.cancelHint();
 	}
 
 	private static void pause(int time) throws InterruptedException {
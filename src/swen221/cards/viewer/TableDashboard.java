@@ -0,0 +1,193 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.cards.viewer;
+
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.awt.image.BufferedImage;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import javax.swing.*;
+
+import swen221.cards.core.*;
+import swen221.cards.server.Table;
+import swen221.cards.server.TableServer;
+import swen221.cards.util.AbstractComputerPlayer;
+import swen221.cards.util.SandboxedComputerPlayer;
+import swen221.cards.util.SimpleComputerPlayer;
+
+/**
+ * A dashboard which monitors many computer-only games at once, drawing each
+ * table as a thumbnail in a grid. The games are hosted by a
+ * <code>TableServer</code>, whilst the dashboard is drawn by a single timer on
+ * the event dispatch thread. On each frame, only those tables whose state has
+ * changed are redrawn, and all thumbnails share the same card sprites. When a
+ * game finishes (or a computer player fails), a new game is started in its
+ * place.
+ *
+ */
+public class TableDashboard extends JFrame {
+	/**
+	 * The target number of frames per second.
+	 */
+	private static final int FPS = 20;
+
+	private final TableServer server = new TableServer();
+	private final Supplier<CardGame> games;
+	private final Slot[] slots;
+	private final int columns;
+	private final int thumbnail;
+	private final BufferedImage composite;
+	private final JComponent view;
+	private final JLabel statusBar;
+	private final Timer frameTimer;
+	private volatile boolean running = true;
+
+	/**
+	 * A single position in the grid, which hosts one table at a time.
+	 */
+	private final class Slot {
+		volatile CardGame game;
+		volatile long completed;
+		volatile long failed;
+		/**
+		 * The game and version last drawn for this slot (accessed only on the
+		 * event dispatch thread).
+		 */
+		CardGame renderedGame;
+		long renderedVersion = -1;
+		final TableRenderer renderer = new TableRenderer(thumbnail);
+	}
+
+	/**
+	 * Construct a dashboard which monitors a given number of tables.
+	 *
+	 * @param tables    The number of tables to monitor.
+	 * @param thumbnail The size (in pixels) of each table's thumbnail.
+	 * @param games     Creates the game played at each table.
+	 */
+	public TableDashboard(int tables, int thumbnail, Supplier<CardGame> games) {
+		super("Card Game Dashboard");
+		this.games = games;
+		this.thumbnail = thumbnail;
+		this.columns = (int) Math.ceil(Math.sqrt(tables));
+		int rows = (tables + columns - 1) / columns;
+		this.composite = new BufferedImage(columns * thumbnail, rows * thumbnail, BufferedImage.TYPE_INT_RGB);
+		this.slots = new Slot[tables];
+
+		view = new JComponent() {
+			@Override
+			protected void paintComponent(Graphics g) {
+				Rectangle clip = g.getClipBounds();
+				if (clip == null) {
+					g.drawImage(composite, 0, 0, null);
+				} else {
+					// Only copy the region being repainted
+					g.drawImage(composite, clip.x, clip.y, clip.x + clip.width, clip.y + clip.height, clip.x, clip.y,
+							clip.x + clip.width, clip.y + clip.height, null);
+				}
+			}
+		};
+		view.setPreferredSize(new Dimension(composite.getWidth(), composite.getHeight()));
+		view.setOpaque(true);
+		statusBar = new JLabel("Starting " + tables + " tables");
+		setLayout(new BorderLayout());
+		add(new JScrollPane(view), BorderLayout.CENTER);
+		add(statusBar, BorderLayout.SOUTH);
+
+		frameTimer = new Timer(1000 / FPS, new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				frame();
+			}
+		});
+		for (int i = 0; i != tables; ++i) {
+			slots[i] = new Slot();
+			startTable(slots[i]);
+		}
+		frameTimer.start();
+
+		addWindowListener(new WindowAdapter() {
+			@Override
+			public void windowClosed(WindowEvent e) {
+				running = false;
+				frameTimer.stop();
+				server.shutdown();
+			}
+		});
+		setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+		pack();
+		setVisible(true);
+	}
+
+	/**
+	 * Start a new game in a given slot, and arrange for another to be started
+	 * once it finishes.
+	 *
+	 * @param slot The slot in which to start the game.
+	 */
+	private void startTable(Slot slot) {
+		CardGame game = games.get();
+		Map<Player.Direction, AbstractComputerPlayer> computerPlayers = new EnumMap<>(Player.Direction.class);
+		for (Player.Direction d : Player.Direction.values()) {
+			computerPlayers.put(d, new SandboxedComputerPlayer(new SimpleComputerPlayer(game.getPlayer(d)), 1,
+					TimeUnit.SECONDS));
+		}
+		slot.game = game;
+		Table table = server.openTable(game, computerPlayers);
+		table.getResult().whenComplete((winners, error) -> {
+			server.closeTable(table);
+			if (error == null) {
+				slot.completed++;
+			} else {
+				slot.failed++;
+			}
+			if (running) {
+				startTable(slot);
+			}
+		});
+		table.start();
+	}
+
+	/**
+	 * Redraw those tables which have changed since the last frame.
+	 */
+	private void frame() {
+		int redrawn = 0;
+		long completed = 0;
+		long failed = 0;
+		Graphics2D g = composite.createGraphics();
+		for (int i = 0; i != slots.length; ++i) {
+			Slot slot = slots[i];
+			completed += slot.completed;
+			failed += slot.failed;
+			CardGame game = slot.game;
+			GameState state = game.getState();
+			if (game != slot.renderedGame) {
+				// A new game has started, so forget about the old one
+				slot.renderedGame = game;
+				slot.renderer.invalidate();
+			} else if (state.getVersion() == slot.renderedVersion) {
+				continue;
+			}
+			slot.renderedVersion = state.getVersion();
+			int x = (i % columns) * thumbnail;
+			int y = (i / columns) * thumbnail;
+			g.drawImage(slot.renderer.render(state, d -> false), x, y, null);
+			g.setColor(Color.DARK_GRAY);
+			g.drawRect(x, y, thumbnail - 1, thumbnail - 1);
+			view.repaint(x, y, thumbnail, thumbnail);
+			redrawn++;
+		}
+		g.dispose();
+		statusBar.setText(slots.length + " tables, " + completed + " games completed, " + failed
+				+ " failed, " + redrawn + " redrawn this frame");
+	}
+}
@@ -6,16 +6,31 @@ package swen221.cards.viewer;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.swing.*;
 
 import swen221.cards.core.*;
 import swen221.cards.util.AbstractCardGame;
 import swen221.cards.util.AbstractComputerPlayer;
+import swen221.cards.util.Deadline;
+import swen221.cards.util.GameRecorder;
+import swen221.cards.util.HintService;
+import swen221.cards.util.Ponderer;
+import swen221.cards.util.SandboxedComputerPlayer;
 import swen221.cards.util.SimpleComputerPlayer;
 import swen221.cards.variations.*;
 
@@ -30,8 +45,122 @@ public final class TableFrame extends JFrame {
 	private final JLabel trickBar;
 	private final JLabel scoreBar;
 	private final JButton duplicateButton;
+	private final JToggleButton turboButton;
+	private final JButton saveButton;
 	private Map<Player.Direction,AbstractComputerPlayer> computerPlayers = new HashMap<>();
-	private CardGame game;
+	/**
+	 * The game being played. In turbo mode, this is replaced by the turbo
+	 * thread each time a game finishes.
+	 */
+	private volatile CardGame game;
+	/**
+	 * Paces the game by firing (at most) one pending timer event. Swing timers
+	 * all share a single scheduling thread and fire on the event dispatch
+	 * thread, hence every change to the game is made on that thread.
+	 */
+	private final Timer timer;
+	/**
+	 * The delay (in milliseconds) before a computer player moves, or a
+	 * completed trick is cleared.
+	 */
+	private int moveDelay = 500;
+	/**
+	 * The time (in milliseconds) a computer player is allowed to decide its
+	 * move.
+	 */
+	private static final int MOVE_TIME_LIMIT = 10_000;
+	/**
+	 * The time (in milliseconds) a sandboxed computer player is allowed to
+	 * decide its move, before a move is chosen for it.
+	 */
+	private static final int SANDBOX_TIME_LIMIT = 2_000;
+	/**
+	 * The move currently being decided by a computer player, or
+	 * <code>null</code> if none.
+	 */
+	private CompletableFuture<Card> pendingMove;
+	/**
+	 * The target number of frames per second drawn in turbo mode.
+	 */
+	private static final int TURBO_FPS = 30;
+	/**
+	 * The thread playing the game in turbo mode, or <code>null</code> if turbo
+	 * mode is off. Whilst this thread is running, it (rather than the event
+	 * dispatch thread) owns the game.
+	 */
+	private Thread turboThread;
+	/**
+	 * Signals the turbo thread to stop.
+	 */
+	private volatile boolean turbo;
+	/**
+	 * Redraws the table at a fixed rate whilst in turbo mode.
+	 */
+	private final Timer frameTimer;
+	/**
+	 * Counts progress in turbo mode.
+	 */
+	private final AtomicLong turboTricks = new AtomicLong(), turboHands = new AtomicLong(),
+			turboGames = new AtomicLong();
+	private final GameListener turboListener = new GameListener() {
+		@Override
+		public void trickWon(Player.Direction winner) {
+			turboTricks.incrementAndGet();
+		}
+
+		@Override
+		public void handEnded() {
+			turboHands.incrementAndGet();
+		}
+
+		@Override
+		public void gameFinished() {
+			turboGames.incrementAndGet();
+		}
+	};
+	/**
+	 * The state last drawn in turbo mode, and the counters at the start of the
+	 * current measurement period.
+	 */
+	private long turboVersion = -1, turboPeriodStart, turboPeriodTricks, turboPeriodHands, turboPeriodGames;
+	/**
+	 * Records the game being played, starting from the most recent deal, so
+	 * that it can be saved as a replay.
+	 */
+	private GameRecorder recorder;
+	/**
+	 * Analyses the options of human players in the background.
+	 */
+	private final HintService hints = new HintService();
+	/**
+	 * The analysis currently running, or <code>null</code> if none.
+	 */
+	private Future<?> hint;
+	/**
+	 * Identifies the current analysis, so that hints which arrive after it was
+	 * cancelled are ignored.
+	 */
+	private int hintRequest;
+	/**
+	 * Works out the responses of computer players whilst a human player is
+	 * deciding their move.
+	 */
+	private final Ponderer ponderer = new Ponderer();
+	/**
+	 * Keeps the score bars up-to-date as tricks and hands are completed.
+	 */
+	private final GameListener scoreListener = new GameListener() {
+		@Override
+		public void trickWon(Player.Direction winner) {
+			updateTrickBar();
+		}
+
+		@Override
+		public void handEnded() {
+			updateTrickBar();
+			updateScoreBar();
+		}
+	};
 
 	/**
 	 * Create a TableFrame which asks the user for configuration details about
@@ -44,8 +173,7 @@ public final class TableFrame extends JFrame {
 		// Set all players except south to be computer players by default.
 		for (Player.Direction dir : Player.Direction.values()) {
 			if (dir != Player.Direction.SOUTH) {
-				computerPlayers.put(dir,
-						new SimpleComputerPlayer(game.getPlayer(dir)));
+				computerPlayers.put(dir, newComputerPlayer(game.getPlayer(dir)));
 			}
 		}
 
@@ -66,6 +194,23 @@ public final class TableFrame extends JFrame {
 		super("Card Game");
 
 		this.game = game;
+		this.timer = new Timer(moveDelay, new ActionListener() {
+
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				timerEvent();
+			}
+
+		});
+		this.timer.setRepeats(false);
+		this.frameTimer = new Timer(1000 / TURBO_FPS, new ActionListener() {
+
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				turboFrame();
+			}
+
+		});
 
 		GridBagConstraints c = new GridBagConstraints();
 		c.gridwidth = GridBagConstraints.REMAINDER;
@@ -77,8 +222,19 @@ public final class TableFrame extends JFrame {
 		statusBar = new JLabel("Status");
 		scoreBar = new JLabel("Score");
 		trickBar = new JLabel("Tricks");
+		game.addGameListener(scoreListener);
+		startRecording();
+		updateTrickBar();
+		updateScoreBar();
 		add(scoreBar, c);
+		// Only the canvas grows when the window is resized
+		c.fill = GridBagConstraints.BOTH;
+		c.weightx = 1;
+		c.weighty = 1;
 		add(canvas, c);
+		c.fill = GridBagConstraints.NONE;
+		c.weightx = 0;
+		c.weighty = 0;
 		add(statusBar, c);
 		add(trickBar, c);
 		duplicateButton = new JButton("Duplicate");
@@ -88,6 +244,29 @@ public final class TableFrame extends JFrame {
 		c.gridheight = 2;
 		c.anchor = GridBagConstraints.LINE_END;
 		add(duplicateButton, c);
+		turboButton = new JToggleButton("Turbo");
+		c.gridx = 2;
+		add(turboButton, c);
+		turboButton.setToolTipText("Play computer-only games at full speed");
+		saveButton = new JButton("Save Replay");
+		c.gridx = 3;
+		add(saveButton, c);
+		saveButton.addActionListener(new ActionListener() {
+
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				saveReplay();
+			}
+
+		});
+		turboButton.addActionListener(new ActionListener() {
+
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				setTurbo(turboButton.isSelected());
+			}
+
+		});
 
 		duplicateButton.addActionListener(new ActionListener() {
 
@@ -126,7 +305,16 @@ public final class TableFrame extends JFrame {
 	 * @param game The new game.
 	 */
 	public void setGame(CardGame game) {
+		cancelHint();
+		cancelMove();
+		ponderer.clear();
+		this.game.removeGameListener(scoreListener);
+		this.game.removeGameListener(recorder);
 		this.game = game;
+		game.addGameListener(scoreListener);
+		startRecording();
+		updateTrickBar();
+		updateScoreBar();
 		for(Player.Direction d : Player.Direction.values()) {
 			AbstractComputerPlayer cp = computerPlayers.get(d);
 			if(cp != null) {
@@ -134,6 +322,29 @@ public final class TableFrame extends JFrame {
 			}
 		}
 	}
+
+	/**
+	 * Get the delay used before a computer player moves, or a completed trick
+	 * is cleared.
+	 *
+	 * @return The delay in milliseconds.
+	 */
+	public int getMoveDelay() {
+		return moveDelay;
+	}
+
+	/**
+	 * Set the delay used before a computer player moves, or a completed trick
+	 * is cleared. A delay of zero means moves are made as soon as possible.
+	 *
+	 * @param delay The delay in milliseconds.
+	 */
+	public void setMoveDelay(int delay) {
+		if (delay < 0) {
+			throw new IllegalArgumentException("delay cannot be negative");
+		}
+		this.moveDelay = delay;
+	}
 
 	/**
 	 * Check whether a given player is a computer player (or not).
@@ -152,13 +363,27 @@ public final class TableFrame extends JFrame {
 	 * @param flag
 	 */
 	public void setComputerPlayer(Player.Direction player, boolean flag) {
+		// Any responses worked out in advance may no longer apply
+		ponderer.clear();
 		if(flag) {
-			computerPlayers.put(player, new SimpleComputerPlayer(game.getPlayer(player)));
+			computerPlayers.put(player, newComputerPlayer(game.getPlayer(player)));
 		} else {
 			computerPlayers.remove(player);
 		}
 	}
 
+	/**
+	 * Create a computer player for a given seat. The player is sandboxed, so
+	 * that it cannot hold up (or break) the game.
+	 *
+	 * @param player The player information for the seat.
+	 * @return The new computer player.
+	 */
+	private static AbstractComputerPlayer newComputerPlayer(Player player) {
+		return new SandboxedComputerPlayer(new SimpleComputerPlayer(player), SANDBOX_TIME_LIMIT,
+				TimeUnit.MILLISECONDS);
+	}
+
 	/**
 	 * Start a new hand.
 	 */
@@ -180,11 +405,12 @@ public final class TableFrame extends JFrame {
 
 	private void continueRound() {
 		statusEvent(game.getTrick().getNextToPlay() + " to start");
-		updateScoreBars();
 
 		if(isComputerPlayer(game.getTrick().getNextToPlay())) {
 			// Computer player to start
-			requestTimerEvent(500);
+			requestTimerEvent();
+		} else {
+			humanToPlay();
 		}
 
 		canvas.repaint();
@@ -198,16 +424,62 @@ public final class TableFrame extends JFrame {
 	 * @throws IllegalMove
 	 */
 	public void playedEvent(Player.Direction player, Card card) throws IllegalMove {
+		if (turboThread != null) {
+			throw new IllegalMove("Illegal move: game is in turbo mode.");
+		}
+		cancelHint();
 		game.play(player, card);
 		statusEvent(player + " played " + card);
 		canvas.repaint();
 		Player.Direction nextPlayer = game.getTrick().getNextToPlay();
 		if (nextPlayer == null) {
 			// Round has finished
-			requestTimerEvent(500);
+			requestTimerEvent();
 		} else if (isComputerPlayer(nextPlayer)) {
 			// Computer player next to play
-			requestTimerEvent(500);
+			requestTimerEvent();
+		} else {
+			humanToPlay();
+		}
+	}
+
+	/**
+	 * Make use of the time a human player spends deciding their move, by
+	 * suggesting what they might play and letting the computer players work
+	 * out their responses in advance.
+	 */
+	private void humanToPlay() {
+		startHint();
+		if (!computerPlayers.isEmpty()) {
+			ponderer.ponder(game, computerPlayers);
+		}
+	}
+
+	/**
+	 * Begin analysing the options of the (human) player next to play. Hints are
+	 * shown in the status bar as the analysis refines them.
+	 */
+	private void startHint() {
+		cancelHint();
+		final int request = hintRequest;
+		hint = hints.analyse(game.getState(), h -> SwingUtilities.invokeLater(() -> {
+			if (request == hintRequest) {
+				Player.Direction player = game.getTrick().getNextToPlay();
+				statusEvent(player + " to play, try " + h);
+			}
+		}));
+	}
+
+	/**
+	 * Stop analysing the options of the player next to play, discarding any
+	 * hints not yet shown. This is called as soon as the player begins making
+	 * their move.
+	 */
+	public void cancelHint() {
+		hintRequest++;
+		if (hint != null) {
+			hint.cancel(true);
+			hint = null;
 		}
 	}
 
@@ -217,7 +489,7 @@ public final class TableFrame extends JFrame {
 	 * @param msg The message to report.
 	 */
 	public void statusEvent(String msg) {
-		Card.Suit trumps = game.getTrick().getTrumps();
+		Card.Suit trumps = game.getState().getTrumps();
 		if(trumps == null) {
 			statusBar.setText("No trumps, " + msg);
 		} else {
@@ -227,34 +499,13 @@ public final class TableFrame extends JFrame {
 
 	private void timerEvent() {
 		if(game.getTrick().getNextToPlay() == null) {
+			ponderer.clear();
 			game.endRound();
 			if(game.isHandFinished()) {
 				game.endHand();
 				if(game.isGameFinished()) {
-					// Ok, the game has finished so signal who actually won, and
-					// ask the player if they want to go again.
-					String str = "";
-					boolean firstTime = true;
-					Set<Player.Direction> winners = game.getWinnersOfGame();
-					for(Player.Direction d : winners) {
-						if(!firstTime) {
-							str += ", ";
-						}
-						firstTime=false;
-						str += d;
-					}
-					if(winners.size() > 1) {
-						str += " are the winners!!";
-					} else {
-						str += " is the winner!!";
-					}
-					int r = JOptionPane.showConfirmDialog(this, new JLabel(str
-							+ "  Play Again?"), "Yes",
-							JOptionPane.YES_NO_OPTION,
-							JOptionPane.QUESTION_MESSAGE);
-					if (r != JOptionPane.YES_OPTION) {
-						System.exit(0);
-					}
+					gameOver();
+					return;
 				}
 				startHand();
 			} else {
@@ -263,34 +514,325 @@ public final class TableFrame extends JFrame {
 		} else {
 			// this indicates we're waiting for a computer player to play.
 			Player.Direction nextPlayer = game.getTrick().getNextToPlay();
-			try {
-				AbstractComputerPlayer computerPlayer = computerPlayers.get(nextPlayer);
-				if (computerPlayer != null) {
-					playedEvent(nextPlayer,computerPlayer.getNextCard(game.getTrick()));
-				}
-			} catch (IllegalMove e) {
-				throw new RuntimeException("Computer player is cheating!", e);
+			AbstractComputerPlayer computerPlayer = computerPlayers.get(nextPlayer);
+			if (computerPlayer != null) {
+				// Use the response worked out in advance, if there is one.
+				// Otherwise, the move is decided without blocking this thread.
+				Card card = ponderer.lookup(game.getTrick());
+				CompletableFuture<Card> move = card != null ? CompletableFuture.completedFuture(card)
+						: computerPlayer.getNextCardAsync(game.getTrick(),
+								Deadline.after(MOVE_TIME_LIMIT, TimeUnit.MILLISECONDS));
+				pendingMove = move;
+				move.whenComplete((c, e) -> SwingUtilities.invokeLater(() -> computerMoved(move, nextPlayer, c, e)));
+			}
+		}
+	}
+
+	/**
+	 * Apply the move decided by a computer player, unless it has since been
+	 * cancelled. If the player took too long, or failed, then a legal card is
+	 * played for it instead, so that the game carries on.
+	 *
+	 * @param move   The move which was decided.
+	 * @param player The computer player who decided it.
+	 * @param card   The card to play, or <code>null</code> if an error occurred.
+	 * @param error  The error which occurred, or <code>null</code>.
+	 */
+	private void computerMoved(CompletableFuture<Card> move, Player.Direction player, Card card, Throwable error) {
+		if (move != pendingMove) {
+			return;
+		}
+		pendingMove = null;
+		if (error instanceof CompletionException && error.getCause() != null) {
+			error = error.getCause();
+		}
+		String problem = null;
+		if (error instanceof TimeoutException) {
+			problem = player + " took too long to move";
+		} else if (error != null) {
+			problem = player + " failed to move (" + error + ")";
+		} else if (card == null) {
+			problem = player + " chose no card";
+		}
+		if (problem != null) {
+			card = SandboxedComputerPlayer.defaultCard(game.getTrick(), game.getPlayer(player).getHand());
+		}
+		try {
+			playedEvent(player, card);
+		} catch (IllegalMove e) {
+			throw new RuntimeException("Computer player is cheating!", e);
+		}
+		if (problem != null) {
+			statusEvent(problem + ", so played " + card);
+		}
+	}
+
+	/**
+	 * Cancel the move being decided by a computer player (if any).
+	 */
+	private void cancelMove() {
+		if (pendingMove != null) {
+			pendingMove.cancel(true);
+			pendingMove = null;
+		}
+	}
+
+	/**
+	 * Signal who actually won the (finished) game, and ask the player if they
+	 * want to go again.
+	 */
+	private void gameOver() {
+		String str = "";
+		boolean firstTime = true;
+		Set<Player.Direction> winners = game.getWinnersOfGame();
+		for(Player.Direction d : winners) {
+			if(!firstTime) {
+				str += ", ";
+			}
+			firstTime=false;
+			str += d;
+		}
+		if(winners.size() > 1) {
+			str += " are the winners!!";
+		} else {
+			str += " is the winner!!";
+		}
+		int r = JOptionPane.showConfirmDialog(this, new JLabel(str
+				+ "  Play Again?"), "Yes",
+				JOptionPane.YES_NO_OPTION,
+				JOptionPane.QUESTION_MESSAGE);
+		if (r != JOptionPane.YES_OPTION) {
+			System.exit(0);
+		}
+		startHand();
+	}
+
+	// ========================================================
+	// Turbo Mode
+	// ========================================================
+
+	/**
+	 * Turn turbo mode on or off. In turbo mode, games are played one after
+	 * another as fast as the computer players allow on a background thread,
+	 * whilst the table is redrawn at a fixed frame rate. This requires every
+	 * player to be a computer player.
+	 *
+	 * @param flag Whether turbo mode should be on or off.
+	 */
+	public void setTurbo(boolean flag) {
+		if (flag && turboThread == null) {
+			if (computerPlayers.size() != Player.Direction.values().length) {
+				statusEvent("turbo needs four computer players");
+				turboButton.setSelected(false);
+				return;
 			}
+			cancelTimerEvent();
+			cancelHint();
+			ponderer.clear();
+			duplicateButton.setEnabled(false);
+			saveButton.setEnabled(false);
+			// The bars are updated from the frame timer instead, and turbo games
+			// are not recorded
+			game.removeGameListener(scoreListener);
+			game.removeGameListener(recorder);
+			game.addGameListener(turboListener);
+			turboPeriodStart = System.nanoTime();
+			turboPeriodTricks = turboTricks.get();
+			turboPeriodHands = turboHands.get();
+			turboPeriodGames = turboGames.get();
+			turbo = true;
+			turboThread = new Thread(this::turboLoop, "turbo");
+			turboThread.setDaemon(true);
+			turboThread.start();
+			frameTimer.start();
+		} else if (!flag) {
+			// The turbo thread hands the game back once it has stopped
+			turbo = false;
 		}
+		turboButton.setSelected(flag);
 	}
 
-	private void requestTimerEvent(final int delay) {
-		Thread timer = new Thread() {
-			@Override
-			public void run() {
-				try {
-					Thread.sleep(delay);
-				} catch (InterruptedException e) {
-					// ignore
+	/**
+	 * Play games at full speed until turbo mode is turned off, starting a new
+	 * game whenever one finishes. Each move by a built-in player is decided
+	 * directly on this thread by the player inside the sandbox, since handing
+	 * every move to another thread costs far more than deciding it. Only if
+	 * that player fails, overruns the sandbox's time limit, or picks a card it
+	 * cannot play, is the sandbox asked instead. Other players are always
+	 * asked through the sandbox, as they cannot be trusted to stop in time.
+	 * This runs on the turbo thread.
+	 */
+	private void turboLoop() {
+		String error = null;
+		try {
+			Map<Player.Direction, AbstractComputerPlayer> direct = new HashMap<>();
+			for (Map.Entry<Player.Direction, AbstractComputerPlayer> p : computerPlayers.entrySet()) {
+				AbstractComputerPlayer player = p.getValue();
+				if (player instanceof SandboxedComputerPlayer
+						&& ((SandboxedComputerPlayer) player).getDelegate() instanceof SimpleComputerPlayer) {
+					player = ((SandboxedComputerPlayer) player).getDelegate();
 				}
-				timerEvent();
+				direct.put(p.getKey(), player);
 			}
-		};
-		timer.start();
+			while (turbo) {
+				if (game.isGameFinished()) {
+					startTurboGame();
+					continue;
+				}
+				Trick trick = game.getTrick();
+				Player.Direction nextPlayer = trick.getNextToPlay();
+				if (nextPlayer != null) {
+					try {
+						game.play(nextPlayer, directMove(direct.get(nextPlayer), trick));
+					} catch (IllegalMove | RuntimeException e) {
+						game.play(nextPlayer, computerPlayers.get(nextPlayer).getNextCard(trick));
+					}
+				} else {
+					game.endRound();
+					if (!game.isHandFinished()) {
+						game.startRound();
+					} else {
+						game.endHand();
+						if (!game.isGameFinished()) {
+							java.util.List<Card> deck = AbstractCardGame.createDeck();
+							Collections.shuffle(deck);
+							game.deal(deck);
+							game.startRound();
+						}
+					}
+				}
+			}
+		} catch (IllegalMove | RuntimeException e) {
+			error = "computer player failed (" + e + ")";
+		} catch (ReflectiveOperationException e) {
+			error = "cannot start a new game (" + e + ")";
+		}
+		final String msg = error;
+		SwingUtilities.invokeLater(() -> turboStopped(msg));
 	}
 
-	private void updateScoreBars() {
-		Map<Player.Direction,Integer> tricks = game.getTricksWon();
+	/**
+	 * Decide a move on the turbo thread, allowing the player as long as the
+	 * sandbox would. The player is told of this deadline, but cannot be stopped
+	 * if it ignores it; hence, only players known to honour it are asked here.
+	 * This runs on the turbo thread.
+	 *
+	 * @param player The player deciding the move.
+	 * @param trick  The trick being played.
+	 * @return The card to play.
+	 * @throws CancellationException If the player overran the deadline, in
+	 *                               which case its card is not played.
+	 */
+	private static Card directMove(AbstractComputerPlayer player, Trick trick) {
+		Deadline deadline = Deadline.after(SANDBOX_TIME_LIMIT, TimeUnit.MILLISECONDS);
+		Card card = player.getNextCardAsync(trick, deadline, Runnable::run).join();
+		if (deadline.isExpired()) {
+			throw new CancellationException("no move within time limit");
+		}
+		return card;
+	}
+
+	/**
+	 * Replace the finished game with a new game of the same kind, and deal its
+	 * first hand. This runs on the turbo thread.
+	 *
+	 * @throws ReflectiveOperationException If the new game cannot be created.
+	 */
+	private void startTurboGame() throws ReflectiveOperationException {
+		CardGame next = game.getClass().getDeclaredConstructor().newInstance();
+		game.removeGameListener(turboListener);
+		next.addGameListener(turboListener);
+		for (Map.Entry<Player.Direction, AbstractComputerPlayer> p : computerPlayers.entrySet()) {
+			p.getValue().setPlayer(next.getPlayer(p.getKey()));
+		}
+		java.util.List<Card> deck = AbstractCardGame.createDeck();
+		Collections.shuffle(deck);
+		next.deal(deck);
+		next.startRound();
+		game = next;
+	}
+
+	/**
+	 * Hand the game back to the event dispatch thread once the turbo thread has
+	 * stopped.
+	 *
+	 * @param error A description of what went wrong, or <code>null</code>.
+	 */
+	private void turboStopped(String error) {
+		turboThread = null;
+		turbo = false;
+		frameTimer.stop();
+		turboButton.setSelected(false);
+		duplicateButton.setEnabled(true);
+		saveButton.setEnabled(true);
+		game.removeGameListener(turboListener);
+		game.addGameListener(scoreListener);
+		startRecording();
+		updateTrickBar();
+		updateScoreBar();
+		canvas.repaint();
+		if (error != null) {
+			statusEvent(error);
+		} else if (game.isGameFinished()) {
+			gameOver();
+		} else {
+			// Carry on at the usual pace
+			Player.Direction nextPlayer = game.getTrick().getNextToPlay();
+			if (nextPlayer != null) {
+				statusEvent(nextPlayer + " to play");
+			}
+			requestTimerEvent();
+		}
+	}
+
+	/**
+	 * Redraw the table (if it has changed) and report progress. This is called
+	 * at a fixed rate in turbo mode, and so any intermediate states are simply
+	 * skipped.
+	 */
+	private void turboFrame() {
+		GameState state = game.getState();
+		if (state.getVersion() != turboVersion) {
+			turboVersion = state.getVersion();
+			updateTrickBar();
+			updateScoreBar();
+			canvas.repaint();
+		}
+		long now = System.nanoTime();
+		double seconds = (now - turboPeriodStart) / 1e9;
+		if (seconds >= 1) {
+			long tricks = turboTricks.get(), hands = turboHands.get(), games = turboGames.get();
+			statusEvent(String.format("turbo: %.0f tricks/s, %.1f hands/s, %.2f games/s",
+					(tricks - turboPeriodTricks) / seconds, (hands - turboPeriodHands) / seconds,
+					(games - turboPeriodGames) / seconds));
+			turboPeriodStart = now;
+			turboPeriodTricks = tricks;
+			turboPeriodHands = hands;
+			turboPeriodGames = games;
+		}
+	}
+
+	/**
+	 * Request a timer event after the current move delay. At most one timer
+	 * event is ever pending, so requesting another before the first has fired
+	 * simply replaces it.
+	 */
+	private void requestTimerEvent() {
+		timer.setInitialDelay(moveDelay);
+		timer.restart();
+	}
+
+	/**
+	 * Cancel the pending timer event (if any), including a computer player's
+	 * move which is still being decided.
+	 */
+	public void cancelTimerEvent() {
+		timer.stop();
+		cancelMove();
+	}
+
+	private void updateTrickBar() {
+		GameState state = game.getState();
 
 		String trickScore = "";
 		boolean firstTime = true;
@@ -298,24 +840,53 @@ public final class TableFrame extends JFrame {
 			if(!firstTime) {
 				trickScore += ", ";
 			}
-			trickScore += d + ": " + tricks.get(d);
+			trickScore += d + ": " + state.getTricksWon(d);
 			firstTime = false;
 		}
 		trickBar.setText("Tricks Won: " + trickScore);
+	}
 
-		Map<Player.Direction,Integer> scores = game.getOverallScores();
+	private void updateScoreBar() {
+		GameState state = game.getState();
 		String overallScore = "";
-		firstTime = true;
+		boolean firstTime = true;
 		for(Player.Direction d : Player.Direction.values()) {
 			if(!firstTime) {
 				overallScore += ", ";
 			}
-			overallScore += d + ": " + scores.get(d);
+			overallScore += d + ": " + state.getOverallScore(d);
 			firstTime = false;
 		}
 		scoreBar.setText("Overall Score: " + overallScore);
 	}
 
+	/**
+	 * Begin a new recording of the current game, which starts from the next
+	 * hand dealt.
+	 */
+	private void startRecording() {
+		recorder = new GameRecorder(game);
+		game.addGameListener(recorder);
+	}
+
+	/**
+	 * Ask the user where to save the recording of this game, and save it.
+	 */
+	private void saveReplay() {
+		if (recorder.getRecording().getDealCount() == 0) {
+			statusEvent("nothing recorded yet");
+			return;
+		}
+		JFileChooser chooser = new JFileChooser();
+		if (chooser.showSaveDialog(this) == JFileChooser.APPROVE_OPTION) {
+			try (Writer out = new FileWriter(chooser.getSelectedFile())) {
+				recorder.getRecording().write(out);
+			} catch (IOException e) {
+				statusEvent("could not save replay: " + e.getMessage());
+			}
+		}
+	}
+
 	@Override
 	public TableFrame clone() {
 		TableFrame duplicate = new TableFrame(game.clone());
@@ -325,6 +896,7 @@ public final class TableFrame extends JFrame {
 				.entrySet()) {
 			duplicate.setComputerPlayer(p.getKey(), true);
 		}
+		duplicate.setMoveDelay(moveDelay);
 
 		// Update the various displays to signal who's go it is and/or to
 		// register a computer player to take a turn
@@ -0,0 +1,253 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.cards.viewer;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+import swen221.cards.core.*;
+
+/**
+ * Draws the state of a game into an image of a given size. The table is laid
+ * out on a notional grid of 600 by 600 units, which is scaled to the size of
+ * the image, and the card sprites are rendered at that scale (rather than
+ * being stretched). The image persists between frames, and only those hands
+ * and trick cards which have changed since the last frame are redrawn.
+ *
+ */
+public class TableRenderer {
+	/**
+	 * The size of the (square) grid on which the table is laid out.
+	 */
+	public static final int TABLE_SIZE = 600;
+
+	/**
+	 * Regions occupied by the hand of each player, indexed by direction. These
+	 * never overlap, so each can be redrawn independently.
+	 */
+	private static final Rectangle[] handRegions = {
+			new Rectangle(110, 0, 380, 119),   // NORTH
+			new Rectangle(482, 110, 118, 380), // EAST
+			new Rectangle(110, 482, 380, 118), // SOUTH
+			new Rectangle(0, 110, 119, 380)    // WEST
+	};
+
+	/**
+	 * Regions occupied by the card played by each player in the current trick,
+	 * indexed by direction.
+	 */
+	private static final Rectangle[] trickRegions = {
+			new Rectangle(265, 150, 75, 100),  // NORTH
+			new Rectangle(350, 265, 100, 75),  // EAST
+			new Rectangle(265, 350, 75, 100),  // SOUTH
+			new Rectangle(150, 265, 100, 75)   // WEST
+	};
+
+	private static final Color background = new Color(0,150,0);
+
+	private final double scale;
+	private final CardAtlas atlas;
+	private final Font font;
+	private final BufferedImage frame;
+
+	/**
+	 * The state of the game last drawn into the frame.
+	 */
+	private GameState rendered;
+
+	/**
+	 * Whether or not each hand was last drawn face down.
+	 */
+	private final boolean[] renderedFaceDown = new boolean[4];
+
+	/**
+	 * Construct a renderer which draws into a (square) image of a given size.
+	 *
+	 * @param size The width and height of the image in pixels.
+	 */
+	public TableRenderer(int size) {
+		this(size, null);
+	}
+
+	/**
+	 * Construct a renderer which draws into a (square) image of a given size,
+	 * using a given font for the card faces.
+	 *
+	 * @param size The width and height of the image in pixels.
+	 * @param font The font used for card faces (sized for a table 600 pixels
+	 *             across), or <code>null</code> for the default font.
+	 */
+	public TableRenderer(int size, Font font) {
+		this.scale = (double) size / TABLE_SIZE;
+		this.font = font;
+		this.atlas = CardAtlas.forSize(scale(75), scale(100), font);
+		this.frame = new BufferedImage(Math.max(1, size), Math.max(1, size), BufferedImage.TYPE_INT_RGB);
+	}
+
+	/**
+	 * Get the font used for card faces.
+	 *
+	 * @return The font, or <code>null</code> for the default font.
+	 */
+	public Font getFont() {
+		return font;
+	}
+
+	/**
+	 * Get the size of the image drawn by this renderer.
+	 *
+	 * @return The width (and height) of the image in pixels.
+	 */
+	public int getSize() {
+		return frame.getWidth();
+	}
+
+	/**
+	 * Get the number of pixels per unit of the table layout.
+	 *
+	 * @return The scale of this renderer.
+	 */
+	public double getScale() {
+		return scale;
+	}
+
+	/**
+	 * Get the card sprites used by this renderer.
+	 *
+	 * @return The atlas of card sprites.
+	 */
+	public CardAtlas getAtlas() {
+		return atlas;
+	}
+
+	/**
+	 * Force the whole table to be redrawn on the next frame.
+	 */
+	public void invalidate() {
+		rendered = null;
+	}
+
+	/**
+	 * Bring the image up-to-date with a given state of the game, redrawing only
+	 * those hands and trick cards which have changed.
+	 *
+	 * @param state    The state to be drawn.
+	 * @param faceDown Identifies which hands are drawn face down.
+	 * @return The image of the table.
+	 */
+	public BufferedImage render(GameState state, Predicate<Player.Direction> faceDown) {
+		boolean all = rendered == null;
+		Graphics2D g = frame.createGraphics();
+		if (all) {
+			g.setColor(background);
+			g.fillRect(0, 0, frame.getWidth(), frame.getHeight());
+			g.setColor(Color.YELLOW);
+			g.setStroke(new BasicStroke((float) Math.max(1, scale)));
+			g.drawRect(scale(120), scale(120), scale(360), scale(360));
+		}
+		for (Player.Direction d : Player.Direction.values()) {
+			int i = d.ordinal();
+			boolean down = faceDown.test(d);
+			if (all || state.getHand(d) != rendered.getHand(d) || down != renderedFaceDown[i]) {
+				clear(g, handRegions[i]);
+				switch (d) {
+				case NORTH:
+					drawHHand(state, d, down, g, 10);
+					break;
+				case EAST:
+					drawVHand(state, d, down, g, 490);
+					break;
+				case SOUTH:
+					drawHHand(state, d, down, g, 490);
+					break;
+				case WEST:
+					drawVHand(state, d, down, g, 10);
+					break;
+				}
+				renderedFaceDown[i] = down;
+			}
+			Card played = state.getCardPlayed(d);
+			if (all || !Objects.equals(played, rendered.getCardPlayed(d))) {
+				Rectangle r = trickRegions[i];
+				clear(g, r);
+				if (played != null) {
+					atlas.drawCard(g, played, d, scale(r.x), scale(r.y));
+				}
+			}
+		}
+		g.dispose();
+		rendered = state;
+		return frame;
+	}
+
+	/**
+	 * Determine the position (in table units) of the first card in a hand.
+	 *
+	 * @param size    The number of cards in the hand.
+	 * @param spacing The spacing between cards.
+	 * @return The position of the first card.
+	 */
+	static int pos(int size, float spacing) {
+		return 300 - ((int) ((size * spacing)+80)/2);
+	}
+
+	/**
+	 * Determine the spacing (in table units) between cards in a hand.
+	 *
+	 * @param size The number of cards in the hand.
+	 * @return The spacing between cards.
+	 */
+	static int spacing(int size) {
+		return Math.min(80, 300 / size);
+	}
+
+	// ========================================================
+	// Helper methods
+	// ========================================================
+
+	private void clear(Graphics g, Rectangle r) {
+		int x = (int) Math.floor(r.x * scale);
+		int y = (int) Math.floor(r.y * scale);
+		g.setColor(background);
+		g.fillRect(x, y, (int) Math.ceil((r.x + r.width) * scale) - x, (int) Math.ceil((r.y + r.height) * scale) - y);
+	}
+
+	private void drawVHand(GameState state, Player.Direction player, boolean faceDown, Graphics g, int xpos) {
+		int size = state.getHandSize(player);
+		if(size > 0) {
+			final float spacing = spacing(size);
+			int ypos = pos(size, spacing);
+			for(Card c : state.getCards(player)) {
+				if(faceDown) {
+					atlas.drawCardBack(g, true, scale(xpos), scale(ypos));
+				} else {
+					atlas.drawCard(g, c, player, scale(xpos), scale(ypos));
+				}
+				ypos += spacing;
+			}
+		}
+	}
+
+	private void drawHHand(GameState state, Player.Direction player, boolean faceDown, Graphics g, int ypos) {
+		int size = state.getHandSize(player);
+		if(size > 0) {
+			final float spacing = spacing(size);
+			int xpos = pos(size, spacing);
+			for(Card c : state.getCards(player)) {
+				if(faceDown) {
+					atlas.drawCardBack(g, false, scale(xpos), scale(ypos));
+				} else {
+					atlas.drawCard(g, c, player, scale(xpos), scale(ypos));
+				}
+				xpos += spacing;
+			}
+		}
+	}
+
+	private int scale(int n) {
+		return (int) Math.round(n * scale);
+	}
+}